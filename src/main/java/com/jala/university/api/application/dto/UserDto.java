@@ -1,5 +1,6 @@
 package com.jala.university.api.application.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonProperty.Access;
@@ -35,4 +36,7 @@ public class UserDto {
 
   @JsonProperty(access = Access.READ_ONLY)
   private boolean validated;
+
+  @JsonIgnore
+  private long principalVersion;
 }
@@ -7,9 +7,10 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class IdentityTokenFactory {
-  public final IdentityValidationToken create(LocalDateTime expiration) {
+  public final IdentityValidationToken create(LocalDateTime expiration, UUID userId) {
     return IdentityValidationToken.builder()
         .id(UUID.randomUUID())
+        .userId(userId)
         .expiration(expiration)
         .build();
   }
@@ -3,13 +3,14 @@ package com.jala.university.api.application.mapper.impl;
 import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.application.mapper.Mapper;
 import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserMapper implements Mapper<User, UserDto> {
 
   /**
-   * Maps a UserDto object to a User entity.
+   * Maps a UserDto object to a User entity, with the login key of its email.
    *
    * @param userDto the UserDto object
    * @return the mapped User entity
@@ -17,16 +18,18 @@ public class UserMapper implements Mapper<User, UserDto> {
   @Override
   public User mapFrom(UserDto userDto) {
     return User.builder()
-    .id(userDto.getId())
+    .id(Uuids.parse(userDto.getId()).orElse(null))
     .name(userDto.getName())
     .login(userDto.getEmail())
+    .loginKey(User.loginKeyOf(userDto.getEmail()))
     .password(userDto.getPassword())
     .validated(userDto.isValidated())
+    .principalVersion(userDto.getPrincipalVersion())
     .build();
   }
 
   /**
-   * Maps a User entity to a UserDto object.
+   * Maps a User entity to a UserDto object. The password hash is never copied.
    *
    * @param entity the User entity
    * @return the mapped UserDto object
@@ -34,11 +37,11 @@ public class UserMapper implements Mapper<User, UserDto> {
   @Override
   public UserDto mapTo(User entity) {
     return UserDto.builder()
-    .id(entity.getId())
+    .id(entity.getId() != null ? entity.getId().toString() : null)
     .name(entity.getName())
     .email(entity.getLogin())
-    .password(entity.getPassword())
     .validated(entity.isValidated())
+    .principalVersion(entity.getPrincipalVersion())
     .build();
   }
 }
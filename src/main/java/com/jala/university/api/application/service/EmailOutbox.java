@@ -0,0 +1,12 @@
+package com.jala.university.api.application.service;
+
+public interface EmailOutbox {
+  /**
+   * Records an email to be delivered in the background, with retries, and returns right away.
+   *
+   * @param to recipient of the email.
+   * @param subject subject of the email.
+   * @param body body of the email (could contain HTML).
+   */
+  void enqueue(String to, String subject, String body);
+}
@@ -3,6 +3,8 @@ package com.jala.university.api.application.service;
 import com.jala.university.api.application.dto.IdentityValidationTokenDto;
 import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
 import java.security.InvalidParameterException;
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -12,16 +14,43 @@ public interface TokenService {
 
   /**
    * Creates a new token.
+   * <p>
+   * When signed tokens are enabled the token is stateless and nothing is written; otherwise a
+   * random token is stored.
    *
    * @param expiration when the token will expire.
    * @param user owner of the token.
+   * @param purpose operation the token is issued for.
    * @return a new IdentityValidationTokenDto.
    * @throws InvalidParameterException when expiration is less than or equal to the current time
    * @throws UserNotFoundException when the user received doesn't exist
    */
-  IdentityValidationTokenDto createToken(LocalDateTime expiration, UserDto user)
+  IdentityValidationTokenDto createToken(LocalDateTime expiration, UserDto user, IdentityTokenSigner.Purpose purpose)
       throws InvalidParameterException, UserNotFoundException;
 
+  /**
+   * Verifies a signed token, without reading or writing anything.
+   * <p>
+   * The token isn't consumed: the operation using it must only apply if the principal version of the
+   * owner is still the one in the token, and must increment it.
+   *
+   * @param token signed token to be verified.
+   * @param purpose operation the token is used for.
+   * @return the content of the token if its signature is valid, it was issued for the purpose and
+   *     hasn't expired. Empty otherwise.
+   */
+  Optional<IdentityTokenSigner.Claims> readSignedToken(String token, IdentityTokenSigner.Purpose purpose);
+
+  /**
+   * Parses the ID of a stored token.
+   *
+   * @param token token received from a user.
+   * @return the ID of the stored token, empty if the token isn't a stored one.
+   */
+  static Optional<UUID> storedTokenId(String token) {
+    return Uuids.parse(token);
+  }
+
   /**
    * Verifies the received token.
    * <p>
@@ -33,8 +62,23 @@ public interface TokenService {
    */
   boolean verifyToken(UUID token);
 
+  /**
+   * Verifies the received token and returns its owner.
+   * <p>
+   * The token is marked as verified in a single conditional update, so of several concurrent
+   * verifications of the same token only one succeeds. A token this node already saw consumed is
+   * rejected without reading the database.
+   *
+   * @param token token to be verified.
+   * @return the ID of the owner of the token if it existed, hadn't expired and hadn't been verified
+   *     already. Empty otherwise.
+   */
+  Optional<UUID> consumeToken(UUID token);
+
   /**
    * Search for the User that corresponds to the received UUID.
+   * <p>
+   * Tokens issued or read recently by this node are answered from memory.
    *
    * @param token token to be searched
    * @return an optional of IdentityValidationToken
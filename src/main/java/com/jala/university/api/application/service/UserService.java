@@ -5,21 +5,20 @@ import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatExcept
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
 import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
-import jakarta.mail.MessagingException;
-import java.util.UUID;
 
 public interface UserService {
 
     UserDto getUserById(String id) throws UserNotFoundException;
 
     UserDto createUser(UserDto user)
-            throws InvalidPasswordFormatException, InvalidEmailFormatException, UserAlreadyRegisteredException, MessagingException;
+            throws InvalidPasswordFormatException, InvalidEmailFormatException, UserAlreadyRegisteredException;
 
     UserDto updateUser(String id, UserDto user)
-            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException, MessagingException;
+            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException,
+            UserAlreadyRegisteredException;
 
     String deleteUser(String id) throws UserNotFoundException;
 
-    boolean validateUserEmail(UUID token);
+    boolean validateUserEmail(String token);
 
 }
@@ -5,31 +5,46 @@ import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.application.mapper.impl.UserMapper;
 import com.jala.university.api.application.service.AuthServices;
 import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.domain.exceptions.ServiceOverloadedException;
 import com.jala.university.api.domain.exceptions.authentication.InvalidAuthenticationCredentialsException;
 import com.jala.university.api.domain.exceptions.authentication.UserNotValidatedException;
+import com.jala.university.api.domain.repository.UserDao;
 import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.infrastructure.persistence.cache.RegisteredLoginFilter;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
 
 @Service
 public class AuthServiceImpl implements AuthServices {
 
   private final UserRepository userRepository;
+  private final UserDao userDao;
   private final PasswordEncoder passwordEncoder;
   private final UserMapper userMapper;
+  private final UserInvalidationBus invalidationBus;
+  private final RegisteredLoginFilter registeredLogins;
 
   @Autowired
-  public AuthServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, UserMapper userMapper) {
+  public AuthServiceImpl(UserRepository userRepository, UserDao userDao, PasswordEncoder passwordEncoder,
+      UserMapper userMapper, UserInvalidationBus invalidationBus,
+      RegisteredLoginFilter registeredLogins) {
     this.userRepository = userRepository;
+    this.userDao = userDao;
     this.passwordEncoder = passwordEncoder;
     this.userMapper = userMapper;
+    this.invalidationBus = invalidationBus;
+    this.registeredLogins = registeredLogins;
   }
 
   /**
    * Authenticates a user with the given email and password.
+   * <p>
+   * Only the credentials are read, and only for a login that may be registered. The user cache isn't
+   * used: it holds accounts without their password hash.
    *
    * @param credentials user credentials.
    * @return a UserDto containing the authenticated user's details.
@@ -38,18 +53,16 @@ public class AuthServiceImpl implements AuthServices {
    */
   @Override
   public UserDto login(UserCredentials credentials) throws InvalidAuthenticationCredentialsException, UserNotValidatedException {
-    User userEntity = userRepository.findByLogin(credentials.getLogin());
+    User userEntity = registeredLogins.lookup(credentials.getLogin(), userDao::findCredentialsByLogin)
+        .orElseThrow(InvalidAuthenticationCredentialsException::new);
 
-    if (userEntity == null) {
+    if (!passwordEncoder.matches(credentials.getPassword(), userEntity.getPassword())) {
       throw new InvalidAuthenticationCredentialsException();
     }
 
-    if (!passwordEncoder.matches(credentials.getPassword(), userEntity.getPassword())
-        && !credentials.getPassword().equals(userEntity.getPassword())) {
-      throw new InvalidAuthenticationCredentialsException();
-    }
+    upgradePassword(userEntity, credentials.getPassword());
 
-    if (!isValidated(userEntity)) {
+    if (!userEntity.isValidated()) {
       throw new UserNotValidatedException();
     }
 
@@ -57,14 +70,27 @@ public class AuthServiceImpl implements AuthServices {
   }
 
   /**
-   * Checks if a user's account has been validated.
+   * Rehashes the password of a user if it was stored with an outdated algorithm or strength.
+   * <p>
+   * Must only be called after the password matched. The hash is replaced only if it wasn't changed
+   * since it was read; when the hashing pool is saturated the upgrade is left for a later login.
    *
-   * @param user the User entity to check for validation.
-   * @return true if the user is validated, false otherwise.
-   * If no UserExt is found for the user, it is assumed to be validated (returns true).
+   * @param user        the authenticated user.
+   * @param rawPassword the password the user authenticated with.
    */
-  private boolean isValidated(User user) {
-    Optional<User> optionalUser = userRepository.findById(user.getId());
-    return optionalUser.map(User::isValidated).orElse(false);
+  private void upgradePassword(User user, String rawPassword) {
+    if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+      return;
+    }
+
+    try {
+      String upgradedPassword = passwordEncoder.encode(rawPassword);
+
+      if (userRepository.updatePassword(user.getId(), user.getPassword(), upgradedPassword)) {
+        user.setPassword(upgradedPassword);
+        invalidationBus.publish(UserChangedEvent.updated(user.getId().toString(), user.getPrincipalVersion()));
+      }
+    } catch (ServiceOverloadedException ignored) {
+    }
   }
 }
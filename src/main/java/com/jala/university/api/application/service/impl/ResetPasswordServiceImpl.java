@@ -2,8 +2,7 @@ package com.jala.university.api.application.service.impl;
 
 import com.jala.university.api.application.dto.IdentityValidationTokenDto;
 import com.jala.university.api.application.dto.UserDto;
-import com.jala.university.api.application.mapper.impl.UserMapper;
-import com.jala.university.api.application.service.EmailService;
+import com.jala.university.api.application.service.EmailOutbox;
 import com.jala.university.api.application.service.ResetPasswordService;
 import com.jala.university.api.application.service.TokenService;
 import com.jala.university.api.application.service.ValidationService;
@@ -11,12 +10,17 @@ import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatExcept
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
 import com.jala.university.api.domain.repository.UserRepository;
-import jakarta.mail.MessagingException;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 @Service
@@ -25,23 +29,31 @@ public class ResetPasswordServiceImpl implements ResetPasswordService {
   private final TokenService tokenService;
   private final PasswordEncoder passwordEncoder;
   private final ValidationService validationService;
-  private final EmailService emailService;
+  private final EmailOutbox emailOutbox;
+  private final UserInvalidationBus invalidationBus;
 
   private final int expirationTimeTokenInHours = 1;
-  private final UserMapper userMapper = new UserMapper();
 
   @Autowired
   public ResetPasswordServiceImpl(UserRepository userRepository, TokenService tokenService, PasswordEncoder passwordEncoder,
-                                  ValidationService validationService, EmailService emailService) {
-    this.emailService = emailService;
+                                  ValidationService validationService, EmailOutbox emailOutbox,
+                                  UserInvalidationBus invalidationBus) {
+    this.emailOutbox = emailOutbox;
     this.userRepository = userRepository;
     this.tokenService = tokenService;
     this.passwordEncoder = passwordEncoder;
     this.validationService = validationService;
+    this.invalidationBus = invalidationBus;
   }
 
+  /**
+   * Records a password reset email in the outbox, it is sent in the background.
+   *
+   * @param email the email of the user.
+   * @return {@code true} if the user exists and the email was recorded, {@code false} otherwise.
+   */
   @Override
-  public final boolean sendPasswordResetEmail(String email) throws MessagingException, InvalidEmailFormatException {
+  public final boolean sendPasswordResetEmail(String email) throws InvalidEmailFormatException {
     if (!validationService.isValidEmail(email)) {
       throw new InvalidEmailFormatException(email);
     }
@@ -52,31 +64,75 @@ public class ResetPasswordServiceImpl implements ResetPasswordService {
         .build();
 
     try {
-      token = tokenService.createToken(LocalDateTime.now().plusHours(expirationTimeTokenInHours), user);
+      token = tokenService.createToken(LocalDateTime.now().plusHours(expirationTimeTokenInHours), user,
+          IdentityTokenSigner.Purpose.PASSWORD_RESET);
     } catch (UserNotFoundException e) {
       return false;
     }
 
-    emailService.sendEmail(email, "Reset password", token.getToken().toString());
+    emailOutbox.enqueue(email, "Reset password", token.getToken());
 
     return true;
   }
 
+  /**
+   * Resets the user's password using the provided token and new password.
+   * <p>
+   * With a signed token the password is replaced with a single update, applied only if the principal
+   * version of the user is still the one in the token, so the token can't be used twice. A stored
+   * token is consumed first, then the password of its owner is replaced with a single update.
+   *
+   * @param token    the signed or stored token for password reset verification.
+   * @param password the new password to set for the user.
+   * @return {@code true} if the password was successfully reset, {@code false} otherwise.
+   */
   @Override
-  public final boolean resetPassword(UUID token, String password) throws InvalidPasswordFormatException {
+  public final boolean resetPassword(String token, String password) throws InvalidPasswordFormatException {
     if (!validationService.isValidPassword(password)) {
       throw new InvalidPasswordFormatException();
     }
-    if (!tokenService.verifyToken(token)) {
+
+    Optional<UUID> storedToken = TokenService.storedTokenId(token);
+
+    if (storedToken.isPresent()) {
+      return resetPasswordWithStoredToken(storedToken.get(), password);
+    }
+
+    Optional<IdentityTokenSigner.Claims> claims =
+        tokenService.readSignedToken(token, IdentityTokenSigner.Purpose.PASSWORD_RESET);
+
+    Optional<UUID> userId = claims.flatMap(content -> Uuids.parse(content.userId()));
+
+    if (userId.isEmpty()) {
       return false;
     }
 
-    var optionalUser = tokenService.getUserWithToken(token);
-    var user = optionalUser.get();
-    String encryptPassword = passwordEncoder.encode(password);
+    OptionalLong principalVersion = userRepository.resetPassword(userId.get(), claims.get().principalVersion(),
+        passwordEncoder.encode(password));
+
+    if (principalVersion.isEmpty()) {
+      return false;
+    }
+
+    invalidationBus.publish(UserChangedEvent.updated(userId.get().toString(), principalVersion.getAsLong()));
+
+    return true;
+  }
+
+  private boolean resetPasswordWithStoredToken(UUID token, String password) {
+    Optional<UUID> owner = tokenService.consumeToken(token);
+
+    if (owner.isEmpty()) {
+      return false;
+    }
+
+    OptionalLong principalVersion = userRepository.resetPassword(owner.get(), passwordEncoder.encode(password));
+
+    if (principalVersion.isEmpty()) {
+      return false;
+    }
 
-    user.setPassword(encryptPassword);
-    userRepository.save(userMapper.mapFrom(user));
+    invalidationBus.publish(UserChangedEvent.updated(owner.get().toString(), principalVersion.getAsLong()));
 
     return true;
   }
@@ -9,11 +9,20 @@ import com.jala.university.api.application.service.TokenService;
 import com.jala.university.api.domain.entity.IdentityValidationToken;
 import com.jala.university.api.domain.entity.User;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
-import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.domain.repository.IdentityValidationTokenDao;
+import com.jala.university.api.domain.repository.IdentityValidationTokenRepository;
+import com.jala.university.api.domain.repository.UserDao;
+import com.jala.university.api.infrastructure.persistence.cache.RegisteredLoginFilter;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.cache.ValidationTokenRegistry;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.security.InvalidParameterException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,78 +31,118 @@ public class TokenServiceImpl implements TokenService {
 
     private IdentityValidationTokenMapper mapper;
     private UserMapper userMapper;
-    private UserRepository repository;
+    private IdentityValidationTokenRepository tokenRepository;
+    private UserDao userDao;
+    private IdentityValidationTokenDao tokenDao;
     private IdentityTokenFactory tokenFactory;
+    private UserCache userCache;
+    private RegisteredLoginFilter registeredLogins;
+    private ValidationTokenRegistry tokenRegistry;
+    private IdentityTokenSigner tokenSigner;
+    private boolean signedTokens;
 
     @Autowired
     public TokenServiceImpl(IdentityValidationTokenMapper mapper,
                             UserMapper userMapper,
-                            UserRepository repository,
-                            IdentityTokenFactory tokenFactory) {
+                            IdentityValidationTokenRepository tokenRepository,
+                            UserDao userDao,
+                            IdentityValidationTokenDao tokenDao,
+                            IdentityTokenFactory tokenFactory,
+                            UserCache userCache,
+                            RegisteredLoginFilter registeredLogins,
+                            ValidationTokenRegistry tokenRegistry,
+                            IdentityTokenSigner tokenSigner,
+                            @Value("${security.identity-tokens.signed:true}") boolean signedTokens) {
         this.mapper = mapper;
         this.userMapper = userMapper;
-        this.repository = repository;
+        this.tokenRepository = tokenRepository;
+        this.userDao = userDao;
+        this.tokenDao = tokenDao;
         this.tokenFactory = tokenFactory;
+        this.userCache = userCache;
+        this.registeredLogins = registeredLogins;
+        this.tokenRegistry = tokenRegistry;
+        this.tokenSigner = tokenSigner;
+        this.signedTokens = signedTokens;
     }
 
     @Override
-    public final IdentityValidationTokenDto createToken(LocalDateTime expiration, UserDto user)
-        throws InvalidParameterException, UserNotFoundException {
+    public final IdentityValidationTokenDto createToken(LocalDateTime expiration, UserDto user,
+        IdentityTokenSigner.Purpose purpose) throws InvalidParameterException, UserNotFoundException {
         if (expiration.isBefore(LocalDateTime.now()) || expiration.isEqual(LocalDateTime.now())) {
             throw new InvalidParameterException("Expiration time must be after now");
         }
 
-        Optional<User> optionalUser = Optional.ofNullable(repository.findByLogin(user.getEmail()));
+        Optional<User> optionalUser = userCache.findByLogin(user.getEmail(), login -> registeredLogins
+            .lookup(login, userDao::findAccountByLogin)
+            .orElse(null));
 
         if (optionalUser.isEmpty()) {
           throw new UserNotFoundException("User not found");
         }
 
-        User userOnDb = optionalUser.get();
+        User owner = optionalUser.get();
 
-        IdentityValidationToken token = tokenFactory.create(expiration);
+        if (signedTokens) {
+            Instant expiresAt = expiration.atZone(ZoneId.systemDefault()).toInstant();
+            String token = tokenSigner.sign(
+                new IdentityTokenSigner.Claims(owner.getId().toString(), purpose, expiresAt, owner.getPrincipalVersion()));
 
-        userOnDb.getTokens().add(token);
-        repository.save(userOnDb);
+            return IdentityValidationTokenDto.builder()
+                .token(token)
+                .expiration(expiration)
+                .build();
+        }
+
+        IdentityValidationToken token = tokenFactory.create(expiration, owner.getId());
+        tokenRepository.insert(token);
+        tokenRegistry.register(token);
 
         return mapper.mapTo(token);
     }
 
+    @Override
+    public final Optional<IdentityTokenSigner.Claims> readSignedToken(String token,
+        IdentityTokenSigner.Purpose purpose) {
+        return tokenSigner.verify(token, purpose, Instant.now());
+    }
+
     @Override
     public final boolean verifyToken(UUID token) {
+        return consumeToken(token).isPresent();
+    }
 
-      Optional<User> userOptional = repository.findUserWithToken(token);
+    @Override
+    public final Optional<UUID> consumeToken(UUID token) {
+        Optional<IdentityValidationToken> known = tokenRegistry.find(token);
 
-        if (userOptional.isEmpty()) {
-            return false;
+        if (known.isPresent() && known.get().isVerified()) {
+            return Optional.empty();
         }
 
-        IdentityValidationToken tokenEntity = userOptional.get()
-            .getTokens()
-            .stream()
-            .filter(identityValidationToken -> identityValidationToken.getId().equals(token))
-            .findFirst().get();
+        Optional<IdentityValidationToken> consumed = tokenDao.consume(token, LocalDateTime.now());
 
-        if (tokenEntity.isVerified() || tokenEntity.getExpiration().isBefore(LocalDateTime.now())) {
-            return false;
+        if (consumed.isPresent()) {
+            tokenRegistry.markVerified(consumed.get());
+        } else {
+            tokenRegistry.markUnusable(token);
         }
 
-        tokenEntity.setVerified(true);
-        repository.save(userOptional.get());
-
-        return true;
+        return consumed.map(IdentityValidationToken::getUserId);
     }
 
     @Override
     public final Optional<UserDto> getUserWithToken(UUID token) {
-        Optional<User> optionalUser = repository.findUserWithToken(token);
-
-        if (optionalUser.isPresent()) {
-            User user = optionalUser.get();
+        Optional<IdentityValidationToken> known = tokenRegistry.find(token);
 
-            return Optional.of(userMapper.mapTo(user));
+        if (known.isEmpty()) {
+            known = tokenDao.findById(token);
+            known.ifPresent(tokenRegistry::register);
         }
 
-        return Optional.empty();
+        return known
+            .flatMap(tokenEntity -> userCache.findById(tokenEntity.getUserId().toString(),
+                userId -> userDao.findAccountById(tokenEntity.getUserId())))
+            .map(userMapper::mapTo);
     }
 }
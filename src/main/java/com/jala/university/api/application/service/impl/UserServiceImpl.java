@@ -4,7 +4,7 @@ import com.jala.university.api.application.dto.IdentityValidationTokenDto;
 import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.application.mapper.impl.IdentityValidationTokenMapper;
 import com.jala.university.api.application.mapper.impl.UserMapper;
-import com.jala.university.api.application.service.EmailService;
+import com.jala.university.api.application.service.EmailOutbox;
 import com.jala.university.api.application.service.TokenService;
 import com.jala.university.api.application.service.UserService;
 import com.jala.university.api.application.service.ValidationService;
@@ -13,40 +13,67 @@ import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatExcept
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
 import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
+import com.jala.university.api.domain.repository.UserChanges;
+import com.jala.university.api.domain.repository.UserDao;
 import com.jala.university.api.domain.repository.UserRepository;
-import jakarta.mail.MessagingException;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
+import com.jala.university.api.infrastructure.persistence.security.RequestUserContext;
+import com.jala.university.api.infrastructure.persistence.utils.OptimisticRetry;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserDao userDao;
     private final UserMapper userMapper;
     private final IdentityValidationTokenMapper tokenMapper;
     private final PasswordEncoder passwordEncoder;
     private final ValidationService validationService;
     private final TokenService tokenService;
-    private final EmailService emailService;
+    private final EmailOutbox emailOutbox;
+    private final UserInvalidationBus invalidationBus;
+    private final RequestUserContext requestUserContext;
+    private final UserCache userCache;
+    private final OptimisticRetry optimisticRetry;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
+        UserDao userDao,
         PasswordEncoder passwordEncoder,
         ValidationService validationService,
         TokenService tokenService,
-        EmailService emailService) {
+        EmailOutbox emailOutbox,
+        UserInvalidationBus invalidationBus,
+        RequestUserContext requestUserContext,
+        UserCache userCache,
+        OptimisticRetry optimisticRetry) {
         this.userRepository = userRepository;
+        this.userDao = userDao;
         this.userMapper = new UserMapper();
         this.tokenMapper = new IdentityValidationTokenMapper();
         this.passwordEncoder = passwordEncoder;
         this.validationService = validationService;
         this.tokenService = tokenService;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.invalidationBus = invalidationBus;
+        this.requestUserContext = requestUserContext;
+        this.userCache = userCache;
+        this.optimisticRetry = optimisticRetry;
     }
 
     /**
@@ -58,63 +85,96 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public UserDto getUserById(String id) throws UserNotFoundException {
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> user = findUser(id);
         if (user.isEmpty()) {
             throw new UserNotFoundException();
         }
         return userMapper.mapTo(user.get());
     }
 
+    /**
+     * Searches a user by its ID, reusing the user already resolved on the current request or cached.
+     * The user is read without its password hash.
+     *
+     * @param id the UUID of the user to search.
+     * @return an optional with the user, empty if it doesn't exist.
+     */
+    private Optional<User> findUser(String id) {
+        Optional<User> user = requestUserContext.find(id);
+
+        if (user.isEmpty()) {
+            user = userCache.findById(id, userId -> Uuids.parse(userId).flatMap(userDao::findAccountById));
+            user.ifPresent(requestUserContext::store);
+        }
+
+        return user;
+    }
+
     /**
      * Creates a new user based on the provided UserDto.
+     * <p>
+     * The user is inserted right away, the unique index on the login rejects an email already
+     * registered, even by a concurrent registration. The validation token email is then recorded in
+     * the outbox, it is sent in the background.
      *
      * @param user the UserDto containing the details of the user to create.
      * @return the created UserDto representing the new user.
      * @throws InvalidPasswordFormatException if the password format is invalid.
      * @throws InvalidEmailFormatException    if the email format is invalid.
      * @throws UserAlreadyRegisteredException if the user is already registered.
-     * @throws MessagingException             if there is an issue sending the validation token email.
      */
     @Override
     public UserDto createUser(UserDto user)
-        throws InvalidPasswordFormatException, InvalidEmailFormatException, UserAlreadyRegisteredException, MessagingException {
+        throws InvalidPasswordFormatException, InvalidEmailFormatException, UserAlreadyRegisteredException {
         validationService.isValidEmailAndPassword(user.getEmail(), user.getPassword());
 
-        if (userRepository.findByLogin(user.getEmail()) != null) {
-            throw new UserAlreadyRegisteredException("The user is already registered");
-        }
-
         User userToBeCreated = userMapper.mapFrom(user);
-        userToBeCreated.setId(UUID.randomUUID().toString());
+        userToBeCreated.setId(Uuids.timeOrdered());
         userToBeCreated.setPassword(passwordEncoder.encode(user.getPassword()));
         userToBeCreated.setValidated(false);
-        User newUser = userRepository.save(userToBeCreated);
+        User newUser;
+
+        try {
+            newUser = userRepository.insert(userToBeCreated);
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyRegisteredException("The user is already registered");
+        }
+
+        invalidationBus.publish(UserChangedEvent.created(newUser.getId().toString(), newUser.getLogin()));
         sendTokenEmailToUser(newUser);
 
         return userMapper.mapTo(newUser);
     }
 
     /**
-     * Sends a validation token email to the user.
+     * Records a validation token email to the user in the outbox. A user deleted before the token
+     * was created gets no email; that is logged.
      *
      * @param user the user containing the user information to send the email to.
-     * @throws MessagingException if there is an issue sending the email.
      */
-    private void sendTokenEmailToUser(User user) throws MessagingException {
+    private void sendTokenEmailToUser(User user) {
 
         try {
             IdentityValidationTokenDto token = tokenService
-                .createToken(LocalDateTime.now().plusHours(1), userMapper.mapTo(user));
+                .createToken(LocalDateTime.now().plusHours(1), userMapper.mapTo(user),
+                    IdentityTokenSigner.Purpose.EMAIL_VALIDATION);
 
-            emailService.sendEmail(user.getLogin(), "Verify your identity",
+            emailOutbox.enqueue(user.getLogin(), "Verify your identity",
                 token.getToken());
-        } catch (UserNotFoundException ignored) {
-
+        } catch (UserNotFoundException e) {
+            log.warn("User {} was deleted before its validation email was recorded", user.getId());
         }
     }
 
     /**
      * Updates an existing user with the details provided in the UserDto.
+     * <p>
+     * Only the fields present in the UserDto are set, in a single update that leaves the other fields
+     * untouched. A new email clears the validated flag, and a validation token email to it is
+     * recorded in the outbox once the update is applied.
+     * <p>
+     * The changes are computed from the user resolved on the request and applied only if the user
+     * wasn't changed since; otherwise the user is read again and the update retried.
      *
      * @param id      the UUID of the user to update.
      * @param userDto the UserDto containing the updated user details.
@@ -122,12 +182,13 @@ public class UserServiceImpl implements UserService {
      * @throws UserNotFoundException          if the user is not found.
      * @throws InvalidEmailFormatException    if the email is invalid.
      * @throws InvalidPasswordFormatException if the password is invalid.
-     * @throws MessagingException             if there is an issue sending the validation token email.
+     * @throws UserAlreadyRegisteredException if the new email is registered by another user.
      */
     @Override
     public UserDto updateUser(String id, UserDto userDto)
-        throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException, MessagingException {
-        Optional<User> optionalUser = userRepository.findById(id);
+        throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException,
+        UserAlreadyRegisteredException {
+        Optional<User> optionalUser = findUser(id);
 
         if (optionalUser.isEmpty()) {
             throw new UserNotFoundException();
@@ -141,65 +202,105 @@ public class UserServiceImpl implements UserService {
             throw  new InvalidPasswordFormatException();
         }
 
-        if (userDto.getEmail() != null && !Objects.equals(userDto.getEmail(), optionalUser.get().getLogin())) {
-            userDto.setId(optionalUser.get().getId());
+        String password = userDto.getPassword() != null ? encryptPassword(userDto.getPassword()) : null;
+        AppliedUpdate update;
+
+        try {
+            update = optimisticRetry.run(attempt -> {
+                User current = attempt == 0 ? optionalUser.get()
+                    : userDao.findAccountById(optionalUser.get().getId()).orElseThrow(UserNotFoundException::new);
+
+                return applyUpdate(current, userDto, password);
+            });
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyRegisteredException("The email is already registered");
+        }
 
-          User user = optionalUser.get();
-          user.setValidated(false);
+        User user = update.user();
+        invalidationBus.publish(update.emailChanged()
+            ? UserChangedEvent.updated(id, user.getLogin(), update.previousLogin(), user.getPrincipalVersion())
+            : UserChangedEvent.updated(id, user.getPrincipalVersion()));
 
-          userRepository.save(user);
-            sendTokenEmailToUser(userMapper.mapFrom(userDto));
+        if (update.emailChanged()) {
+            sendTokenEmailToUser(user);
         }
 
-        return userMapper.mapTo(userRepository.save(mergeDtoIntoEntity(userDto, optionalUser.get())));
+        return userMapper.mapTo(user);
     }
 
     /**
-     * Merge the data in userDto into user.
-     * <p>
-     * If a field on userDto is not null, it will be putted into user.
-     *
-     * @param userDto data to be merged.
-     * @param user user to be updated.
-     * @return user with the merged data.
+     * User written by an update, whether its email changed and the email it had before.
      */
-    private User mergeDtoIntoEntity(UserDto userDto, User user) {
-        if (userDto.getEmail() != null) {
-            user.setLogin(userDto.getEmail());
-        }
-
-        if (userDto.getPassword() != null) {
-            user.setPassword(encryptPassword(userDto.getPassword()));
-        }
-
-        if (userDto.getId() != null) {
-            user.setId(userDto.getId());
-        }
-
-        if (userDto.getName() != null) {
-            user.setName(userDto.getName());
-        }
+    private record AppliedUpdate(User user, boolean emailChanged, String previousLogin) {
+    }
 
-        return user;
+    /**
+     * Applies the changes of a UserDto, only if the user is still at the version it was read.
+     *
+     * @param current  the user the changes are computed from.
+     * @param userDto  the changes.
+     * @param password the new password hash, null to keep the current one.
+     * @return the written user, empty if the user was changed or deleted since it was read.
+     */
+    private Optional<AppliedUpdate> applyUpdate(User current, UserDto userDto, String password) {
+        boolean emailChanged = userDto.getEmail() != null
+            && !Objects.equals(userDto.getEmail(), current.getLogin());
+        UserChanges changes = new UserChanges(
+            userDto.getName(),
+            emailChanged ? userDto.getEmail() : null,
+            password,
+            emailChanged ? Boolean.FALSE : null);
+
+        return userRepository.updateAccount(current.getId(), current.getPrincipalVersion(), changes)
+            .map(user -> new AppliedUpdate(user, emailChanged, current.getLogin()));
     }
 
     /**
      * Validates a user's email based on a provided token.
+     * <p>
+     * A signed token is verified in memory and the user is marked as validated with a single update,
+     * applied only if its principal version is still the one in the token. A stored token is
+     * consumed first, then its owner is marked as validated.
      *
-     * @param token the UUID token used to validate the user's email.
+     * @param token the signed or stored token used to validate the user's email.
      * @return true if the user email is successfully validated, false otherwise.
      */
     @Override
-    public boolean validateUserEmail(UUID token) {
-        if (tokenService.verifyToken(token)) {
-            UserDto userDto = tokenService.getUserWithToken(token).get();
-            User user = userRepository.findById(userDto.getId()).get();
-            user.setValidated(true);
-            userRepository.save(user);
-
-            return true;
+    public boolean validateUserEmail(String token) {
+        Optional<UUID> storedToken = TokenService.storedTokenId(token);
+        UUID userId;
+        OptionalLong principalVersion;
+
+        if (storedToken.isPresent()) {
+            Optional<UUID> owner = tokenService.consumeToken(storedToken.get());
+
+            if (owner.isEmpty()) {
+                return false;
+            }
+
+            userId = owner.get();
+            principalVersion = userRepository.markValidated(userId);
+        } else {
+            Optional<IdentityTokenSigner.Claims> claims =
+                tokenService.readSignedToken(token, IdentityTokenSigner.Purpose.EMAIL_VALIDATION);
+
+            Optional<UUID> owner = claims.flatMap(content -> Uuids.parse(content.userId()));
+
+            if (owner.isEmpty()) {
+                return false;
+            }
+
+            userId = owner.get();
+            principalVersion = userRepository.markValidated(userId, claims.get().principalVersion());
+        }
+
+        if (principalVersion.isEmpty()) {
+            return false;
         }
-        return false;
+
+        invalidationBus.publish(UserChangedEvent.updated(userId.toString(), principalVersion.getAsLong()));
+
+        return true;
     }
 
     /**
@@ -221,12 +322,13 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public String deleteUser(String id) throws UserNotFoundException {
-        Optional<User> optionalUser = userRepository.findById(id);
+        Optional<User> optionalUser = findUser(id);
         if (optionalUser.isEmpty()) {
             throw new UserNotFoundException("User with ID " + id + " not found");
         }
 
-        userRepository.deleteById(id);
+        userRepository.deleteById(optionalUser.get().getId());
+        invalidationBus.publish(UserChangedEvent.deleted(id, optionalUser.get().getLogin()));
         return "User deleted";
     }
 
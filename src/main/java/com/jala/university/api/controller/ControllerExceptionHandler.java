@@ -1,7 +1,10 @@
 package com.jala.university.api.controller;
 
+import com.jala.university.api.domain.exceptions.ConcurrentUpdateException;
+import com.jala.university.api.domain.exceptions.ServiceOverloadedException;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -45,4 +48,16 @@ public final class ControllerExceptionHandler {
   public ResponseEntity<String> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
     return new ResponseEntity<>("Type mismatch: " + ex.getMessage(), HttpStatus.BAD_REQUEST);
   }
+
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<String> handleServiceOverloaded(ServiceOverloadedException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(ex.getMessage());
+  }
+
+  @ExceptionHandler(ConcurrentUpdateException.class)
+  public ResponseEntity<String> handleConcurrentUpdate(ConcurrentUpdateException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+  }
 }
@@ -6,14 +6,11 @@ import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatExc
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import jakarta.mail.MessagingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
-
 @RestController
 @RequestMapping("/account/password-reset")
 public class PasswordResetController {
@@ -30,15 +27,12 @@ public class PasswordResetController {
       description = "Sends a password reset email to the specified email address.")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "202", description = "If the email exists, a password recovery link has been sent."),
-      @ApiResponse(responseCode = "400", description = "Invalid email format."),
-      @ApiResponse(responseCode = "500", description = "An error occurred while processing your request.")
+      @ApiResponse(responseCode = "400", description = "Invalid email format.")
   })
   @PutMapping
   public final ResponseEntity<String> requestPasswordReset(@RequestParam("email") String email) {
     try {
       resetPasswordService.sendPasswordResetEmail(email);
-    } catch (MessagingException e) {
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while processing your request.");
     } catch (InvalidEmailFormatException e) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid email format.");
     }
@@ -53,7 +47,7 @@ public class PasswordResetController {
       @ApiResponse(responseCode = "400", description = "Invalid password format.")
   })
   @PatchMapping
-  public final ResponseEntity<String> updatePassword(@RequestParam("token") UUID token, @RequestParam("password") String password) {
+  public final ResponseEntity<String> updatePassword(@RequestParam("token") String token, @RequestParam("password") String password) {
     try {
       if (!resetPasswordService.resetPassword(token, password)) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid or expired token");
@@ -11,16 +11,17 @@ import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredExcep
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
 import com.jala.university.api.domain.exceptions.authentication.UserNotValidatedException;
 import com.jala.university.api.infrastructure.persistence.security.JwtTokenProvider;
+import com.jala.university.api.infrastructure.persistence.security.LoginThrottle;
 import com.jala.university.api.infrastructure.persistence.utils.CreateGroup;
 import com.jala.university.api.infrastructure.persistence.utils.UpdateGroup;
-import jakarta.mail.MessagingException;
-import java.util.UUID;
+import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -38,13 +39,15 @@ public final class UserController {
     private final AuthServices authService;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserService userService;
+    private final LoginThrottle loginThrottle;
 
     @Autowired
     public UserController(AuthServices authService, JwtTokenProvider jwtTokenProvider,
-            UserService userService) {
+            UserService userService, LoginThrottle loginThrottle) {
         this.authService = authService;
         this.jwtTokenProvider = jwtTokenProvider;
         this.userService = userService;
+        this.loginThrottle = loginThrottle;
     }
 
     @Operation(summary = "Create a new user")
@@ -54,8 +57,6 @@ public final class UserController {
         @ApiResponse(responseCode = "400", description = "Invalid format or empty email or password",
               content = @Content(mediaType = "application/json")),
         @ApiResponse(responseCode = "409", description = "User already registered",
-              content = @Content(mediaType = "application/json")),
-        @ApiResponse(responseCode = "500", description = "Error at sending email",
               content = @Content(mediaType = "application/json"))
     })
     @PostMapping("/register")
@@ -69,8 +70,6 @@ public final class UserController {
           return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (UserAlreadyRegisteredException ex) {
           return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
-        } catch (MessagingException me) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
@@ -99,7 +98,7 @@ public final class UserController {
                     content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "400", description = "Invalid email or password format",
                     content = @Content(mediaType = "application/json")),
-            @ApiResponse(responseCode = "500", description = "Error at sending email",
+            @ApiResponse(responseCode = "409", description = "Email already registered",
                     content = @Content(mediaType = "application/json")),
     })
 
@@ -114,8 +113,8 @@ public final class UserController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (InvalidEmailFormatException | InvalidPasswordFormatException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
-        } catch (MessagingException e) {
-            return  ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        } catch (UserAlreadyRegisteredException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
     }
 
@@ -143,19 +142,31 @@ public final class UserController {
             @ApiResponse(responseCode = "403", description = "Invalid Credentials",
                     content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "403", description = "User not validated",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "429", description = "Too many login attempts",
                     content = @Content(mediaType = "application/json"))
     })
     @PostMapping("/login")
-    public ResponseEntity<String> loginUser(@RequestBody UserCredentials credentials) {
+    public ResponseEntity<String> loginUser(@RequestBody UserCredentials credentials, HttpServletRequest request) {
+        long retryAfterMillis = loginThrottle.tryAcquire(credentials.getLogin(), request.getRemoteAddr());
+
+        if (retryAfterMillis > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                    .body("Too many login attempts, try again later");
+        }
 
         try {
             UserDto user = authService.login(credentials);
-            String token = jwtTokenProvider.generateToken(user.getId());
+            String token = jwtTokenProvider.generateToken(user);
+            loginThrottle.recordSuccess(credentials.getLogin());
 
             return ResponseEntity.status(HttpStatus.OK)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body("{\"token\": \"" + token + "\"}");
         } catch (InvalidAuthenticationCredentialsException e) {
+            loginThrottle.recordFailure(credentials.getLogin(), request.getRemoteAddr());
+
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body("Invalid Credentials: " + e.getMessage());
@@ -174,7 +185,7 @@ public final class UserController {
                     content = @Content(mediaType = "application/json"))
     })
     @PatchMapping("/email-validation")
-    public ResponseEntity<String> validateEmail(@RequestParam UUID token) {
+    public ResponseEntity<String> validateEmail(@RequestParam String token) {
         if (userService.validateUserEmail(token)) {
             return ResponseEntity.ok("The user was validated");
         }
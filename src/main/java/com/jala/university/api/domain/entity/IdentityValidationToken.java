@@ -8,21 +8,35 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
-@Document
+@Document(collection = "identity_validation_tokens")
+@CompoundIndex(name = "verified_tokens", def = "{ 'vf': 1 }", partialFilter = "{ 'vf': true }")
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class IdentityValidationToken {
+
+  public static final String USER_ID_FIELD = "u";
+  public static final String EXPIRATION_FIELD = "exp";
+  public static final String VERIFIED_FIELD = "vf";
+
   @Id
   private UUID id;
 
+  @Field(USER_ID_FIELD)
+  @Indexed
+  private UUID userId;
+
+  @Field(EXPIRATION_FIELD)
   @Indexed(expireAfterSeconds = 0)
   private LocalDateTime expiration;
 
+  @Field(VERIFIED_FIELD)
   private boolean verified = false;
 }
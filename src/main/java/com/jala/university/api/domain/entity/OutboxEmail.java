@@ -0,0 +1,77 @@
+package com.jala.university.api.domain.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Email waiting in the outbox to be delivered.
+ * <p>
+ * A pending email is delivered once its next attempt is due; delivered emails are deleted, and an
+ * email that failed every attempt stays in the collection as a dead letter until it expires. The
+ * body of a dead letter is cleared, it holds a token that must not outlive the delivery. Only the
+ * pending emails are indexed for the polls, so the dead letters don't grow the index the workers use.
+ */
+@Document(collection = "email_outbox")
+@CompoundIndex(name = "pending_emails", def = "{ 'na': 1 }", partialFilter = "{ 'st': 'PENDING' }")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEmail {
+
+  public static final String TO_FIELD = "t";
+  public static final String SUBJECT_FIELD = "s";
+  public static final String BODY_FIELD = "b";
+  public static final String STATUS_FIELD = "st";
+  public static final String ATTEMPTS_FIELD = "a";
+  public static final String NEXT_ATTEMPT_FIELD = "na";
+  public static final String LAST_ERROR_FIELD = "e";
+  public static final String EXPIRATION_FIELD = "x";
+
+  /**
+   * Delivery state of an email.
+   */
+  public enum Status {
+    PENDING,
+    DEAD
+  }
+
+  @Id
+  private UUID id;
+
+  @Field(TO_FIELD)
+  private String to;
+
+  @Field(SUBJECT_FIELD)
+  private String subject;
+
+  @Field(BODY_FIELD)
+  private String body;
+
+  @Field(STATUS_FIELD)
+  private Status status;
+
+  @Field(ATTEMPTS_FIELD)
+  private int attempts;
+
+  @Field(NEXT_ATTEMPT_FIELD)
+  private LocalDateTime nextAttemptAt;
+
+  @Field(LAST_ERROR_FIELD)
+  private String lastError;
+
+  @Field(EXPIRATION_FIELD)
+  @Indexed(expireAfterSeconds = 0)
+  private LocalDateTime expiration;
+}
@@ -1,11 +1,19 @@
 package com.jala.university.api.domain.entity;
 
 import jakarta.persistence.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
+/**
+ * User stored in the users collection.
+ * <p>
+ * The ID is a time-ordered UUID stored as BSON binary; outside the database it is used in its string
+ * form. Fields are persisted under short names, repeated in every document and every index key.
+ */
 @Document (collection = "users")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,16 +21,51 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Setter
 @Builder
 public class User {
+
+  public static final String NAME_FIELD = "n";
+  public static final String LOGIN_FIELD = "l";
+  public static final String LOGIN_KEY_FIELD = "lk";
+  public static final String PASSWORD_FIELD = "pw";
+  public static final String VALIDATED_FIELD = "vd";
+  public static final String PRINCIPAL_VERSION_FIELD = "pv";
+
   @Id
-  private String id;
+  private UUID id;
 
+  @Field(NAME_FIELD)
   private String name;
 
+  @Field(LOGIN_FIELD)
   private String login;
 
+  /**
+   * Login trimmed and lowercased, maintained on every write of the login. Logins are looked up and
+   * kept unique through it, so logins that only differ by case belong to the same user.
+   */
+  @Field(LOGIN_KEY_FIELD)
+  @Indexed(unique = true, sparse = true)
+  private String loginKey;
+
+  @Field(PASSWORD_FIELD)
   private String password;
 
+  @Field(VALIDATED_FIELD)
   private boolean validated;
 
-  private List<IdentityValidationToken> tokens = new ArrayList<>();
+  /**
+   * Version of the user, incremented by every write. Writes computed from a read only apply if the
+   * version is still the one read, and it revokes the tokens issued for an older version.
+   */
+  @Field(PRINCIPAL_VERSION_FIELD)
+  private long principalVersion;
+
+  /**
+   * Normalizes a login into the key it is looked up by.
+   *
+   * @param login the login as entered
+   * @return the login trimmed and lowercased, null if the login is null
+   */
+  public static String loginKeyOf(String login) {
+    return login != null ? login.trim().toLowerCase(Locale.ROOT) : null;
+  }
 }
@@ -0,0 +1,11 @@
+package com.jala.university.api.domain.exceptions;
+
+/**
+ * This exception is thrown when a conditional write kept conflicting with concurrent writes on the
+ * same document after every retry, so the client can send the request again.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+  public ConcurrentUpdateException(String message) {
+    super(message);
+  }
+}
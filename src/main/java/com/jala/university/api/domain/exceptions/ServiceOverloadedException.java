@@ -0,0 +1,11 @@
+package com.jala.university.api.domain.exceptions;
+
+/**
+ * This exception is thrown when a bounded resource is saturated and the work is rejected instead of
+ * being queued, so the client can retry later.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+  public ServiceOverloadedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,67 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.jala.university.api.infrastructure.persistence.codec.IdentityValidationTokenCodec;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and consumes the validation tokens on the verification path.
+ * <p>
+ * The documents are decoded by {@link IdentityValidationTokenCodec} straight into tokens, without
+ * going through the mapping converter; the codec is registered with the driver.
+ */
+@Repository
+public class IdentityValidationTokenDao {
+
+  private static final FindOneAndUpdateOptions RETURN_UPDATED =
+      new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+
+  private final MongoCollection<IdentityValidationToken> tokens;
+
+  @Autowired
+  public IdentityValidationTokenDao(MongoTemplate mongoTemplate) {
+    this.tokens = mongoTemplate.getCollection(mongoTemplate.getCollectionName(IdentityValidationToken.class))
+        .withDocumentClass(IdentityValidationToken.class);
+  }
+
+  /**
+   * Searches a token by its ID.
+   *
+   * @param id the ID of the token
+   * @return the token, empty if it doesn't exist
+   */
+  public Optional<IdentityValidationToken> findById(UUID id) {
+    return Optional.ofNullable(tokens.find(Filters.eq("_id", id)).first());
+  }
+
+  /**
+   * Marks a token as verified in a single conditional update, only if it wasn't verified yet and
+   * hasn't expired. Of several concurrent calls on the same token only one gets it.
+   *
+   * @param id  the ID of the token
+   * @param now the current time, the token must expire after it
+   * @return the verified token, empty if it doesn't exist, was already verified or has expired
+   */
+  public Optional<IdentityValidationToken> consume(UUID id, LocalDateTime now) {
+    return Optional.ofNullable(tokens.findOneAndUpdate(
+        Filters.and(
+            Filters.eq("_id", id),
+            Filters.eq(IdentityValidationToken.VERIFIED_FIELD, false),
+            Filters.gt(IdentityValidationToken.EXPIRATION_FIELD,
+                Date.from(now.atZone(ZoneId.systemDefault()).toInstant()))),
+        Updates.set(IdentityValidationToken.VERIFIED_FIELD, true),
+        RETURN_UPDATED));
+  }
+}
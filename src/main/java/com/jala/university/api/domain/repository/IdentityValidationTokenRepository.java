@@ -0,0 +1,9 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import java.util.UUID;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdentityValidationTokenRepository extends MongoRepository<IdentityValidationToken, UUID>,
+    IdentityValidationTokenRepositoryCustom {
+}
@@ -0,0 +1,12 @@
+package com.jala.university.api.domain.repository;
+
+public interface IdentityValidationTokenRepositoryCustom {
+
+  /**
+   * Deletes a batch of verified tokens, found through the partial index on verified tokens.
+   *
+   * @param batchSize maximum number of tokens deleted
+   * @return the number of deleted tokens
+   */
+  long deleteVerified(int batchSize);
+}
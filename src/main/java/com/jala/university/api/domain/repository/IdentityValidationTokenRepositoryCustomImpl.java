@@ -0,0 +1,37 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class IdentityValidationTokenRepositoryCustomImpl implements IdentityValidationTokenRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  @Autowired
+  public IdentityValidationTokenRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public long deleteVerified(int batchSize) {
+    Query query = Query.query(Criteria.where(IdentityValidationToken.VERIFIED_FIELD).is(true)).limit(batchSize);
+    query.fields().include("_id");
+
+    List<Object> ids = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(IdentityValidationToken.class))
+        .stream()
+        .map(token -> token.get("_id"))
+        .toList();
+
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    return mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), IdentityValidationToken.class)
+        .getDeletedCount();
+  }
+}
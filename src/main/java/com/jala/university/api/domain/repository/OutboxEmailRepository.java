@@ -0,0 +1,8 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.OutboxEmail;
+import java.util.UUID;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface OutboxEmailRepository extends MongoRepository<OutboxEmail, UUID>, OutboxEmailRepositoryCustom {
+}
@@ -0,0 +1,77 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.OutboxEmail;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Claims and settles the emails of the outbox.
+ * <p>
+ * The attempts of an email identify its claim: every claim increments them, so the writes below only
+ * apply while the email is still held by the claim with the given attempts, never after another
+ * worker claimed it again.
+ */
+public interface OutboxEmailRepositoryCustom {
+
+  /**
+   * Claims the pending email due the earliest, in a single update: its next attempt is moved to the
+   * end of the lease and its attempts are incremented, so no other worker claims it until the lease
+   * ends.
+   *
+   * @param now        the current time
+   * @param leaseUntil the end of the lease
+   * @return the claimed email, empty if no pending email is due
+   */
+  Optional<OutboxEmail> claimNext(LocalDateTime now, LocalDateTime leaseUntil);
+
+  /**
+   * Renews the lease of a claimed email right before it is sent.
+   *
+   * @param id         the ID of the email
+   * @param attempts   the attempts of the email when it was claimed
+   * @param leaseUntil the new end of the lease
+   * @return whether the email is still held by the claim
+   */
+  boolean renewLease(UUID id, int attempts, LocalDateTime leaseUntil);
+
+  /**
+   * Deletes a claimed email once delivered.
+   *
+   * @param id       the ID of the email
+   * @param attempts the attempts of the email when it was claimed
+   * @return whether the email was still held by the claim
+   */
+  boolean deleteClaimed(UUID id, int attempts);
+
+  /**
+   * Schedules the next attempt of a claimed email after a failed one.
+   *
+   * @param id            the ID of the email
+   * @param attempts      the attempts of the email when it was claimed
+   * @param nextAttemptAt when the email is attempted again
+   * @param error         the error of the failed attempt
+   */
+  void reschedule(UUID id, int attempts, LocalDateTime nextAttemptAt, String error);
+
+  /**
+   * Moves a claimed email to the dead letters, it isn't attempted again. Its body is cleared and it is
+   * deleted once expired.
+   *
+   * @param id         the ID of the email
+   * @param attempts   the attempts of the email when it was claimed
+   * @param error      the error of the last attempt
+   * @param expiration when the dead letter is deleted
+   */
+  void markDead(UUID id, int attempts, String error, LocalDateTime expiration);
+
+  /**
+   * Gives back a claimed email whose attempt didn't start: it is due right away and the claim isn't
+   * counted as an attempt. The claim must not be used afterwards, the next claim has the same attempts.
+   *
+   * @param id       the ID of the email
+   * @param attempts the attempts of the email when it was claimed
+   * @param now      the current time
+   */
+  void release(UUID id, int attempts, LocalDateTime now);
+}
@@ -0,0 +1,74 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.OutboxEmail;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class OutboxEmailRepositoryCustomImpl implements OutboxEmailRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  @Autowired
+  public OutboxEmailRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public Optional<OutboxEmail> claimNext(LocalDateTime now, LocalDateTime leaseUntil) {
+    Query query = Query.query(Criteria.where("status").is(OutboxEmail.Status.PENDING)
+            .and("nextAttemptAt").lte(now))
+        .with(Sort.by("nextAttemptAt"));
+    Update update = Update.update("nextAttemptAt", leaseUntil).inc("attempts", 1);
+
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), OutboxEmail.class));
+  }
+
+  @Override
+  public boolean renewLease(UUID id, int attempts, LocalDateTime leaseUntil) {
+    return mongoTemplate.updateFirst(claimed(id, attempts), Update.update("nextAttemptAt", leaseUntil),
+        OutboxEmail.class).getModifiedCount() == 1;
+  }
+
+  @Override
+  public boolean deleteClaimed(UUID id, int attempts) {
+    return mongoTemplate.remove(claimed(id, attempts), OutboxEmail.class).getDeletedCount() == 1;
+  }
+
+  @Override
+  public void reschedule(UUID id, int attempts, LocalDateTime nextAttemptAt, String error) {
+    mongoTemplate.updateFirst(claimed(id, attempts),
+        Update.update("nextAttemptAt", nextAttemptAt).set("lastError", error), OutboxEmail.class);
+  }
+
+  @Override
+  public void markDead(UUID id, int attempts, String error, LocalDateTime expiration) {
+    Update update = Update.update("status", OutboxEmail.Status.DEAD)
+        .set("lastError", error)
+        .set("expiration", expiration)
+        .unset("nextAttemptAt")
+        .unset("body");
+
+    mongoTemplate.updateFirst(claimed(id, attempts), update, OutboxEmail.class);
+  }
+
+  @Override
+  public void release(UUID id, int attempts, LocalDateTime now) {
+    mongoTemplate.updateFirst(claimed(id, attempts), Update.update("nextAttemptAt", now).inc("attempts", -1),
+        OutboxEmail.class);
+  }
+
+  private static Query claimed(UUID id, int attempts) {
+    return Query.query(Criteria.where("_id").is(id)
+        .and("status").is(OutboxEmail.Status.PENDING)
+        .and("attempts").is(attempts));
+  }
+}
@@ -0,0 +1,12 @@
+package com.jala.university.api.domain.repository;
+
+/**
+ * Fields of a user changed by a partial update. A null field is left as it is.
+ *
+ * @param name      the new name
+ * @param login     the new login
+ * @param password  the new password hash
+ * @param validated the new validated flag
+ */
+public record UserChanges(String name, String login, String password, Boolean validated) {
+}
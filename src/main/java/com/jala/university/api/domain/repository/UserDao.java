@@ -0,0 +1,82 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.codec.UserCodec;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import java.util.Optional;
+import java.util.UUID;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the users on the hot paths: the user resolved for every authenticated request and the
+ * users searched by login on login, registration and password reset.
+ * <p>
+ * Logins are matched through their login key, so a login matches whatever its case and surrounding
+ * spaces with a single lookup on the unique index of the key.
+ * <p>
+ * The documents are decoded by {@link UserCodec} straight into users, without going through the
+ * mapping converter; the codec is registered with the driver.
+ */
+@Repository
+public class UserDao {
+
+  /**
+   * Fields read when the credentials of a user aren't needed: every field but the password hash.
+   */
+  static final Bson ACCOUNT_FIELDS = Projections.include(User.NAME_FIELD, User.LOGIN_FIELD,
+      User.VALIDATED_FIELD, User.PRINCIPAL_VERSION_FIELD);
+
+  /**
+   * Fields read to authenticate a user.
+   */
+  static final Bson CREDENTIALS_FIELDS = Projections.include(User.NAME_FIELD, User.LOGIN_FIELD,
+      User.PASSWORD_FIELD, User.VALIDATED_FIELD, User.PRINCIPAL_VERSION_FIELD);
+
+  private final MongoCollection<User> users;
+
+  @Autowired
+  public UserDao(MongoTemplate mongoTemplate) {
+    this.users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+        .withDocumentClass(User.class);
+  }
+
+  /**
+   * Searches a user by its ID, without its password hash.
+   *
+   * @param id the ID of the user
+   * @return the user without its password, empty if it doesn't exist
+   */
+  public Optional<User> findAccountById(UUID id) {
+    return Optional.ofNullable(users.find(Filters.eq("_id", id)).projection(ACCOUNT_FIELDS).first());
+  }
+
+  /**
+   * Searches a user by its login, without its password hash.
+   *
+   * @param login the login of the user, in any case
+   * @return the user without its password, empty if it doesn't exist
+   */
+  public Optional<User> findAccountByLogin(String login) {
+    return Optional.ofNullable(users.find(byLogin(login)).projection(ACCOUNT_FIELDS).first());
+  }
+
+  /**
+   * Searches the credentials of a user by its login. Only the fields needed to authenticate and to
+   * build the token are read.
+   *
+   * @param login the login of the user, in any case
+   * @return the user with its credentials, empty if it doesn't exist
+   */
+  public Optional<User> findCredentialsByLogin(String login) {
+    return Optional.ofNullable(users.find(byLogin(login)).projection(CREDENTIALS_FIELDS).first());
+  }
+
+  private static Bson byLogin(String login) {
+    return Filters.eq(User.LOGIN_KEY_FIELD, User.loginKeyOf(login));
+  }
+}
@@ -0,0 +1,75 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.User;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+public interface UserRepositoryCustom {
+
+  /**
+   * Replaces the password hash of a user, only if it wasn't changed since it was read.
+   *
+   * @param id              the ID of the user
+   * @param currentPassword the password hash read from the user
+   * @param newPassword     the new password hash
+   * @return true if the password was replaced, false otherwise
+   */
+  boolean updatePassword(UUID id, String currentPassword, String newPassword);
+
+  /**
+   * Marks a user as validated and increments its principal version in a single update.
+   *
+   * @param id the ID of the user
+   * @return the principal version of the user after the update, empty if the user doesn't exist
+   */
+  OptionalLong markValidated(UUID id);
+
+  /**
+   * Marks a user as validated and increments its principal version, only if the principal version
+   * is still the expected one.
+   *
+   * @param id                       the ID of the user
+   * @param expectedPrincipalVersion the principal version the user must have
+   * @return the principal version of the user after the update, empty if the user doesn't exist or
+   *     its principal version changed
+   */
+  OptionalLong markValidated(UUID id, long expectedPrincipalVersion);
+
+  /**
+   * Replaces the password hash of a user and increments its principal version, only if the
+   * principal version is still the expected one.
+   *
+   * @param id                       the ID of the user
+   * @param expectedPrincipalVersion the principal version the user must have
+   * @param password                 the new password hash
+   * @return the principal version of the user after the update, empty if the user doesn't exist or
+   *     its principal version changed
+   */
+  OptionalLong resetPassword(UUID id, long expectedPrincipalVersion, String password);
+
+  /**
+   * Replaces the password hash of a user and increments its principal version.
+   *
+   * @param id       the ID of the user
+   * @param password the new password hash
+   * @return the principal version of the user after the update, empty if the user doesn't exist
+   */
+  OptionalLong resetPassword(UUID id, String password);
+
+  /**
+   * Sets the changed fields of a user and increments its principal version in a single update,
+   * leaving every other field untouched. A changed login also sets its login key. The update only
+   * applies if the principal version is still the expected one, the version the changes were
+   * computed from.
+   *
+   * @param id                       the ID of the user
+   * @param expectedPrincipalVersion the principal version the user must have
+   * @param changes                  the fields to set
+   * @return the user after the update without its password hash, empty if the user doesn't exist or
+   *     its principal version changed
+   * @throws org.springframework.dao.DuplicateKeyException if the new login is registered by another
+   *     user
+   */
+  Optional<User> updateAccount(UUID id, long expectedPrincipalVersion, UserChanges changes);
+}
@@ -0,0 +1,98 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.User;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  @Autowired
+  public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public boolean updatePassword(UUID id, String currentPassword, String newPassword) {
+    Query query = Query.query(Criteria.where("_id").is(id).and("password").is(currentPassword));
+
+    return mongoTemplate.updateFirst(query, Update.update("password", newPassword), User.class)
+        .getModifiedCount() == 1;
+  }
+
+  @Override
+  public OptionalLong markValidated(UUID id) {
+    return incrementPrincipalVersion(Query.query(Criteria.where("_id").is(id)), Update.update("validated", true));
+  }
+
+  @Override
+  public OptionalLong markValidated(UUID id, long expectedPrincipalVersion) {
+    Query query = Query.query(Criteria.where("_id").is(id).and("principalVersion").is(expectedPrincipalVersion));
+
+    return incrementPrincipalVersion(query, Update.update("validated", true));
+  }
+
+  @Override
+  public OptionalLong resetPassword(UUID id, long expectedPrincipalVersion, String password) {
+    Query query = Query.query(Criteria.where("_id").is(id).and("principalVersion").is(expectedPrincipalVersion));
+
+    return incrementPrincipalVersion(query, Update.update("password", password));
+  }
+
+  @Override
+  public OptionalLong resetPassword(UUID id, String password) {
+    return incrementPrincipalVersion(Query.query(Criteria.where("_id").is(id)), Update.update("password", password));
+  }
+
+  @Override
+  public Optional<User> updateAccount(UUID id, long expectedPrincipalVersion, UserChanges changes) {
+    Query query = Query.query(Criteria.where("_id").is(id).and("principalVersion").is(expectedPrincipalVersion));
+    query.fields().include("name", "login", "validated", "principalVersion");
+
+    Update update = new Update().inc("principalVersion", 1);
+
+    if (changes.name() != null) {
+      update.set("name", changes.name());
+    }
+
+    if (changes.login() != null) {
+      update.set("login", changes.login());
+      update.set("loginKey", User.loginKeyOf(changes.login()));
+    }
+
+    if (changes.password() != null) {
+      update.set("password", changes.password());
+    }
+
+    if (changes.validated() != null) {
+      update.set("validated", changes.validated());
+    }
+
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), User.class));
+  }
+
+  /**
+   * Applies an update on the first matching user, incrementing its principal version.
+   *
+   * @param query  selects the user
+   * @param update the changes to apply
+   * @return the principal version of the user after the update, empty if no user matched
+   */
+  private OptionalLong incrementPrincipalVersion(Query query, Update update) {
+    query.fields().include("principalVersion");
+
+    User user = mongoTemplate.findAndModify(query, update.inc("principalVersion", 1),
+        FindAndModifyOptions.options().returnNew(true), User.class);
+
+    return user != null ? OptionalLong.of(user.getPrincipalVersion()) : OptionalLong.empty();
+  }
+}
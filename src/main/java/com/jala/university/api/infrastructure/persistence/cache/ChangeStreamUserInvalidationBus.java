@@ -0,0 +1,241 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.User;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spreads the changes made on users to every node by tailing a change stream on the users
+ * collection.
+ * <p>
+ * Published changes are delivered to the local listeners right away; every write, from this node or
+ * another one, also comes back through the change stream and is delivered again. Listeners must
+ * tolerate that: the caches drop local state twice, and the registered logins filter may only count
+ * a login once more, which costs a false positive but never a false negative, since a change from
+ * the stream never removes a login.
+ * <p>
+ * The stream is resumed after the last seen change when the connection fails. When it can't be
+ * resumed, because the change is no longer in the oplog or the resume token is refused, it is
+ * reopened from now and the listeners are told that changes were missed so they drop their state.
+ * Change streams need MongoDB to run as a replica set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "users.invalidation-bus.type", havingValue = "change-stream")
+public class ChangeStreamUserInvalidationBus implements UserInvalidationBus {
+
+  private static final List<String> WATCHED_OPERATIONS = List.of(
+      OperationType.INSERT.getValue(),
+      OperationType.UPDATE.getValue(),
+      OperationType.REPLACE.getValue(),
+      OperationType.DELETE.getValue());
+
+  /**
+   * Server errors meaning the stream can't be resumed: InvalidResumeToken, ChangeStreamFatalError and
+   * ChangeStreamHistoryLost.
+   */
+  private static final Set<Integer> RESUME_FAILURES = Set.of(260, 280, 286);
+
+  private final MongoTemplate mongoTemplate;
+  private final List<UserChangeListener> listeners;
+  private final long retryDelayMillis;
+
+  private volatile boolean running;
+  private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+  private BsonDocument resumeToken;
+  private boolean started;
+  private Thread watcher;
+
+  /**
+   * Builds the bus.
+   *
+   * @param mongoTemplate    template used to open the change stream
+   * @param listeners        listeners notified of every change
+   * @param retryDelayMillis milliseconds to wait before reopening a failed change stream
+   */
+  @Autowired
+  public ChangeStreamUserInvalidationBus(MongoTemplate mongoTemplate, List<UserChangeListener> listeners,
+      @Value("${users.invalidation-bus.retry-delay-millis:1000}") long retryDelayMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.listeners = List.copyOf(listeners);
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  @Override
+  public void publish(UserChangedEvent event) {
+    deliver(event);
+  }
+
+  /**
+   * Starts tailing the change stream.
+   */
+  @PostConstruct
+  public void start() {
+    running = true;
+    watcher = Thread.ofPlatform()
+        .name("users-change-stream")
+        .daemon()
+        .start(this::watch);
+  }
+
+  /**
+   * Stops tailing the change stream.
+   */
+  @PreDestroy
+  public void stop() {
+    running = false;
+
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+
+    if (current != null) {
+      current.close();
+    }
+
+    watcher.interrupt();
+  }
+
+  private void watch() {
+    while (running) {
+      boolean resuming = resumeToken != null;
+      boolean restarting = started && !resuming;
+      started = true;
+
+      try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = open().cursor()) {
+        cursor = current;
+
+        if (restarting) {
+          log.warn("Change stream on the users collection restarted, changes may have been missed");
+          missed();
+        }
+
+        remember(current.getResumeToken());
+
+        while (running) {
+          ChangeStreamDocument<Document> change = current.next();
+          remember(change.getResumeToken());
+          toEvent(change).ifPresent(this::deliver);
+        }
+      } catch (RuntimeException e) {
+        if (!running) {
+          return;
+        }
+
+        if (resuming && e instanceof MongoServerException server && RESUME_FAILURES.contains(server.getCode())) {
+          log.warn("Change stream on the users collection can't be resumed, restarting it from now", e);
+          resumeToken = null;
+          continue;
+        }
+
+        log.warn("Change stream on the users collection failed, reopening in {} ms", retryDelayMillis, e);
+        pause();
+      }
+    }
+  }
+
+  private void remember(BsonDocument token) {
+    if (token != null) {
+      resumeToken = token;
+    }
+  }
+
+  private ChangeStreamIterable<Document> open() {
+    ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+        .watch(List.of(Aggregates.match(Filters.in("operationType", WATCHED_OPERATIONS))))
+        .fullDocument(FullDocument.UPDATE_LOOKUP);
+
+    return resumeToken != null ? stream.resumeAfter(resumeToken) : stream;
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(retryDelayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private void missed() {
+    for (UserChangeListener listener : listeners) {
+      try {
+        listener.onChangesMissed();
+      } catch (RuntimeException e) {
+        log.error("User change listener {} failed", listener.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  private void deliver(UserChangedEvent event) {
+    for (UserChangeListener listener : listeners) {
+      try {
+        listener.onUserChanged(event);
+      } catch (RuntimeException e) {
+        log.error("User change listener {} failed", listener.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  /**
+   * Translates a change stream document into a user change. Users are identified by a binary
+   * UUID, or by a string for the documents written before IDs were binary. An update only carries the
+   * login when it changed it; the login it replaced isn't known.
+   *
+   * @param change the change stream document
+   * @return the change, empty if the document doesn't identify a user
+   */
+  static Optional<UserChangedEvent> toEvent(ChangeStreamDocument<Document> change) {
+    BsonDocument key = change.getDocumentKey();
+    BsonValue id = key != null ? key.get("_id") : null;
+
+    String userId;
+
+    if (id != null && id.isBinary() && id.asBinary().getType() == BsonBinarySubType.UUID_STANDARD.getValue()) {
+      userId = id.asBinary().asUuid().toString();
+    } else if (id != null && id.isString()) {
+      userId = id.asString().getValue();
+    } else {
+      return Optional.empty();
+    }
+
+    Document user = change.getFullDocument();
+    long principalVersion = user != null && user.get(User.PRINCIPAL_VERSION_FIELD) instanceof Number version
+        ? version.longValue() : 0;
+    String login = user != null ? user.getString(User.LOGIN_FIELD) : null;
+
+    return Optional.of(switch (change.getOperationType()) {
+      case INSERT -> UserChangedEvent.created(userId, login);
+      case DELETE -> UserChangedEvent.deleted(userId, null);
+      case UPDATE -> UserChangedEvent.updated(userId, updatesLogin(change) ? login : null, principalVersion);
+      default -> UserChangedEvent.updated(userId, login, principalVersion);
+    });
+  }
+
+  private static boolean updatesLogin(ChangeStreamDocument<Document> change) {
+    UpdateDescription update = change.getUpdateDescription();
+
+    return update != null && update.getUpdatedFields() != null
+        && update.getUpdatedFields().containsKey(User.LOGIN_FIELD);
+  }
+}
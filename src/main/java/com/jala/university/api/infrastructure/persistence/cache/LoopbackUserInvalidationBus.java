@@ -0,0 +1,33 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers the changes only to the listeners of this node.
+ * <p>
+ * Fits a single replica and tests; with several replicas use the change stream bus.
+ */
+@Component
+@ConditionalOnProperty(name = "users.invalidation-bus.type", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackUserInvalidationBus implements UserInvalidationBus {
+
+  private final List<UserChangeListener> listeners;
+
+  /**
+   * Builds the bus.
+   *
+   * @param listeners listeners notified of every change
+   */
+  @Autowired
+  public LoopbackUserInvalidationBus(List<UserChangeListener> listeners) {
+    this.listeners = List.copyOf(listeners);
+  }
+
+  @Override
+  public void publish(UserChangedEvent event) {
+    listeners.forEach(listener -> listener.onUserChanged(event));
+  }
+}
@@ -0,0 +1,347 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counting Bloom filter of the registered logins, used to answer lookups of logins that surely don't
+ * exist without reading the database.
+ * <p>
+ * Every login sets {@code hashes} 4-bit counters, packed sixteen per {@code long} and updated with
+ * compare and swap, so adds, removes and lookups run concurrently without locks. A counter that
+ * reaches 15 is never decremented again: it may turn a removed login into a false positive, but
+ * never a registered login into a false negative.
+ * <p>
+ * Logins are hashed by their {@link User#loginKeyOf(String) login key}, so a login is found whatever
+ * its case.
+ * <p>
+ * The filter answers "maybe registered" to everything until {@link #rebuild(Stream)} completes, so a
+ * node that couldn't scan the users yet behaves as if there was no filter. The filter is
+ * {@link #reset() reset} and scanned again when changes may have been missed. Logins are added on the
+ * {@link UserChangedEvent.Type#CREATED} and {@link UserChangedEvent.Type#UPDATED} events and removed on
+ * {@link UserChangedEvent.Type#DELETED}, or on an update that gives the login it replaced; removals are
+ * skipped while the filter is being rebuilt. A login is only ever removed for a user that holds it, so
+ * each removal matches an earlier add: adding a login again, when the same change is delivered twice
+ * or the login was already a false positive, only leaves extra counts behind.
+ */
+@Component
+public class RegisteredLoginFilter implements MeterBinder, UserChangeListener {
+
+  private static final int COUNTER_BITS = 4;
+  private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+  private final AtomicLongArray words;
+  private final long counters;
+  private final int hashes;
+  private final long seed = new SecureRandom().nextLong();
+  private final AtomicLong entries = new AtomicLong();
+  private final AtomicLong definiteMisses = new AtomicLong();
+  private final AtomicLong falsePositives = new AtomicLong();
+
+  private volatile boolean ready;
+  private long generation;
+  private Counter missCounter;
+  private Counter falsePositiveCounter;
+
+  /**
+   * Builds an empty filter sized for the expected number of logins.
+   *
+   * @param expectedInsertions number of logins the filter is sized for
+   * @param falsePositiveRate  rate of false positives wanted at the expected number of logins
+   */
+  @Autowired
+  public RegisteredLoginFilter(@Value("${users.login-filter.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${users.login-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+    long optimal = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int wordCount = (int) Math.max(1, (optimal + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+
+    this.words = new AtomicLongArray(wordCount);
+    this.counters = (long) wordCount * COUNTERS_PER_WORD;
+    this.hashes = (int) Math.max(1, Math.round((double) counters / expectedInsertions * Math.log(2)));
+  }
+
+  /**
+   * Tells if a login may be registered.
+   *
+   * @param login the login to check
+   * @return false only if the login is surely not registered
+   */
+  public boolean mightContain(String login) {
+    if (!ready || login == null) {
+      return true;
+    }
+
+    long hash = hash(login);
+
+    for (int i = 0; i < hashes; i++) {
+      if (counterAt(index(hash, i)) == 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Runs a query by login only if the login may be registered, keeping track of the false positives.
+   *
+   * @param login the login to search
+   * @param query reads the login from the database
+   * @param <T>   type of the read value
+   * @return the read value, empty without a database read if the login is surely not registered
+   */
+  public <T> Optional<T> lookup(String login, Function<String, Optional<T>> query) {
+    if (!mightContain(login)) {
+      definiteMisses.incrementAndGet();
+
+      if (missCounter != null) {
+        missCounter.increment();
+      }
+
+      return Optional.empty();
+    }
+
+    Optional<T> result = query.apply(login);
+
+    if (result.isEmpty() && ready && login != null) {
+      falsePositives.incrementAndGet();
+
+      if (falsePositiveCounter != null) {
+        falsePositiveCounter.increment();
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a registered login.
+   *
+   * @param login the login
+   */
+  public void add(String login) {
+    if (login == null) {
+      return;
+    }
+
+    long hash = hash(login);
+
+    for (int i = 0; i < hashes; i++) {
+      increment(index(hash, i));
+    }
+
+    entries.incrementAndGet();
+  }
+
+  /**
+   * Removes a login that was registered. Must not be called for logins that were never added.
+   *
+   * @param login the login
+   */
+  public void remove(String login) {
+    if (login == null || !ready) {
+      return;
+    }
+
+    long hash = hash(login);
+
+    for (int i = 0; i < hashes; i++) {
+      decrement(index(hash, i));
+    }
+
+    entries.decrementAndGet();
+  }
+
+  /**
+   * Adds every registered login and starts answering lookups, unless the filter was reset meanwhile.
+   *
+   * @param logins the registered logins
+   */
+  public void rebuild(Stream<String> logins) {
+    long started;
+
+    synchronized (this) {
+      started = generation;
+    }
+
+    logins.forEach(this::add);
+
+    synchronized (this) {
+      ready = generation == started;
+    }
+  }
+
+  /**
+   * Forgets every login and lets every lookup through until the next {@link #rebuild(Stream)}.
+   */
+  public synchronized void reset() {
+    ready = false;
+    generation++;
+
+    for (int i = 0; i < words.length(); i++) {
+      words.set(i, 0);
+    }
+
+    entries.set(0);
+  }
+
+  /**
+   * Tells if the filter was built and answers lookups.
+   *
+   * @return true once the registered logins were added
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  @Override
+  public void onUserChanged(UserChangedEvent event) {
+    switch (event.type()) {
+      case CREATED -> add(event.login());
+      case UPDATED -> {
+        add(event.login());
+        remove(event.previousLogin());
+      }
+      case DELETED -> remove(event.login());
+    }
+  }
+
+  /**
+   * Rate of false positives expected from the number of logins added.
+   *
+   * @return the expected rate, between 0 and 1
+   */
+  public double expectedFalsePositiveRate() {
+    double filled = 1 - Math.exp(-(double) hashes * Math.max(0, entries.get()) / counters);
+
+    return Math.pow(filled, hashes);
+  }
+
+  /**
+   * Rate of false positives seen on lookups: the lookups that read the database and found nothing
+   * over all the lookups of logins that weren't registered.
+   *
+   * @return the observed rate, 0 if no unregistered login was looked up yet
+   */
+  public double observedFalsePositiveRate() {
+    long positives = falsePositives.get();
+    long negatives = positives + definiteMisses.get();
+
+    return negatives == 0 ? 0 : (double) positives / negatives;
+  }
+
+  /**
+   * Memory taken by the counters.
+   *
+   * @return the size of the counters in bytes
+   */
+  public long memoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  /**
+   * Publishes the size, memory use and false positive rates of the filter.
+   *
+   * @param registry the meter registry
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("users.login-filter.entries", entries, AtomicLong::get)
+        .description("Logins added to the registered logins filter")
+        .register(registry);
+    Gauge.builder("users.login-filter.memory", this, RegisteredLoginFilter::memoryBytes)
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("users.login-filter.false-positive-rate.expected", this,
+            RegisteredLoginFilter::expectedFalsePositiveRate)
+        .register(registry);
+    Gauge.builder("users.login-filter.false-positive-rate.observed", this,
+            RegisteredLoginFilter::observedFalsePositiveRate)
+        .register(registry);
+    missCounter = Counter.builder("users.login-filter.lookups")
+        .tag("result", "absent")
+        .description("Lookups answered by the filter without a database read")
+        .register(registry);
+    falsePositiveCounter = Counter.builder("users.login-filter.lookups")
+        .tag("result", "false-positive")
+        .description("Lookups the filter let through that found no user")
+        .register(registry);
+  }
+
+  private long hash(String login) {
+    long hash = seed;
+
+    for (byte b : User.loginKeyOf(login).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+
+    return hash;
+  }
+
+  private long index(long hash, int i) {
+    int first = (int) hash;
+    int second = (int) (hash >>> 32) | 1;
+
+    return Math.floorMod(first + (long) i * second, counters);
+  }
+
+  private int counterAt(long index) {
+    long word = words.get((int) (index / COUNTERS_PER_WORD));
+
+    return (int) (word >>> shift(index) & COUNTER_MASK);
+  }
+
+  private void increment(long index) {
+    int wordIndex = (int) (index / COUNTERS_PER_WORD);
+    int shift = shift(index);
+
+    while (true) {
+      long word = words.get(wordIndex);
+      long counter = word >>> shift & COUNTER_MASK;
+
+      if (counter == COUNTER_MASK || words.compareAndSet(wordIndex, word, word + (1L << shift))) {
+        return;
+      }
+    }
+  }
+
+  private void decrement(long index) {
+    int wordIndex = (int) (index / COUNTERS_PER_WORD);
+    int shift = shift(index);
+
+    while (true) {
+      long word = words.get(wordIndex);
+      long counter = word >>> shift & COUNTER_MASK;
+
+      if (counter == 0 || counter == COUNTER_MASK
+          || words.compareAndSet(wordIndex, word, word - (1L << shift))) {
+        return;
+      }
+    }
+  }
+
+  private static int shift(long index) {
+    return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+  }
+}
@@ -0,0 +1,107 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.User;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the {@link RegisteredLoginFilter} once the application is ready, streaming only the logins
+ * of the users collection on a background thread so the startup isn't delayed. A failed scan is
+ * retried; until one completes the filter lets every lookup through. When changes on users may have
+ * been missed the filter is reset and filled again.
+ */
+@Slf4j
+@Component
+public class RegisteredLoginFilterLoader implements UserChangeListener {
+
+  private static final int BATCH_SIZE = 10_000;
+
+  private final MongoTemplate mongoTemplate;
+  private final RegisteredLoginFilter registeredLogins;
+  private final long retryDelayMillis;
+  private final AtomicBoolean scanning = new AtomicBoolean();
+
+  /**
+   * Builds the loader.
+   *
+   * @param mongoTemplate    template used to scan the users
+   * @param registeredLogins filter to fill
+   * @param retryDelayMillis milliseconds to wait before retrying a failed scan
+   */
+  @Autowired
+  public RegisteredLoginFilterLoader(MongoTemplate mongoTemplate, RegisteredLoginFilter registeredLogins,
+      @Value("${users.login-filter.retry-delay-millis:5000}") long retryDelayMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.registeredLogins = registeredLogins;
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  /**
+   * Starts scanning the registered logins.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (scanning.compareAndSet(false, true)) {
+      Thread.ofPlatform()
+          .name("registered-logins-scan")
+          .daemon()
+          .start(this::scan);
+    }
+  }
+
+  @Override
+  public void onUserChanged(UserChangedEvent event) {
+  }
+
+  @Override
+  public void onChangesMissed() {
+    registeredLogins.reset();
+    start();
+  }
+
+  private void scan() {
+    load();
+    scanning.set(false);
+
+    if (!registeredLogins.isReady() && !Thread.currentThread().isInterrupted()) {
+      start();
+    }
+  }
+
+  private void load() {
+    Query query = new Query().cursorBatchSize(BATCH_SIZE);
+    query.fields().include(User.LOGIN_FIELD);
+
+    while (!registeredLogins.isReady()) {
+      long startedAt = System.currentTimeMillis();
+
+      try (Stream<Document> users = mongoTemplate.stream(query, Document.class,
+          mongoTemplate.getCollectionName(User.class))) {
+        registeredLogins.rebuild(users.map(user -> user.getString(User.LOGIN_FIELD)).filter(Objects::nonNull));
+
+        if (registeredLogins.isReady()) {
+          log.info("Registered logins filter built in {} ms", System.currentTimeMillis() - startedAt);
+        }
+      } catch (RuntimeException e) {
+        log.warn("Scan of the registered logins failed, retrying in {} ms", retryDelayMillis, e);
+
+        try {
+          Thread.sleep(retryDelayMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that expires values at a deadline, with constant time scheduling and
+ * cancellation whatever the number of pending values.
+ * <p>
+ * Time is split in ticks. The first level has a slot per tick; every upper level has a slot per full
+ * turn of the level below, so {@value #LEVELS} levels of {@value #SLOTS} slots cover
+ * {@code 64^4} ticks. A value is linked in the slot of the lowest level whose span holds its
+ * deadline; when a level turns over, the values in the next slot of the level above are moved down,
+ * so each value moves at most once per level. Values past the last level wait in its farthest slot.
+ * <p>
+ * Not thread safe: callers must hold a lock around every method.
+ *
+ * @param <T> type of the scheduled values
+ */
+class TimingWheel<T> {
+
+  private static final int LEVELS = 4;
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final long SLOT_MASK = SLOTS - 1;
+  private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+  /**
+   * Value linked in a slot of the wheel.
+   *
+   * @param <T> type of the value
+   */
+  static final class Timeout<T> {
+
+    private final T value;
+    private final long deadline;
+    private Timeout<T> previous;
+    private Timeout<T> next;
+    private Timeout<T>[] slots;
+    private int slot = -1;
+
+    private Timeout(T value, long deadline) {
+      this.value = value;
+      this.deadline = deadline;
+    }
+
+    T value() {
+      return value;
+    }
+  }
+
+  private final long tickMillis;
+  private final Consumer<T> onExpiry;
+  private final Timeout<T>[][] wheels;
+  private long currentTick;
+  private long size;
+
+  /**
+   * Builds an empty wheel.
+   *
+   * @param tickMillis duration of a tick in milliseconds, the precision of the expiration
+   * @param nowMillis  the current time in milliseconds
+   * @param onExpiry   called with each value whose deadline passed, while advancing the wheel
+   */
+  @SuppressWarnings("unchecked")
+  TimingWheel(long tickMillis, long nowMillis, Consumer<T> onExpiry) {
+    this.tickMillis = tickMillis;
+    this.onExpiry = onExpiry;
+    this.wheels = new Timeout[LEVELS][SLOTS];
+    this.currentTick = nowMillis / tickMillis;
+  }
+
+  /**
+   * Schedules the expiration of a value.
+   *
+   * @param value          the value
+   * @param deadlineMillis when the value expires, in milliseconds
+   * @return the handle used to cancel the expiration, null if the deadline already passed
+   */
+  Timeout<T> schedule(T value, long deadlineMillis) {
+    long deadline = Math.ceilDiv(deadlineMillis, tickMillis);
+
+    if (deadline <= currentTick) {
+      return null;
+    }
+
+    Timeout<T> timeout = new Timeout<>(value, deadline);
+    link(timeout);
+    size++;
+
+    return timeout;
+  }
+
+  /**
+   * Cancels the expiration of a value.
+   *
+   * @param timeout the handle returned when the value was scheduled
+   */
+  void cancel(Timeout<T> timeout) {
+    if (timeout != null && timeout.slot >= 0) {
+      unlink(timeout);
+      size--;
+    }
+  }
+
+  /**
+   * Expires the values whose deadline passed.
+   *
+   * @param nowMillis the current time in milliseconds
+   */
+  void advance(long nowMillis) {
+    long targetTick = nowMillis / tickMillis;
+
+    while (currentTick < targetTick) {
+      currentTick++;
+
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+          cascade(level);
+        }
+      }
+
+      expire(wheels[0], (int) (currentTick & SLOT_MASK));
+    }
+  }
+
+  /**
+   * Number of scheduled values.
+   *
+   * @return the values not expired nor cancelled
+   */
+  long size() {
+    return size;
+  }
+
+  private void cascade(int level) {
+    Timeout<T>[] slots = wheels[level];
+    int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    Timeout<T> timeout = slots[slot];
+    slots[slot] = null;
+
+    while (timeout != null) {
+      Timeout<T> next = timeout.next;
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.slot = -1;
+
+      if (timeout.deadline <= currentTick) {
+        size--;
+        onExpiry.accept(timeout.value);
+      } else {
+        link(timeout);
+      }
+
+      timeout = next;
+    }
+  }
+
+  private void expire(Timeout<T>[] slots, int slot) {
+    Timeout<T> timeout = slots[slot];
+    slots[slot] = null;
+
+    while (timeout != null) {
+      Timeout<T> next = timeout.next;
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.slot = -1;
+      size--;
+      onExpiry.accept(timeout.value);
+      timeout = next;
+    }
+  }
+
+  private void link(Timeout<T> timeout) {
+    long delay = Math.min(timeout.deadline - currentTick, SPAN - 1);
+    long deadline = currentTick + delay;
+    int level = 0;
+
+    while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+      level++;
+    }
+
+    Timeout<T>[] slots = wheels[level];
+    int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+    timeout.slots = slots;
+    timeout.slot = slot;
+    timeout.next = slots[slot];
+
+    if (slots[slot] != null) {
+      slots[slot].previous = timeout;
+    }
+
+    slots[slot] = timeout;
+  }
+
+  private void unlink(Timeout<T> timeout) {
+    if (timeout.previous != null) {
+      timeout.previous.next = timeout.next;
+    } else {
+      timeout.slots[timeout.slot] = timeout.next;
+    }
+
+    if (timeout.next != null) {
+      timeout.next.previous = timeout.previous;
+    }
+
+    timeout.previous = null;
+    timeout.next = null;
+    timeout.slot = -1;
+  }
+}
@@ -0,0 +1,200 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jala.university.api.domain.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of users, looked up by ID or by login.
+ * <p>
+ * Users are stored once, keyed by ID; the login key only points to the ID and is checked against the
+ * cached user on every lookup, so a stale login key is a miss instead of a wrong user. Logins are
+ * keyed by {@link User#loginKeyOf(String)}, so they match whatever their case. Cached users
+ * are copied on every hit because callers change the users they read before saving them. Users are
+ * loaded without their password hash, so a cached user must not be saved without setting it.
+ * <p>
+ * Every write on a user must be published on the {@link UserInvalidationBus}, which evicts the user
+ * on every node. A load that overlaps an invalidation doesn't populate the cache, so a value read
+ * before the write is never kept.
+ */
+@Component
+public class UserCache implements MeterBinder, UserChangeListener {
+
+  private final Cache<String, User> usersById;
+  private final Cache<String, String> idsByLogin;
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Builds the caches.
+   *
+   * @param maximumSize       maximum number of users kept in memory
+   * @param timeToLiveSeconds seconds a user is kept since it was loaded
+   */
+  @Autowired
+  public UserCache(@Value("${users.cache.maximum-size:10000}") long maximumSize,
+      @Value("${users.cache.time-to-live-seconds:300}") long timeToLiveSeconds) {
+    this.usersById = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+        .recordStats()
+        .build();
+    this.idsByLogin = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Searches a user by its ID, loading it on a miss.
+   *
+   * @param id     the ID of the user
+   * @param loader reads the user from the database
+   * @return the user, empty if it doesn't exist
+   */
+  public Optional<User> findById(String id, Function<String, Optional<User>> loader) {
+    User cached = usersById.getIfPresent(id);
+
+    if (cached != null) {
+      return Optional.of(copyOf(cached));
+    }
+
+    long generation = invalidations.get();
+    Optional<User> loaded = loader.apply(id);
+    loaded.ifPresent(user -> store(user, generation));
+
+    return loaded;
+  }
+
+  /**
+   * Searches a cached user by its login, without loading it on a miss.
+   *
+   * @param login the login of the user
+   * @return a copy of the user, empty if it isn't cached
+   */
+  public Optional<User> peekByLogin(String login) {
+    String loginKey = User.loginKeyOf(login);
+    String id = loginKey != null ? idsByLogin.getIfPresent(loginKey) : null;
+    User cached = id != null ? usersById.getIfPresent(id) : null;
+
+    if (cached != null && loginKey.equals(User.loginKeyOf(cached.getLogin()))) {
+      return Optional.of(copyOf(cached));
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Searches a user by its login, loading it on a miss.
+   *
+   * @param login  the login of the user
+   * @param loader reads the user from the database, returning null if it doesn't exist
+   * @return the user, empty if it doesn't exist
+   */
+  public Optional<User> findByLogin(String login, Function<String, User> loader) {
+    Optional<User> cached = peekByLogin(login);
+
+    if (cached.isPresent()) {
+      return cached;
+    }
+
+    long generation = invalidations.get();
+    Optional<User> loaded = Optional.ofNullable(loader.apply(login));
+    loaded.ifPresent(user -> store(user, generation));
+
+    return loaded;
+  }
+
+  @Override
+  public void onUserChanged(UserChangedEvent event) {
+    invalidate(event.userId());
+  }
+
+  @Override
+  public void onChangesMissed() {
+    invalidateAll();
+  }
+
+  /**
+   * Removes every user from the cache.
+   */
+  public void invalidateAll() {
+    invalidations.incrementAndGet();
+    usersById.invalidateAll();
+    idsByLogin.invalidateAll();
+  }
+
+  /**
+   * Removes a user from the cache.
+   *
+   * @param id the ID of the changed user
+   */
+  public void invalidate(String id) {
+    if (id == null) {
+      return;
+    }
+
+    invalidations.incrementAndGet();
+    User removed = usersById.asMap().remove(id);
+
+    if (removed != null && removed.getLogin() != null) {
+      idsByLogin.asMap().remove(User.loginKeyOf(removed.getLogin()), id);
+    }
+  }
+
+  /**
+   * Stores a loaded user unless an invalidation happened since the load started.
+   *
+   * @param user       the loaded user
+   * @param generation number of invalidations seen before the load
+   */
+  private void store(User user, long generation) {
+    if (user.getId() == null || invalidations.get() != generation) {
+      return;
+    }
+
+    String id = user.getId().toString();
+    usersById.put(id, copyOf(user));
+
+    if (user.getLogin() != null) {
+      idsByLogin.put(User.loginKeyOf(user.getLogin()), id);
+    }
+
+    if (invalidations.get() != generation) {
+      usersById.invalidate(id);
+    }
+  }
+
+  private static User copyOf(User user) {
+    return User.builder()
+        .id(user.getId())
+        .name(user.getName())
+        .login(user.getLogin())
+        .loginKey(user.getLoginKey())
+        .password(user.getPassword())
+        .validated(user.isValidated())
+        .principalVersion(user.getPrincipalVersion())
+        .build();
+  }
+
+  /**
+   * Publishes the hit, miss and eviction stats of both caches.
+   *
+   * @param registry the meter registry
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, usersById, "users.by-id");
+    CaffeineCacheMetrics.monitor(registry, idsByLogin, "users.by-login");
+  }
+}
@@ -0,0 +1,21 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+/**
+ * Drops the local state kept for a user when the user changes on any node.
+ */
+public interface UserChangeListener {
+
+  /**
+   * Handles a change made on a user.
+   *
+   * @param event the change
+   */
+  void onUserChanged(UserChangedEvent event);
+
+  /**
+   * Handles changes that may have been missed, when the bus couldn't deliver every change made since
+   * its last one. Nothing is known about the changed users, so the local state must be dropped.
+   */
+  default void onChangesMissed() {
+  }
+}
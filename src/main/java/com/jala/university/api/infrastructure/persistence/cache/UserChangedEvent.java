@@ -0,0 +1,82 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+/**
+ * Notifies that a user was written, so the local copies of it must be dropped.
+ *
+ * @param userId           the ID of the changed user
+ * @param login            the login of the user after the change, null if unknown or unchanged
+ * @param previousLogin    the login of the user before a change of login, null if unknown or unchanged
+ * @param principalVersion the principal version of the user after the change
+ * @param type             the kind of change
+ */
+public record UserChangedEvent(String userId, String login, String previousLogin, long principalVersion,
+    Type type) {
+
+  /**
+   * Kind of change made on a user.
+   */
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  /**
+   * Builds the event of a created user.
+   *
+   * @param userId the ID of the created user
+   * @param login  the login of the created user
+   * @return the event
+   */
+  public static UserChangedEvent created(String userId, String login) {
+    return new UserChangedEvent(userId, login, null, 0, Type.CREATED);
+  }
+
+  /**
+   * Builds the event of an updated user whose login didn't change.
+   *
+   * @param userId           the ID of the updated user
+   * @param principalVersion the principal version of the user after the update
+   * @return the event
+   */
+  public static UserChangedEvent updated(String userId, long principalVersion) {
+    return updated(userId, null, principalVersion);
+  }
+
+  /**
+   * Builds the event of an updated user whose login may have changed from an unknown one.
+   *
+   * @param userId           the ID of the updated user
+   * @param login            the login of the user after the update, null if unchanged
+   * @param principalVersion the principal version of the user after the update
+   * @return the event
+   */
+  public static UserChangedEvent updated(String userId, String login, long principalVersion) {
+    return updated(userId, login, null, principalVersion);
+  }
+
+  /**
+   * Builds the event of an updated user whose login changed.
+   *
+   * @param userId           the ID of the updated user
+   * @param login            the login of the user after the update, null if unchanged
+   * @param previousLogin    the login of the user before the update, null if unchanged or unknown
+   * @param principalVersion the principal version of the user after the update
+   * @return the event
+   */
+  public static UserChangedEvent updated(String userId, String login, String previousLogin,
+      long principalVersion) {
+    return new UserChangedEvent(userId, login, previousLogin, principalVersion, Type.UPDATED);
+  }
+
+  /**
+   * Builds the event of a deleted user.
+   *
+   * @param userId the ID of the deleted user
+   * @param login  the login of the deleted user, null if unknown
+   * @return the event
+   */
+  public static UserChangedEvent deleted(String userId, String login) {
+    return new UserChangedEvent(userId, login, null, 0, Type.DELETED);
+  }
+}
@@ -0,0 +1,17 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+/**
+ * Spreads the changes made on users to every {@link UserChangeListener} of every node.
+ * <p>
+ * The implementation is chosen with the {@code users.invalidation-bus.type} property.
+ */
+public interface UserInvalidationBus {
+
+  /**
+   * Publishes a change made on a user. Must be called after the write, the listeners of this node are
+   * notified before the method returns.
+   *
+   * @param event the change
+   */
+  void publish(UserChangedEvent event);
+}
@@ -0,0 +1,227 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process registry of the stored identity validation tokens issued or read recently, so a token is
+ * usually checked without reading the database during the hour it lives.
+ * <p>
+ * Tokens are kept in a map by ID and expire through a {@link TimingWheel} with one second ticks, so
+ * registering, consuming and expiring a token take constant time however many are outstanding. The
+ * wheel is advanced on every operation and by the scheduler; a token past its expiration is never
+ * returned even if its tick wasn't reached yet.
+ * <p>
+ * The database remains the source of truth: the registry only remembers what this node wrote or
+ * read, so a token it doesn't know must be read from the database, and a token it knows as unused
+ * may have been consumed on another node. When the registry is full new tokens are not registered.
+ */
+@Component
+public class ValidationTokenRegistry implements MeterBinder {
+
+  private static final long TICK_MILLIS = 1000;
+
+  private record Entry(UUID userId, LocalDateTime expiration, boolean verified,
+      TimingWheel.Timeout<UUID> timeout) {
+  }
+
+  private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock wheelLock = new ReentrantLock();
+  private final TimingWheel<UUID> wheel;
+  private final Clock clock;
+  private final boolean enabled;
+  private final long maximumSize;
+
+  private Counter hitCounter;
+  private Counter missCounter;
+
+  /**
+   * Builds an empty registry.
+   *
+   * @param enabled     whether tokens are kept in memory
+   * @param maximumSize maximum number of tokens kept in memory
+   */
+  @Autowired
+  public ValidationTokenRegistry(@Value("${tokens.registry.enabled:true}") boolean enabled,
+      @Value("${tokens.registry.maximum-size:1000000}") long maximumSize) {
+    this(enabled, maximumSize, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Builds an empty registry reading the time from the given clock.
+   *
+   * @param enabled     whether tokens are kept in memory
+   * @param maximumSize maximum number of tokens kept in memory
+   * @param clock       clock the expirations are compared to
+   */
+  public ValidationTokenRegistry(boolean enabled, long maximumSize, Clock clock) {
+    this.enabled = enabled;
+    this.maximumSize = maximumSize;
+    this.clock = clock;
+    this.wheel = new TimingWheel<>(TICK_MILLIS, clock.millis(), id -> entries.remove(id));
+  }
+
+  /**
+   * Remembers a token that was stored or read.
+   *
+   * @param token the token
+   */
+  public void register(IdentityValidationToken token) {
+    if (!enabled || token.getId() == null || token.getExpiration() == null) {
+      return;
+    }
+
+    put(token.getId(), token.getUserId(), token.getExpiration(), token.isVerified());
+  }
+
+  /**
+   * Remembers that a token was consumed.
+   *
+   * @param token the consumed token
+   */
+  public void markVerified(IdentityValidationToken token) {
+    if (!enabled || token.getId() == null) {
+      return;
+    }
+
+    Entry entry = entries.get(token.getId());
+    LocalDateTime expiration = token.getExpiration() != null ? token.getExpiration()
+        : entry != null ? entry.expiration() : null;
+    UUID userId = token.getUserId() != null ? token.getUserId()
+        : entry != null ? entry.userId() : null;
+
+    if (expiration != null) {
+      put(token.getId(), userId, expiration, true);
+    }
+  }
+
+  /**
+   * Remembers that a token can't be consumed anymore, without knowing its owner.
+   *
+   * @param id the ID of the token
+   */
+  public void markUnusable(UUID id) {
+    Entry entry = enabled ? entries.get(id) : null;
+
+    if (entry != null && !entry.verified()) {
+      put(id, entry.userId(), entry.expiration(), true);
+    }
+  }
+
+  /**
+   * Searches a token that hasn't expired.
+   *
+   * @param id the ID of the token
+   * @return a copy of the token, empty if it isn't known or expired
+   */
+  public Optional<IdentityValidationToken> find(UUID id) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    advance();
+    Entry entry = entries.get(id);
+
+    if (entry == null || !entry.expiration().isAfter(LocalDateTime.now(clock))) {
+      if (missCounter != null) {
+        missCounter.increment();
+      }
+
+      return Optional.empty();
+    }
+
+    if (hitCounter != null) {
+      hitCounter.increment();
+    }
+
+    return Optional.of(IdentityValidationToken.builder()
+        .id(id)
+        .userId(entry.userId())
+        .expiration(entry.expiration())
+        .verified(entry.verified())
+        .build());
+  }
+
+  /**
+   * Number of tokens kept in memory.
+   *
+   * @return the tokens registered and not expired yet
+   */
+  public long size() {
+    return entries.size();
+  }
+
+  /**
+   * Expires the tokens whose expiration passed.
+   */
+  @Scheduled(fixedRate = TICK_MILLIS)
+  public void advance() {
+    if (wheelLock.tryLock()) {
+      try {
+        wheel.advance(clock.millis());
+      } finally {
+        wheelLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Publishes the size of the registry and its hits and misses.
+   *
+   * @param registry the meter registry
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("tokens.registry.entries", this, ValidationTokenRegistry::size)
+        .description("Identity validation tokens kept in memory")
+        .register(registry);
+    hitCounter = Counter.builder("tokens.registry.lookups")
+        .tag("result", "hit")
+        .register(registry);
+    missCounter = Counter.builder("tokens.registry.lookups")
+        .tag("result", "miss")
+        .register(registry);
+  }
+
+  private void put(UUID id, UUID userId, LocalDateTime expiration, boolean verified) {
+    long deadline = expiration.atZone(clock.getZone()).toInstant().toEpochMilli();
+
+    wheelLock.lock();
+    try {
+      wheel.advance(clock.millis());
+      Entry previous = entries.get(id);
+
+      if (previous == null && entries.size() >= maximumSize) {
+        return;
+      }
+
+      if (previous != null) {
+        wheel.cancel(previous.timeout());
+      }
+
+      TimingWheel.Timeout<UUID> timeout = wheel.schedule(id, deadline);
+
+      if (timeout == null) {
+        entries.remove(id);
+      } else {
+        entries.put(id, new Entry(userId, expiration, verified, timeout));
+      }
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.jala.university.api.infrastructure.persistence.codec;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import org.bson.BsonBinary;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.UuidRepresentation;
+
+/**
+ * Reads and writes the field values of the entity codecs in the same BSON types the mapping
+ * converter uses, so documents written by either one are read by the other.
+ */
+final class BsonFields {
+
+  private BsonFields() {
+  }
+
+  static void writeUuid(BsonWriter writer, String name, UUID value) {
+    if (value != null) {
+      writer.writeBinaryData(name, new BsonBinary(value, UuidRepresentation.STANDARD));
+    }
+  }
+
+  static void writeString(BsonWriter writer, String name, String value) {
+    if (value != null) {
+      writer.writeString(name, value);
+    }
+  }
+
+  /**
+   * Writes a date as the converter does: the local date time at the default time zone of the JVM.
+   */
+  static void writeDateTime(BsonWriter writer, String name, LocalDateTime value) {
+    if (value != null) {
+      writer.writeDateTime(name, toEpochMillis(value));
+    }
+  }
+
+  /**
+   * Reads a UUID stored as binary, or as a string by the documents written before IDs were binary.
+   */
+  static UUID readUuid(BsonReader reader) {
+    return switch (reader.getCurrentBsonType()) {
+      case BINARY -> reader.readBinaryData().asUuid();
+      case STRING -> UUID.fromString(reader.readString());
+      default -> skip(reader);
+    };
+  }
+
+  static String readString(BsonReader reader) {
+    return reader.getCurrentBsonType() == BsonType.STRING ? reader.readString() : skip(reader);
+  }
+
+  static boolean readBoolean(BsonReader reader) {
+    if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+      return reader.readBoolean();
+    }
+
+    reader.skipValue();
+    return false;
+  }
+
+  static long readLong(BsonReader reader) {
+    return switch (reader.getCurrentBsonType()) {
+      case INT64 -> reader.readInt64();
+      case INT32 -> reader.readInt32();
+      case DOUBLE -> (long) reader.readDouble();
+      default -> {
+        reader.skipValue();
+        yield 0;
+      }
+    };
+  }
+
+  static LocalDateTime readDateTime(BsonReader reader) {
+    if (reader.getCurrentBsonType() == BsonType.DATE_TIME) {
+      return LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneId.systemDefault());
+    }
+
+    return skip(reader);
+  }
+
+  static long toEpochMillis(LocalDateTime value) {
+    return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static <T> T skip(BsonReader reader) {
+    reader.skipValue();
+    return null;
+  }
+}
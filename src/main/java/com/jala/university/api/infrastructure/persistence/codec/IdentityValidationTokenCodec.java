@@ -0,0 +1,52 @@
+package com.jala.university.api.infrastructure.persistence.codec;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Encodes and decodes validation tokens straight from BSON, in the layout the mapping converter
+ * writes.
+ */
+public class IdentityValidationTokenCodec implements Codec<IdentityValidationToken> {
+
+  @Override
+  public void encode(BsonWriter writer, IdentityValidationToken token, EncoderContext encoderContext) {
+    writer.writeStartDocument();
+    BsonFields.writeUuid(writer, "_id", token.getId());
+    BsonFields.writeUuid(writer, IdentityValidationToken.USER_ID_FIELD, token.getUserId());
+    BsonFields.writeDateTime(writer, IdentityValidationToken.EXPIRATION_FIELD, token.getExpiration());
+    writer.writeBoolean(IdentityValidationToken.VERIFIED_FIELD, token.isVerified());
+    writer.writeEndDocument();
+  }
+
+  @Override
+  public IdentityValidationToken decode(BsonReader reader, DecoderContext decoderContext) {
+    IdentityValidationToken token = new IdentityValidationToken();
+
+    reader.readStartDocument();
+
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      switch (reader.readName()) {
+        case "_id" -> token.setId(BsonFields.readUuid(reader));
+        case IdentityValidationToken.USER_ID_FIELD -> token.setUserId(BsonFields.readUuid(reader));
+        case IdentityValidationToken.EXPIRATION_FIELD -> token.setExpiration(BsonFields.readDateTime(reader));
+        case IdentityValidationToken.VERIFIED_FIELD -> token.setVerified(BsonFields.readBoolean(reader));
+        default -> reader.skipValue();
+      }
+    }
+
+    reader.readEndDocument();
+
+    return token;
+  }
+
+  @Override
+  public Class<IdentityValidationToken> getEncoderClass() {
+    return IdentityValidationToken.class;
+  }
+}
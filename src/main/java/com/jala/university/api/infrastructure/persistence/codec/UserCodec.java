@@ -0,0 +1,61 @@
+package com.jala.university.api.infrastructure.persistence.codec;
+
+import com.jala.university.api.domain.entity.User;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Encodes and decodes users straight from BSON, without the reflection of the mapping converter.
+ * <p>
+ * The documents have the layout the converter writes: binary UUID ID, short field names and no
+ * null fields. Fields that aren't part of the user, such as the tokens embedded by older versions,
+ * are skipped; fields left out by a projection keep their default value.
+ */
+public class UserCodec implements Codec<User> {
+
+  @Override
+  public void encode(BsonWriter writer, User user, EncoderContext encoderContext) {
+    writer.writeStartDocument();
+    BsonFields.writeUuid(writer, "_id", user.getId());
+    BsonFields.writeString(writer, User.NAME_FIELD, user.getName());
+    BsonFields.writeString(writer, User.LOGIN_FIELD, user.getLogin());
+    BsonFields.writeString(writer, User.LOGIN_KEY_FIELD, user.getLoginKey());
+    BsonFields.writeString(writer, User.PASSWORD_FIELD, user.getPassword());
+    writer.writeBoolean(User.VALIDATED_FIELD, user.isValidated());
+    writer.writeInt64(User.PRINCIPAL_VERSION_FIELD, user.getPrincipalVersion());
+    writer.writeEndDocument();
+  }
+
+  @Override
+  public User decode(BsonReader reader, DecoderContext decoderContext) {
+    User user = new User();
+
+    reader.readStartDocument();
+
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      switch (reader.readName()) {
+        case "_id" -> user.setId(BsonFields.readUuid(reader));
+        case User.NAME_FIELD -> user.setName(BsonFields.readString(reader));
+        case User.LOGIN_FIELD -> user.setLogin(BsonFields.readString(reader));
+        case User.LOGIN_KEY_FIELD -> user.setLoginKey(BsonFields.readString(reader));
+        case User.PASSWORD_FIELD -> user.setPassword(BsonFields.readString(reader));
+        case User.VALIDATED_FIELD -> user.setValidated(BsonFields.readBoolean(reader));
+        case User.PRINCIPAL_VERSION_FIELD -> user.setPrincipalVersion(BsonFields.readLong(reader));
+        default -> reader.skipValue();
+      }
+    }
+
+    reader.readEndDocument();
+
+    return user;
+  }
+
+  @Override
+  public Class<User> getEncoderClass() {
+    return User.class;
+  }
+}
@@ -0,0 +1,254 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites the users stored before IDs were binary UUIDs and fields had short names, before the
+ * application serves requests.
+ * <p>
+ * A legacy user has its ID as a string and its fields under their Java names. Each one is inserted
+ * again with the same UUID in binary form and the short field names, then the legacy document is
+ * deleted, so the ID seen by clients doesn't change. The embedded tokens and the class name aren't
+ * copied. The unique index on the legacy login field is dropped first: the migrated documents don't
+ * have that field and would collide on it.
+ * <p>
+ * Users are migrated in batches walked in ID order. A legacy document is only deleted once its
+ * migrated copy exists, so an interrupted migration is completed on the next startup; a user whose
+ * copy can't be inserted, or whose ID isn't a UUID, is left as it is and logged.
+ * <p>
+ * Users stored before logins had a login key are then given one. A user whose login only differs by
+ * case from the login of another user can't get it, because the key is unique: it is logged and left
+ * without a key, and can't log in until one of the two changes its email.
+ */
+@Slf4j
+@Component
+public class LegacyUserMigration implements SmartInitializingSingleton {
+
+  private static final Map<String, String> RENAMED_FIELDS = Map.of(
+      "name", User.NAME_FIELD,
+      "login", User.LOGIN_FIELD,
+      "password", User.PASSWORD_FIELD,
+      "validated", User.VALIDATED_FIELD,
+      "principalVersion", User.PRINCIPAL_VERSION_FIELD);
+  private static final Set<String> DROPPED_FIELDS = Set.of("_class", "tokens");
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+
+  /**
+   * Builds the migration.
+   *
+   * @param mongoTemplate template used to read and write the users
+   * @param enabled       whether the legacy users are migrated at startup
+   * @param batchSize     users migrated per database round trip
+   */
+  @Autowired
+  public LegacyUserMigration(MongoTemplate mongoTemplate,
+      @Value("${users.legacy-migration.enabled:true}") boolean enabled,
+      @Value("${users.legacy-migration.batch-size:500}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (enabled) {
+      migrate();
+      backfillLoginKeys();
+    }
+  }
+
+  /**
+   * Migrates every legacy user.
+   *
+   * @return the number of migrated users
+   */
+  public long migrate() {
+    MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+    List<Document> batch = legacyUsers(users, null);
+
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    dropLegacyLoginIndex(users);
+    long migrated = migrate(users, batch);
+
+    while (batch.size() == batchSize) {
+      batch = legacyUsers(users, batch.get(batch.size() - 1).getString("_id"));
+      migrated += migrate(users, batch);
+    }
+
+    if (migrated > 0) {
+      log.info("Migrated {} users to binary IDs and short field names", migrated);
+    }
+
+    return migrated;
+  }
+
+  private List<Document> legacyUsers(MongoCollection<Document> users, String afterId) {
+    Bson legacy = Filters.type("_id", BsonType.STRING);
+
+    return users.find(afterId != null ? Filters.and(legacy, Filters.gt("_id", afterId)) : legacy)
+        .sort(Sorts.ascending("_id"))
+        .limit(batchSize)
+        .into(new ArrayList<>());
+  }
+
+  private long migrate(MongoCollection<Document> users, List<Document> batch) {
+    List<Document> converted = new ArrayList<>();
+    Map<UUID, String> legacyIds = new HashMap<>();
+
+    for (Document legacy : batch) {
+      String legacyId = legacy.getString("_id");
+      Optional<UUID> id = Uuids.parse(legacyId);
+
+      if (id.isEmpty()) {
+        log.warn("User {} wasn't migrated, its ID isn't a UUID", legacyId);
+      } else {
+        converted.add(convert(legacy, id.get()));
+        legacyIds.put(id.get(), legacyId);
+      }
+    }
+
+    if (converted.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      users.insertMany(converted, new InsertManyOptions().ordered(false));
+    } catch (MongoBulkWriteException e) {
+      e.getWriteErrors().stream()
+          .filter(error -> error.getCode() != DUPLICATE_KEY)
+          .findFirst()
+          .ifPresent(error -> log.warn("A user couldn't be migrated: {}", error.getMessage()));
+    }
+
+    List<String> copied = new ArrayList<>();
+    users.find(Filters.in("_id", legacyIds.keySet()))
+        .projection(Projections.include("_id"))
+        .forEach(user -> copied.add(legacyIds.get(user.get("_id", UUID.class))));
+
+    if (copied.size() < legacyIds.size()) {
+      log.warn("{} users weren't migrated, their copy couldn't be inserted",
+          legacyIds.size() - copied.size());
+    }
+
+    if (!copied.isEmpty()) {
+      users.deleteMany(Filters.in("_id", copied));
+    }
+
+    return copied.size();
+  }
+
+  /**
+   * Sets the login key of every user that has a login but no key.
+   *
+   * @return the number of users given a login key
+   */
+  public long backfillLoginKeys() {
+    MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+    Bson withoutKey = Filters.and(Filters.type("_id", BsonType.BINARY),
+        Filters.type(User.LOGIN_FIELD, BsonType.STRING), Filters.exists(User.LOGIN_KEY_FIELD, false));
+    long backfilled = 0;
+    Object afterId = null;
+    List<Document> batch;
+
+    do {
+      batch = users.find(afterId != null ? Filters.and(withoutKey, Filters.gt("_id", afterId)) : withoutKey)
+          .projection(Projections.include(User.LOGIN_FIELD))
+          .sort(Sorts.ascending("_id"))
+          .limit(batchSize)
+          .into(new ArrayList<>());
+
+      if (!batch.isEmpty()) {
+        backfilled += backfillLoginKeys(users, batch);
+        afterId = batch.get(batch.size() - 1).get("_id");
+      }
+    } while (batch.size() == batchSize);
+
+    if (backfilled > 0) {
+      log.info("Set the login key of {} users", backfilled);
+    }
+
+    return backfilled;
+  }
+
+  private long backfillLoginKeys(MongoCollection<Document> users, List<Document> batch) {
+    List<UpdateOneModel<Document>> updates = batch.stream()
+        .map(user -> new UpdateOneModel<Document>(
+            Filters.and(Filters.eq("_id", user.get("_id")), Filters.exists(User.LOGIN_KEY_FIELD, false)),
+            Updates.set(User.LOGIN_KEY_FIELD, User.loginKeyOf(user.getString(User.LOGIN_FIELD)))))
+        .toList();
+
+    try {
+      return users.bulkWrite(updates, new BulkWriteOptions().ordered(false)).getModifiedCount();
+    } catch (MongoBulkWriteException e) {
+      e.getWriteErrors().forEach(error -> log.warn("User {} has no login key, its login is registered with "
+          + "another case by another user: {}", batch.get(error.getIndex()).get("_id"), error.getMessage()));
+
+      return e.getWriteResult().getModifiedCount();
+    }
+  }
+
+  /**
+   * Converts a legacy user document.
+   *
+   * @param legacy the legacy document
+   * @param id     the ID of the user
+   * @return the document in the current format
+   */
+  static Document convert(Document legacy, UUID id) {
+    Document converted = new Document("_id", id);
+
+    legacy.forEach((field, value) -> {
+      if (!"_id".equals(field) && !DROPPED_FIELDS.contains(field)) {
+        converted.append(RENAMED_FIELDS.getOrDefault(field, field), value);
+      }
+    });
+
+    if (converted.get(User.LOGIN_FIELD) instanceof String login) {
+      converted.append(User.LOGIN_KEY_FIELD, User.loginKeyOf(login));
+    }
+
+    return converted;
+  }
+
+  private void dropLegacyLoginIndex(MongoCollection<Document> users) {
+    for (Document index : users.listIndexes()) {
+      if (index.get("key") instanceof Document keys && keys.keySet().equals(Set.of("login"))) {
+        users.dropIndex(index.getString("name"));
+        log.info("Dropped the index {} on the legacy login field", index.getString("name"));
+      }
+    }
+  }
+}
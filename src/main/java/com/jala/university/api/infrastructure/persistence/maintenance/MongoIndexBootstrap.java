@@ -0,0 +1,156 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.jala.university.api.domain.entity.OutboxEmail;
+import com.jala.university.api.domain.entity.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates and verifies the indexes the repository queries rely on, before the application serves
+ * requests.
+ * <p>
+ * The indexes are declared with the mapping annotations of the entities: the unique index on
+ * {@code users.login} behind the lookups by login, the indexes of the tokens collection behind the
+ * sweeper and the TTL expiration, and the partial index on the pending emails of the outbox behind
+ * the claims of the email workers. Lookups by ID use the {@code _id} index. Missing indexes are
+ * created when enabled; an index whose keys exist with other options, or a missing index that isn't
+ * created, is drift. Drift is logged or, when configured, fails the startup, since the index can't
+ * be fixed without dropping it.
+ */
+@Slf4j
+@Component
+public class MongoIndexBootstrap implements SmartInitializingSingleton {
+
+  private static final List<Class<?>> INDEXED_ENTITIES = List.of(User.class, IdentityValidationToken.class,
+      OutboxEmail.class);
+  private static final List<String> COMPARED_OPTIONS = List.of("unique", "sparse", "expireAfterSeconds",
+      "partialFilterExpression");
+
+  /**
+   * What to do when the indexes drifted from the declared ones.
+   */
+  public enum DriftAction {
+    WARN,
+    FAIL
+  }
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean createMissing;
+  private final DriftAction driftAction;
+
+  /**
+   * Builds the bootstrap.
+   *
+   * @param mongoTemplate template used to read and create the indexes
+   * @param createMissing whether missing indexes are created
+   * @param driftAction   what to do when the indexes drifted
+   */
+  @Autowired
+  public MongoIndexBootstrap(MongoTemplate mongoTemplate,
+      @Value("${mongodb.indexes.create-missing:true}") boolean createMissing,
+      @Value("${mongodb.indexes.on-drift:warn}") DriftAction driftAction) {
+    this.mongoTemplate = mongoTemplate;
+    this.createMissing = createMissing;
+    this.driftAction = driftAction;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    List<String> drift;
+
+    try {
+      drift = bootstrap();
+    } catch (RuntimeException e) {
+      if (driftAction == DriftAction.FAIL) {
+        throw new IllegalStateException("The MongoDB indexes couldn't be verified", e);
+      }
+
+      log.warn("The MongoDB indexes couldn't be verified", e);
+      return;
+    }
+
+    if (drift.isEmpty()) {
+      return;
+    }
+
+    if (driftAction == DriftAction.FAIL) {
+      throw new IllegalStateException("The MongoDB indexes drifted: " + String.join("; ", drift));
+    }
+
+    drift.forEach(difference -> log.warn("MongoDB index drift: {}", difference));
+  }
+
+  /**
+   * Creates the missing indexes, if enabled, and compares the existing ones with the declared ones.
+   *
+   * @return a description of every difference left, empty if the indexes are the declared ones
+   */
+  public List<String> bootstrap() {
+    IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+    List<String> drift = new ArrayList<>();
+
+    for (Class<?> entity : INDEXED_ENTITIES) {
+      String collection = mongoTemplate.getCollectionName(entity);
+      List<Document> existing = mongoTemplate.getCollection(collection).listIndexes().into(new ArrayList<>());
+
+      for (IndexDefinition declared : resolver.resolveIndexFor(entity)) {
+        Optional<Document> index = existing.stream()
+            .filter(candidate -> sameKeys(declared.getIndexKeys(), candidate.get("key")))
+            .findFirst();
+
+        if (index.isEmpty() && createMissing) {
+          String name = mongoTemplate.indexOps(entity).ensureIndex(declared);
+          log.info("Created MongoDB index {} on {}", name, collection);
+        } else if (index.isEmpty()) {
+          drift.add("missing index " + declared.getIndexKeys().toJson() + " on " + collection);
+        } else {
+          differences(declared, index.get()).forEach(option -> drift.add("index "
+              + index.get().getString("name") + " on " + collection + " has a different " + option));
+        }
+      }
+    }
+
+    return drift;
+  }
+
+  private static boolean sameKeys(Document declared, Object existing) {
+    if (!(existing instanceof Document keys)
+        || !List.copyOf(declared.keySet()).equals(List.copyOf(keys.keySet()))) {
+      return false;
+    }
+
+    return declared.keySet().stream().allMatch(field -> sameOption(declared.get(field), keys.get(field)));
+  }
+
+  private static List<String> differences(IndexDefinition declared, Document existing) {
+    Document options = declared.getIndexOptions();
+
+    return COMPARED_OPTIONS.stream()
+        .filter(option -> !sameOption(options.get(option), existing.get(option)))
+        .toList();
+  }
+
+  private static boolean sameOption(Object declared, Object existing) {
+    if (declared instanceof Number declaredNumber && existing instanceof Number existingNumber) {
+      return declaredNumber.longValue() == existingNumber.longValue();
+    }
+
+    if (declared == null && Boolean.FALSE.equals(existing) || Boolean.FALSE.equals(declared) && existing == null) {
+      return true;
+    }
+
+    return Objects.equals(declared, existing);
+  }
+}
@@ -0,0 +1,158 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.repository.IdentityValidationTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the identity validation tokens that can't be used anymore, in small batches on a thread
+ * of its own: the sweep sleeps to pace itself, which would hold up every other task on the shared
+ * scheduler thread.
+ * <p>
+ * Expired tokens are deleted by the TTL index of the tokens collection, so only the verified ones
+ * are deleted here, found through a partial index. The tokens still embedded in legacy user
+ * documents are dropped by {@link LegacyUserMigration}.
+ * <p>
+ * Each run handles a bounded number of batches and waits between batches to stay under the
+ * configured documents per second, so the sweep never competes with request traffic for the
+ * database. Scanned documents, removed tokens and the time spent are published as metrics.
+ */
+@Slf4j
+@Component
+public class ValidationTokenSweeper {
+
+  private final IdentityValidationTokenRepository tokenRepository;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxBatchesPerRun;
+  private final double maxDocumentsPerSecond;
+  private final long initialDelayMillis;
+  private final long intervalMillis;
+  private final Counter scannedDocuments;
+  private final Counter removedVerifiedTokens;
+  private final Timer sweepTimer;
+
+  private ScheduledExecutorService executor;
+
+  /**
+   * Builds the sweeper.
+   *
+   * @param tokenRepository       repository of the tokens
+   * @param enabled               whether the sweeper runs
+   * @param batchSize             documents handled per database round trip
+   * @param maxBatchesPerRun      batches handled per run
+   * @param maxDocumentsPerSecond documents handled per second at most
+   * @param initialDelayMillis    milliseconds before the first run
+   * @param intervalMillis        milliseconds between the end of a run and the start of the next
+   * @param registry              registry where the metrics are published
+   */
+  @Autowired
+  public ValidationTokenSweeper(IdentityValidationTokenRepository tokenRepository,
+      @Value("${tokens.sweeper.enabled:true}") boolean enabled,
+      @Value("${tokens.sweeper.batch-size:500}") int batchSize,
+      @Value("${tokens.sweeper.max-batches-per-run:20}") int maxBatchesPerRun,
+      @Value("${tokens.sweeper.max-documents-per-second:1000}") double maxDocumentsPerSecond,
+      @Value("${tokens.sweeper.initial-delay-millis:60000}") long initialDelayMillis,
+      @Value("${tokens.sweeper.interval-millis:60000}") long intervalMillis,
+      MeterRegistry registry) {
+    this.tokenRepository = tokenRepository;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxBatchesPerRun = maxBatchesPerRun;
+    this.maxDocumentsPerSecond = maxDocumentsPerSecond;
+    this.initialDelayMillis = initialDelayMillis;
+    this.intervalMillis = intervalMillis;
+    this.scannedDocuments = Counter.builder("tokens.sweeper.documents.scanned")
+        .description("Documents read by the validation token sweeper")
+        .register(registry);
+    this.removedVerifiedTokens = Counter.builder("tokens.sweeper.tokens.removed")
+        .tag("source", "collection")
+        .register(registry);
+    this.sweepTimer = Timer.builder("tokens.sweeper.time")
+        .description("Time spent by a run of the validation token sweeper")
+        .register(registry);
+  }
+
+  /**
+   * Starts running the sweeps.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+
+    executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+        .name("validation-token-sweeper")
+        .daemon()
+        .factory());
+    executor.scheduleWithFixedDelay(this::sweep, initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops running the sweeps, interrupting the current one.
+   */
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs a sweep.
+   */
+  public void sweep() {
+    if (!enabled) {
+      return;
+    }
+
+    sweepTimer.record(() -> {
+      try {
+        removeVerifiedTokens(maxBatchesPerRun);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        log.warn("Validation token sweep failed, retrying on the next run", e);
+      }
+    });
+  }
+
+  private void removeVerifiedTokens(int maxBatches) throws InterruptedException {
+    for (int batches = 0; batches < maxBatches; batches++) {
+      long startedAt = System.nanoTime();
+      long deleted = tokenRepository.deleteVerified(batchSize);
+
+      scannedDocuments.increment(deleted);
+      removedVerifiedTokens.increment(deleted);
+
+      if (deleted < batchSize) {
+        return;
+      }
+
+      pace(deleted, startedAt);
+    }
+  }
+
+  /**
+   * Waits until handling the given documents took at least the time allowed by the throughput.
+   */
+  private void pace(long documents, long startedAt) throws InterruptedException {
+    long minimumNanos = (long) (documents * 1_000_000_000L / maxDocumentsPerSecond);
+    long remainingMillis = (minimumNanos - (System.nanoTime() - startedAt)) / 1_000_000;
+
+    if (remainingMillis > 0) {
+      Thread.sleep(remainingMillis);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package com.jala.university.api.infrastructure.persistence.outbox;
+
+import com.jala.university.api.application.service.EmailOutbox;
+import com.jala.university.api.application.service.EmailService;
+import com.jala.university.api.domain.entity.OutboxEmail;
+import com.jala.university.api.domain.repository.OutboxEmailRepository;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers the emails of the outbox on a dedicated pool, so no request waits for the mail server.
+ * <p>
+ * An email is recorded in the outbox already claimed by this node and handed to the pool right away;
+ * the emails due for a retry, or whose claim ran out because their node stopped, are claimed by the
+ * scheduled poll. A claim is a lease on the email: no other node delivers it until the lease ends.
+ * The lease is renewed when a thread picks the email up, so the time spent in the queue doesn't
+ * count against it; an email whose lease ran out in the queue was claimed again elsewhere and is
+ * dropped. Every write after the delivery only applies while the email is still held by the same
+ * claim. A delivered email is deleted. A failed one is attempted again after an exponential backoff
+ * with full jitter, and moved to the dead letters once it failed {@code maxAttempts} times; a dead
+ * letter keeps its recipient and error, not its body, for the retention period. An email
+ * can be delivered twice if its node stops between the delivery and the deletion.
+ * <p>
+ * At most {@code threads} emails are sent at once and at most {@code queueCapacity} wait; the poll
+ * only claims what fits in the queue, and an email that doesn't fit is left in the outbox. On
+ * shutdown the queue is drained for up to the drain timeout, the emails still waiting after that are
+ * given back to the outbox. Deliveries, retries, dead letters and the queue depth are published as
+ * metrics.
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker implements EmailOutbox, DisposableBean {
+
+  private final OutboxEmailRepository repository;
+  private final EmailService emailService;
+  private final ThreadPoolExecutor executor;
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final Duration lease;
+  private final Duration drainTimeout;
+  private final Duration deadLetterRetention;
+  private final Timer deliveryTimer;
+  private final Counter delivered;
+  private final Counter retried;
+  private final Counter deadLetters;
+  private final Counter lostClaims;
+
+  private volatile boolean stopped;
+
+  /**
+   * Builds the worker and its pool.
+   *
+   * @param repository               repository of the outbox
+   * @param emailService             service sending the emails
+   * @param threads                  number of emails sent at once
+   * @param queueCapacity            number of emails allowed to wait for a thread
+   * @param maxAttempts              attempts of an email before it is moved to the dead letters
+   * @param initialBackoffMillis     upper bound of the wait before the first retry
+   * @param maxBackoffMillis         upper bound of the wait before any retry
+   * @param leaseMillis              time a claimed email is reserved to this node
+   * @param drainTimeoutMillis       time given to the queued emails on shutdown
+   * @param deadLetterRetentionHours hours a dead letter is kept
+   * @param registry                 registry where the metrics are published
+   */
+  @Autowired
+  public EmailOutboxWorker(OutboxEmailRepository repository, EmailService emailService,
+      @Value("${emails.outbox.threads:4}") int threads,
+      @Value("${emails.outbox.queue-capacity:256}") int queueCapacity,
+      @Value("${emails.outbox.max-attempts:8}") int maxAttempts,
+      @Value("${emails.outbox.initial-backoff-millis:1000}") long initialBackoffMillis,
+      @Value("${emails.outbox.max-backoff-millis:600000}") long maxBackoffMillis,
+      @Value("${emails.outbox.lease-millis:120000}") long leaseMillis,
+      @Value("${emails.outbox.drain-timeout-millis:20000}") long drainTimeoutMillis,
+      @Value("${emails.outbox.dead-letter-retention-hours:168}") long deadLetterRetentionHours,
+      MeterRegistry registry) {
+    AtomicInteger threadCount = new AtomicInteger();
+
+    this.repository = repository;
+    this.emailService = emailService;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.lease = Duration.ofMillis(leaseMillis);
+    this.drainTimeout = Duration.ofMillis(drainTimeoutMillis);
+    this.deadLetterRetention = Duration.ofHours(deadLetterRetentionHours);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> Thread.ofPlatform()
+            .name("email-outbox-" + threadCount.incrementAndGet())
+            .daemon()
+            .unstarted(runnable),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.deliveryTimer = Timer.builder("emails.outbox.delivery.time")
+        .description("Time spent sending an email of the outbox")
+        .register(registry);
+    this.delivered = Counter.builder("emails.outbox.delivered")
+        .description("Emails of the outbox delivered")
+        .register(registry);
+    this.retried = Counter.builder("emails.outbox.retried")
+        .description("Failed emails of the outbox scheduled for another attempt")
+        .register(registry);
+    this.deadLetters = Counter.builder("emails.outbox.dead")
+        .description("Emails of the outbox moved to the dead letters")
+        .register(registry);
+    this.lostClaims = Counter.builder("emails.outbox.claims.lost")
+        .description("Queued emails dropped because their lease ran out and they were claimed again")
+        .register(registry);
+
+    Gauge.builder("emails.outbox.queue.depth", executor, pool -> pool.getQueue().size())
+        .register(registry);
+    Gauge.builder("emails.outbox.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+  }
+
+  @Override
+  public void enqueue(String to, String subject, String body) {
+    OutboxEmail email = OutboxEmail.builder()
+        .id(Uuids.timeOrdered())
+        .to(to)
+        .subject(subject)
+        .body(body)
+        .status(OutboxEmail.Status.PENDING)
+        .attempts(1)
+        .nextAttemptAt(LocalDateTime.now().plus(lease))
+        .build();
+
+    repository.insert(email);
+    dispatch(email);
+  }
+
+  /**
+   * Claims the due emails while the queue of the pool has room.
+   */
+  @Scheduled(initialDelayString = "${emails.outbox.poll-interval-millis:5000}",
+      fixedDelayString = "${emails.outbox.poll-interval-millis:5000}")
+  public void poll() {
+    try {
+      while (!stopped && executor.getQueue().remainingCapacity() > 0) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<OutboxEmail> email = repository.claimNext(now, now.plus(lease));
+
+        if (email.isEmpty() || !dispatch(email.get())) {
+          return;
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Email outbox poll failed, retrying on the next run", e);
+    }
+  }
+
+  /**
+   * Hands a claimed email to the pool, or gives it back to the outbox when the queue is full.
+   *
+   * @return whether the pool took the email
+   */
+  private boolean dispatch(OutboxEmail email) {
+    try {
+      executor.execute(new Delivery(email));
+      return true;
+    } catch (RejectedExecutionException e) {
+      release(List.of(email));
+      return false;
+    }
+  }
+
+  private void deliver(OutboxEmail email) {
+    if (!repository.renewLease(email.getId(), email.getAttempts(), LocalDateTime.now().plus(lease))) {
+      lostClaims.increment();
+      log.warn("Email {} was claimed again while it waited in the queue, dropped", email.getId());
+      return;
+    }
+
+    try {
+      deliveryTimer.recordCallable(() -> {
+        emailService.sendEmail(email.getTo(), email.getSubject(), email.getBody());
+        return null;
+      });
+    } catch (Exception e) {
+      failed(email, e);
+      return;
+    }
+
+    delivered.increment();
+    repository.deleteClaimed(email.getId(), email.getAttempts());
+  }
+
+  private void failed(OutboxEmail email, Exception cause) {
+    String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+
+    if (email.getAttempts() >= maxAttempts) {
+      deadLetters.increment();
+      repository.markDead(email.getId(), email.getAttempts(), error,
+          LocalDateTime.now().plus(deadLetterRetention));
+      log.error("Email {} moved to the dead letters after {} attempts", email.getId(), email.getAttempts(), cause);
+    } else {
+      retried.increment();
+      repository.reschedule(email.getId(), email.getAttempts(),
+          LocalDateTime.now().plus(backoff(email.getAttempts())), error);
+      log.warn("Email {} failed on attempt {}, retrying: {}", email.getId(), email.getAttempts(), error);
+    }
+  }
+
+  /**
+   * Picks the wait before the next attempt, at random up to a ceiling doubled on every attempt.
+   *
+   * @param attempts the attempts made so far
+   * @return the wait
+   */
+  Duration backoff(int attempts) {
+    long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 20));
+
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  private void release(List<OutboxEmail> emails) {
+    try {
+      LocalDateTime now = LocalDateTime.now();
+      emails.forEach(email -> repository.release(email.getId(), email.getAttempts(), now));
+    } catch (RuntimeException e) {
+      log.warn("{} emails couldn't be given back to the outbox, they are retried once their lease ends",
+          emails.size(), e);
+    }
+  }
+
+  /**
+   * Stops claiming emails and waits for the queued ones to be sent.
+   */
+  @Override
+  public void destroy() throws InterruptedException {
+    stopped = true;
+    executor.shutdown();
+
+    if (executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+      return;
+    }
+
+    List<OutboxEmail> waiting = executor.shutdownNow().stream()
+        .map(runnable -> ((Delivery) runnable).email())
+        .toList();
+
+    if (!waiting.isEmpty()) {
+      release(waiting);
+      log.warn("{} emails weren't sent before the shutdown, they were left in the outbox", waiting.size());
+    }
+  }
+
+  /**
+   * Delivery of an email, kept by the pool until a thread runs it.
+   */
+  private final class Delivery implements Runnable {
+
+    private final OutboxEmail email;
+
+    private Delivery(OutboxEmail email) {
+      this.email = email;
+    }
+
+    private OutboxEmail email() {
+      return email;
+    }
+
+    @Override
+    public void run() {
+      try {
+        deliver(email);
+      } catch (RuntimeException e) {
+        log.warn("The outbox couldn't be updated after an attempt of email {}, it is retried once its lease ends",
+            email.getId(), e);
+      }
+    }
+  }
+}
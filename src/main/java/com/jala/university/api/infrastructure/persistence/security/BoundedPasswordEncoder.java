@@ -0,0 +1,123 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.jala.university.api.domain.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs the password hashing of a delegate encoder on a dedicated pool with a bounded queue.
+ * <p>
+ * Hashing is CPU heavy, running it on the request threads lets a login burst starve every other
+ * endpoint. Here at most {@code threads} hashes run at once and at most {@code queueCapacity} wait;
+ * any further request is rejected right away with a {@link ServiceOverloadedException}, answered
+ * with a 503. The queue depth, the time spent waiting for a thread and the hashing time are
+ * published as metrics.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final Timer waitTimer;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter rejections;
+
+  /**
+   * Builds the hashing pool.
+   *
+   * @param delegate      encoder doing the hashing
+   * @param threads       number of hashes run at once
+   * @param queueCapacity number of hashes allowed to wait for a thread
+   * @param registry      registry where the metrics are published
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry registry) {
+    AtomicInteger threadCount = new AtomicInteger();
+
+    this.delegate = delegate;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> Thread.ofPlatform()
+            .name("password-hashing-" + threadCount.incrementAndGet())
+            .daemon()
+            .unstarted(runnable),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.waitTimer = Timer.builder("password.hashing.wait")
+        .description("Time a password hash waits for a hashing thread")
+        .register(registry);
+    this.encodeTimer = Timer.builder("password.hashing.time")
+        .tag("operation", "encode")
+        .register(registry);
+    this.matchesTimer = Timer.builder("password.hashing.time")
+        .tag("operation", "matches")
+        .register(registry);
+    this.rejections = Counter.builder("password.hashing.rejected")
+        .description("Password hashes rejected because the hashing queue was full")
+        .register(registry);
+
+    Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+        .register(registry);
+    Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T run(Timer hashTimer, Callable<T> hashing) {
+    long submittedAt = System.nanoTime();
+    Future<T> future;
+
+    try {
+      future = executor.submit(() -> {
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        return hashTimer.recordCallable(hashing);
+      });
+    } catch (RejectedExecutionException e) {
+      rejections.increment();
+      throw new ServiceOverloadedException("Too many credential requests, try again later");
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing a password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,154 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and verifies stateless identity tokens, used to validate an email or to reset a password.
+ * <p>
+ * A token is the URL-safe Base64 of a binary payload (format, purpose, expiration, principal version
+ * and user ID) followed by a dot and its HMAC-SHA256 signature, so issuing one needs no write and
+ * verifying one needs no read. The principal version of the user is the nonce: the operation that
+ * consumes a token must only apply if the version is still the one in the token, and must increment
+ * it, which makes every token single use and revokes older tokens of the same user.
+ * <p>
+ * The signing key is derived from the configured secret with a fixed label, so it never signs JWTs.
+ */
+@Component
+public class IdentityTokenSigner {
+
+  private static final byte FORMAT = 1;
+  private static final int HEADER_BYTES = 2 + Long.BYTES + Long.BYTES;
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final byte[] KEY_LABEL = "identity-tokens".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Operation a token can be used for.
+   */
+  public enum Purpose {
+    EMAIL_VALIDATION,
+    PASSWORD_RESET
+  }
+
+  /**
+   * Verified content of a token.
+   *
+   * @param userId           the ID of the owner
+   * @param purpose          the operation the token was issued for
+   * @param expiration       when the token expires
+   * @param principalVersion the principal version of the owner when the token was issued
+   */
+  public record Claims(String userId, Purpose purpose, Instant expiration, long principalVersion) {
+  }
+
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs;
+
+  /**
+   * Derives the signing key.
+   *
+   * @param secretKey the secret key in Base64 format
+   */
+  @Autowired
+  public IdentityTokenSigner(@Value("${security.identity-tokens.secret-key:${security.jwt.secret-key}}") String secretKey) {
+    SecretKeySpec secret = new SecretKeySpec(Base64.getDecoder().decode(secretKey), ALGORITHM);
+
+    this.key = new SecretKeySpec(newMac(secret).doFinal(KEY_LABEL), ALGORITHM);
+    this.macs = ThreadLocal.withInitial(() -> newMac(key));
+  }
+
+  /**
+   * Issues a token.
+   *
+   * @param claims the content of the token
+   * @return the signed token
+   */
+  public String sign(Claims claims) {
+    byte[] userId = claims.userId().getBytes(StandardCharsets.UTF_8);
+    byte[] payload = ByteBuffer.allocate(HEADER_BYTES + userId.length)
+        .put(FORMAT)
+        .put((byte) claims.purpose().ordinal())
+        .putLong(claims.expiration().getEpochSecond())
+        .putLong(claims.principalVersion())
+        .put(userId)
+        .array();
+
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    return encoder.encodeToString(payload) + "." + encoder.encodeToString(signature(payload));
+  }
+
+  /**
+   * Verifies the signature, purpose and expiration of a token.
+   *
+   * @param token   the token
+   * @param purpose the operation the token is used for
+   * @param now     the current time
+   * @return the content of the token, empty if it is malformed, tampered, issued for another
+   *     operation or expired
+   */
+  public Optional<Claims> verify(String token, Purpose purpose, Instant now) {
+    int separator = token != null ? token.indexOf('.') : -1;
+
+    if (separator < 0) {
+      return Optional.empty();
+    }
+
+    byte[] payload;
+    byte[] signature;
+
+    try {
+      Base64.Decoder decoder = Base64.getUrlDecoder();
+      payload = decoder.decode(token.substring(0, separator));
+      signature = decoder.decode(token.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+
+    if (payload.length <= HEADER_BYTES || !MessageDigest.isEqual(signature, signature(payload))) {
+      return Optional.empty();
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(payload);
+
+    if (buffer.get() != FORMAT || buffer.get() != purpose.ordinal()) {
+      return Optional.empty();
+    }
+
+    Instant expiration = Instant.ofEpochSecond(buffer.getLong());
+    long principalVersion = buffer.getLong();
+    String userId = new String(Arrays.copyOfRange(payload, HEADER_BYTES, payload.length), StandardCharsets.UTF_8);
+
+    if (!expiration.isAfter(now)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(new Claims(userId, purpose, expiration, principalVersion));
+  }
+
+  private byte[] signature(byte[] payload) {
+    return macs.get().doFinal(payload);
+  }
+
+  private static Mac newMac(SecretKeySpec key) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HMAC-SHA256 is not available", e);
+    }
+  }
+}
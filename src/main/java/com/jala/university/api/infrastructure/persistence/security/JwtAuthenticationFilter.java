@@ -20,18 +20,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+  private final JwtVerifier jwtVerifier;
   private final JwtTokenProvider jwtTokenProvider;
-  private final JwtTokenUtil jwtTokenUtil;
+  private final PrincipalVersionRegistry principalVersionRegistry;
   private final UserService userService;
-  private final PublicRoutesConfig publicRoutesConfig;
+  private final RouteTable routeTable;
 
   @Autowired
-  public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, JwtTokenUtil jwtTokenUtil,
-      @Lazy UserService userService, PublicRoutesConfig publicRoutesConfig) {
+  public JwtAuthenticationFilter(JwtVerifier jwtVerifier, JwtTokenProvider jwtTokenProvider,
+      PrincipalVersionRegistry principalVersionRegistry,
+      @Lazy UserService userService, RouteTable routeTable) {
+    this.jwtVerifier = jwtVerifier;
     this.jwtTokenProvider = jwtTokenProvider;
-    this.jwtTokenUtil = jwtTokenUtil;
+    this.principalVersionRegistry = principalVersionRegistry;
     this.userService = userService;
-    this.publicRoutesConfig = publicRoutesConfig;
+    this.routeTable = routeTable;
   }
 
   /**
@@ -48,10 +51,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   protected void doFilterInternal(HttpServletRequest request,
       HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
     String jwtToken = getTokenFromRequest(request);
-    String userId;
+    VerifiedJwt jwt;
 
     try {
-      userId = jwtTokenUtil.getUserIdFromToken(jwtToken);
+      jwt = jwtVerifier.verify(jwtToken);
     } catch (JwtException | IllegalArgumentException ex) {
       response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
       response.getWriter().write("Unauthorized: invalid or missing token");
@@ -59,22 +62,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       return;
     }
 
+    String userId = jwt.subject();
     var securityContext = SecurityContextHolder.getContext().getAuthentication();
 
     if (userId != null && securityContext == null) {
       try {
-        UserDto user = userService.getUserById(userId);
+        UserDto user = getPrincipalFromClaims(jwt);
 
-        if (jwtTokenProvider.validateToken(jwtToken, userId, jwtTokenUtil)) {
-          UsernamePasswordAuthenticationToken authToken =
-              new UsernamePasswordAuthenticationToken(user, null, null);
+        if (user == null) {
+          user = userService.getUserById(userId);
+        }
 
-          authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-          SecurityContextHolder.getContext().setAuthentication(authToken);
+        UsernamePasswordAuthenticationToken authToken =
+            new UsernamePasswordAuthenticationToken(user, null, null);
 
-          filterChain.doFilter(request, response);
-          return;
-        }
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+
+        filterChain.doFilter(request, response);
+        return;
       } catch (UserNotFoundException ignored) {
       }
     }
@@ -83,9 +89,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     response.getWriter().write("Unauthorized: invalid or missing token");
   }
 
+  /**
+   * Builds the principal from the claims of the token, without reading the database.
+   *
+   * @param jwt the verified token
+   * @return the principal, or null if the claims principal mode is disabled, the token doesn't carry
+   *     the principal claims or the user has changed since the token was issued
+   */
+  private UserDto getPrincipalFromClaims(VerifiedJwt jwt) {
+    if (!jwtTokenProvider.isClaimsPrincipalEnabled()
+        || !(jwt.claims().get(JwtTokenProvider.PRINCIPAL_VERSION_CLAIM) instanceof Number version)
+        || !principalVersionRegistry.isCurrent(jwt.subject(), version.longValue())) {
+      return null;
+    }
+
+    return UserDto.builder()
+        .id(jwt.subject())
+        .name((String) jwt.claims().get(JwtTokenProvider.NAME_CLAIM))
+        .email((String) jwt.claims().get(JwtTokenProvider.EMAIL_CLAIM))
+        .validated(Boolean.TRUE.equals(jwt.claims().get(JwtTokenProvider.VALIDATED_CLAIM)))
+        .principalVersion(version.longValue())
+        .build();
+  }
+
   @Override
   protected final boolean shouldNotFilter(HttpServletRequest request) {
-    return publicRoutesConfig.isRequestOnPublicRoute(request);
+    return routeTable.isPublic(request);
   }
 
   private String getTokenFromRequest(HttpServletRequest request) {
@@ -1,19 +1,35 @@
 package com.jala.university.api.infrastructure.persistence.security;
 
+import com.jala.university.api.application.dto.UserDto;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import java.security.Key;
 import java.util.Date;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String NAME_CLAIM = "name";
+    public static final String EMAIL_CLAIM = "email";
+    public static final String VALIDATED_CLAIM = "validated";
+    public static final String PRINCIPAL_VERSION_CLAIM = "ver";
+    public static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60;
+
     @Value("${security.jwt.secret-key}")
     private String secretKey;
 
-    private static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60;
+    /**
+     * When enabled, tokens carry the principal fields so authenticated requests don't need to load
+     * the user from the database.
+     */
+    @Getter
+    @Value("${security.jwt.claims-principal.enabled:false}")
+    private boolean claimsPrincipalEnabled;
+
     private static final int MILLISECONDS_IN_A_SECOND = 1000;
 
     /**
@@ -23,14 +39,39 @@ public class JwtTokenProvider {
      * @return the generated JWT token
      */
     public String generateToken(String userId) {
+        return tokenBuilder(userId).compact();
+    }
+
+    /**
+     * Generates a JWT token for the given user.
+     * <p>
+     * If the claims principal mode is enabled, the token also carries the name, email, validated
+     * flag and principal version of the user.
+     *
+     * @param user the authenticated user
+     * @return the generated JWT token
+     */
+    public String generateToken(UserDto user) {
+        JwtBuilder builder = tokenBuilder(user.getId());
+
+        if (claimsPrincipalEnabled) {
+            builder.claim(NAME_CLAIM, user.getName())
+                    .claim(EMAIL_CLAIM, user.getEmail())
+                    .claim(VALIDATED_CLAIM, user.isValidated())
+                    .claim(PRINCIPAL_VERSION_CLAIM, user.getPrincipalVersion());
+        }
+
+        return builder.compact();
+    }
+
+    private JwtBuilder tokenBuilder(String userId) {
         Key key = JwtKeyUtil.getKeyFromSecret(secretKey);
 
         return Jwts.builder()
                 .setSubject(userId)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY * MILLISECONDS_IN_A_SECOND))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+                .signWith(key, SignatureAlgorithm.HS512);
     }
 
   /**
@@ -46,4 +87,3 @@ public class JwtTokenProvider {
     return (tokenUserId.equals(userId) && !jwtTokenUtil.isTokenExpired(token));
   }
 }
-
@@ -0,0 +1,147 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies JWT tokens with a single signature check per token.
+ * <p>
+ * The signing key and the parser are built once. Tokens that were already verified are kept in a
+ * bounded cache, keyed by the SHA-256 digest of the token and evicted when the token expires, so
+ * repeated requests with the same bearer token skip the HMAC computation. A token is kept no longer
+ * than the lifetime of the tokens issued here, whatever expiration it claims.
+ */
+@Component
+public class JwtVerifier {
+
+  private static final Duration MAXIMUM_CACHE_TIME = Duration.ofSeconds(JwtTokenProvider.JWT_TOKEN_VALIDITY);
+
+  private final JwtParser parser;
+  private final Cache<String, VerifiedJwt> verifiedTokens;
+
+  /**
+   * Builds the signing key, the parser and the cache of verified tokens.
+   *
+   * @param secretKey        the secret key in Base64 format
+   * @param cacheMaximumSize maximum number of verified tokens kept in memory
+   */
+  @Autowired
+  public JwtVerifier(@Value("${security.jwt.secret-key}") String secretKey,
+      @Value("${security.jwt.verification-cache.maximum-size:10000}") long cacheMaximumSize) {
+    this.parser = Jwts.parserBuilder()
+        .setSigningKey(JwtKeyUtil.getKeyFromSecret(secretKey))
+        .build();
+    this.verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(cacheMaximumSize)
+        .expireAfter(new UntilTokenExpiration())
+        .build();
+  }
+
+  /**
+   * Verifies the signature and expiration of the given JWT token.
+   *
+   * @param token the JWT token
+   * @return the verified token
+   * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered or expired
+   * @throws IllegalArgumentException     if the token is null or empty
+   */
+  public VerifiedJwt verify(String token) {
+    if (token == null || token.isEmpty()) {
+      throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+    }
+
+    String digest = digest(token);
+    VerifiedJwt cached = verifiedTokens.getIfPresent(digest);
+
+    if (cached != null && !cached.isExpiredAt(Instant.now())) {
+      return cached;
+    }
+
+    VerifiedJwt verified = parse(token);
+
+    if (verified.expiration() != null) {
+      verifiedTokens.put(digest, verified);
+    }
+
+    return verified;
+  }
+
+  private VerifiedJwt parse(String token) {
+    Claims claims = parser.parseClaimsJws(token).getBody();
+
+    return new VerifiedJwt(
+        claims.getSubject(),
+        toInstant(claims.getIssuedAt()),
+        toInstant(claims.getExpiration()),
+        Map.copyOf(withoutNullValues(claims)));
+  }
+
+  private static Map<String, Object> withoutNullValues(Claims claims) {
+    Map<String, Object> values = new HashMap<>(claims);
+    values.values().removeIf(Objects::isNull);
+    return values;
+  }
+
+  private static Instant toInstant(Date date) {
+    return date == null ? null : date.toInstant();
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Expires each cached entry at the expiration instant of its token, or after the maximum cache
+   * time if that comes first. Instants are compared before converting to nanoseconds, which overflow
+   * past about 292 years.
+   */
+  private static final class UntilTokenExpiration implements Expiry<String, VerifiedJwt> {
+
+    @Override
+    public long expireAfterCreate(String key, VerifiedJwt value, long currentTime) {
+      Instant now = Instant.now();
+
+      if (!value.expiration().isAfter(now)) {
+        return 0;
+      }
+
+      if (value.expiration().isAfter(now.plus(MAXIMUM_CACHE_TIME))) {
+        return MAXIMUM_CACHE_TIME.toNanos();
+      }
+
+      return Duration.between(now, value.expiration()).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
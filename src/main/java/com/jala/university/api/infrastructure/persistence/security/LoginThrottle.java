@@ -0,0 +1,359 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the login attempts per login and per client IP before any database read or password hash.
+ * <p>
+ * Every key has a token bucket: an attempt takes a token and tokens refill at a fixed rate up to a
+ * burst. After some failed attempts in a row the key is blocked for a time that doubles with every
+ * new failure; a successful login clears the failures of the login.
+ * <p>
+ * Keys are kept as seeded 64-bit hashes in fixed-size open addressing tables split in stripes, each
+ * guarded by its own lock, so memory doesn't grow with the number of distinct logins or addresses.
+ * Entries idle for longer than the idle time are reused, and when a probe window is full the least
+ * recently used entry that isn't blocked is replaced. A blocked entry is never replaced, so spraying
+ * distinct keys can't reset a backoff. A new key whose probe window only holds blocked entries has no
+ * history to hold against it: its attempts are let through untracked, and counted, rather than
+ * locking out every key that hashes to that window.
+ * <p>
+ * The client IP is checked before the login, so attempts refused for their IP don't take the place of
+ * other logins.
+ */
+@Component
+public class LoginThrottle {
+
+  private static final int STRIPES = 64;
+  private static final int MAX_PROBES = 8;
+  private static final long LOGIN_KIND = 0x4c4f47494eL;
+  private static final long IP_KIND = 0x4950L;
+
+  /**
+   * Token bucket settings of a kind of key.
+   *
+   * @param burst           maximum number of attempts in a row
+   * @param refillPerMinute attempts regained per minute
+   */
+  public record Limit(int burst, double refillPerMinute) {
+
+    double refillPerMilli() {
+      return refillPerMinute / 60_000;
+    }
+  }
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final long seed = new SecureRandom().nextLong();
+  private final Limit loginLimit;
+  private final Limit ipLimit;
+  private final int failuresBeforeBackoff;
+  private final long backoffBaseMillis;
+  private final long backoffMaxMillis;
+  private final long idleMillis;
+  private final LongSupplier clock;
+  private final Counter untrackedLogins;
+  private final Counter untrackedIps;
+
+  /**
+   * Builds the throttle.
+   *
+   * @param capacity              maximum number of keys kept in memory
+   * @param loginBurst            attempts in a row allowed per login
+   * @param loginRefillPerMinute  attempts regained per minute per login
+   * @param ipBurst               attempts in a row allowed per client IP
+   * @param ipRefillPerMinute     attempts regained per minute per client IP
+   * @param failuresBeforeBackoff failed attempts in a row before a key is blocked
+   * @param backoffBaseMillis     time a key is blocked after the first failure over the threshold
+   * @param backoffMaxMillis      maximum time a key is blocked
+   * @param idleMinutes           minutes without attempts after which a key is forgotten
+   * @param registry              registry where the untracked attempts are counted
+   */
+  @Autowired
+  public LoginThrottle(@Value("${security.login-throttle.capacity:262144}") int capacity,
+      @Value("${security.login-throttle.login.burst:10}") int loginBurst,
+      @Value("${security.login-throttle.login.refill-per-minute:10}") double loginRefillPerMinute,
+      @Value("${security.login-throttle.ip.burst:100}") int ipBurst,
+      @Value("${security.login-throttle.ip.refill-per-minute:100}") double ipRefillPerMinute,
+      @Value("${security.login-throttle.failures-before-backoff:5}") int failuresBeforeBackoff,
+      @Value("${security.login-throttle.backoff-base-millis:1000}") long backoffBaseMillis,
+      @Value("${security.login-throttle.backoff-max-millis:900000}") long backoffMaxMillis,
+      @Value("${security.login-throttle.idle-minutes:60}") long idleMinutes,
+      MeterRegistry registry) {
+    this(capacity, new Limit(loginBurst, loginRefillPerMinute), new Limit(ipBurst, ipRefillPerMinute),
+        failuresBeforeBackoff, backoffBaseMillis, backoffMaxMillis, idleMinutes * 60_000, registry,
+        System::currentTimeMillis);
+  }
+
+  LoginThrottle(int capacity, Limit loginLimit, Limit ipLimit, int failuresBeforeBackoff,
+      long backoffBaseMillis, long backoffMaxMillis, long idleMillis, MeterRegistry registry,
+      LongSupplier clock) {
+    int stripeCapacity = Integer.highestOneBit(Math.max(MAX_PROBES, capacity / STRIPES - 1) << 1);
+
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(stripeCapacity);
+    }
+
+    this.loginLimit = loginLimit;
+    this.ipLimit = ipLimit;
+    this.failuresBeforeBackoff = failuresBeforeBackoff;
+    this.backoffBaseMillis = backoffBaseMillis;
+    this.backoffMaxMillis = backoffMaxMillis;
+    this.idleMillis = idleMillis;
+    this.clock = clock;
+    this.untrackedLogins = untrackedCounter("login", registry);
+    this.untrackedIps = untrackedCounter("ip", registry);
+  }
+
+  private static Counter untrackedCounter(String kind, MeterRegistry registry) {
+    return Counter.builder("login.throttle.untracked")
+        .description("Attempts let through because every entry of the probe window of their key was blocked")
+        .tag("key", kind)
+        .register(registry);
+  }
+
+  /**
+   * Takes an attempt for the login and the client IP.
+   *
+   * @param login    the login being authenticated
+   * @param clientIp the address of the client
+   * @return 0 if the attempt is allowed, otherwise the milliseconds to wait before trying again
+   */
+  public long tryAcquire(String login, String clientIp) {
+    long now = clock.getAsLong();
+    long loginKey = hash(LOGIN_KIND, normalize(login));
+    long ipKey = hash(IP_KIND, clientIp);
+
+    long ipWait = acquire(ipKey, ipLimit, untrackedIps, now);
+
+    if (ipWait > 0) {
+      return ipWait;
+    }
+
+    return acquire(loginKey, loginLimit, untrackedLogins, now);
+  }
+
+  private long acquire(long key, Limit limit, Counter untracked, long now) {
+    long wait = stripeFor(key).acquire(key, limit, now);
+
+    if (wait < 0) {
+      untracked.increment();
+      return 0;
+    }
+
+    return wait;
+  }
+
+  /**
+   * Registers a failed attempt for the login and the client IP.
+   *
+   * @param login    the login being authenticated
+   * @param clientIp the address of the client
+   */
+  public void recordFailure(String login, String clientIp) {
+    long now = clock.getAsLong();
+    long loginKey = hash(LOGIN_KIND, normalize(login));
+    long ipKey = hash(IP_KIND, clientIp);
+
+    stripeFor(loginKey).fail(loginKey, loginLimit, now);
+    stripeFor(ipKey).fail(ipKey, ipLimit, now);
+  }
+
+  /**
+   * Registers a successful attempt, clearing the failures of the login. The failures of the client
+   * IP are kept, a credential stuffing client also succeeds from time to time.
+   *
+   * @param login the authenticated login
+   */
+  public void recordSuccess(String login) {
+    long loginKey = hash(LOGIN_KIND, normalize(login));
+
+    stripeFor(loginKey).succeed(loginKey);
+  }
+
+  private Stripe stripeFor(long key) {
+    return stripes[(int) (key >>> 58)];
+  }
+
+  private static String normalize(String login) {
+    return login == null ? "" : login.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private long hash(long kind, String value) {
+    long hash = seed ^ kind;
+
+    for (byte b : (value == null ? "" : value).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+
+    return hash == 0 ? 1 : hash;
+  }
+
+  /**
+   * Open addressing table of keys, with the state of each key kept in parallel primitive arrays.
+   */
+  private final class Stripe {
+
+    private final long[] keys;
+    private final long[] touchedAt;
+    private final long[] blockedUntil;
+    private final float[] tokens;
+    private final byte[] failures;
+    private final int mask;
+
+    Stripe(int capacity) {
+      keys = new long[capacity];
+      touchedAt = new long[capacity];
+      blockedUntil = new long[capacity];
+      tokens = new float[capacity];
+      failures = new byte[capacity];
+      mask = capacity - 1;
+    }
+
+    /**
+     * Takes a token for a key.
+     *
+     * @return 0 if allowed, the milliseconds to wait otherwise, -1 if the key can't be tracked
+     */
+    synchronized long acquire(long key, Limit limit, long now) {
+      int slot = slotFor(key, limit, now);
+
+      if (slot < 0) {
+        return -1;
+      }
+
+      if (blockedUntil[slot] > now) {
+        return blockedUntil[slot] - now;
+      }
+
+      if (tokens[slot] < 1) {
+        return Math.max(1, (long) Math.ceil((1 - tokens[slot]) / limit.refillPerMilli()));
+      }
+
+      tokens[slot] -= 1;
+
+      return 0;
+    }
+
+    synchronized void fail(long key, Limit limit, long now) {
+      int slot = slotFor(key, limit, now);
+
+      if (slot < 0) {
+        return;
+      }
+
+      if (failures[slot] < Byte.MAX_VALUE) {
+        failures[slot]++;
+      }
+
+      int overThreshold = failures[slot] - failuresBeforeBackoff;
+
+      if (overThreshold >= 0) {
+        long backoff = backoffBaseMillis << Math.min(overThreshold, 30);
+        blockedUntil[slot] = now + Math.min(backoff, backoffMaxMillis);
+      }
+    }
+
+    synchronized void succeed(long key) {
+      int slot = find(key);
+
+      if (slot >= 0) {
+        failures[slot] = 0;
+        blockedUntil[slot] = 0;
+      }
+    }
+
+    /**
+     * Finds the slot of a key, claiming one if the key isn't stored, and refills its tokens.
+     *
+     * @return the slot, -1 if the key isn't stored and every slot of its probe window is blocked
+     */
+    private int slotFor(long key, Limit limit, long now) {
+      int slot = find(key);
+
+      if (slot >= 0 && !isIdle(slot, now)) {
+        double refilled = tokens[slot] + (now - touchedAt[slot]) * limit.refillPerMilli();
+        tokens[slot] = (float) Math.min(limit.burst(), refilled);
+        touchedAt[slot] = now;
+
+        return slot;
+      }
+
+      if (slot < 0) {
+        slot = claim(key, now);
+      }
+
+      if (slot < 0) {
+        return -1;
+      }
+
+      keys[slot] = key;
+      touchedAt[slot] = now;
+      blockedUntil[slot] = 0;
+      tokens[slot] = limit.burst();
+      failures[slot] = 0;
+
+      return slot;
+    }
+
+    private int find(long key) {
+      int index = (int) key & mask;
+
+      for (int probe = 0; probe < MAX_PROBES; probe++) {
+        int slot = (index + probe) & mask;
+
+        if (keys[slot] == key) {
+          return slot;
+        }
+
+        if (keys[slot] == 0) {
+          return -1;
+        }
+      }
+
+      return -1;
+    }
+
+    /**
+     * Claims the first empty or idle slot of the probe window, or the least recently used one that
+     * isn't blocked.
+     *
+     * @return the slot, -1 if every slot of the probe window is blocked
+     */
+    private int claim(long key, long now) {
+      int index = (int) key & mask;
+      int oldest = -1;
+
+      for (int probe = 0; probe < MAX_PROBES; probe++) {
+        int slot = (index + probe) & mask;
+
+        if (keys[slot] == 0 || isIdle(slot, now)) {
+          return slot;
+        }
+
+        if (blockedUntil[slot] <= now && (oldest < 0 || touchedAt[slot] < touchedAt[oldest])) {
+          oldest = slot;
+        }
+      }
+
+      return oldest;
+    }
+
+    private boolean isIdle(int slot, long now) {
+      return now - touchedAt[slot] > idleMillis && blockedUntil[slot] <= now;
+    }
+  }
+}
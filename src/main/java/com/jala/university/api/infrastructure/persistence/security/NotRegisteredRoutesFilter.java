@@ -8,37 +8,23 @@ import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.servlet.HandlerExecutionChain;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @Component
 public final class NotRegisteredRoutesFilter extends OncePerRequestFilter {
-  private final RequestMappingHandlerMapping requestMappingHandlerMapping;
+  private final RouteTable routeTable;
 
   @Autowired
-  public NotRegisteredRoutesFilter(RequestMappingHandlerMapping requestMappingHandlerMapping) {
-    this.requestMappingHandlerMapping = requestMappingHandlerMapping;
+  public NotRegisteredRoutesFilter(RouteTable routeTable) {
+    this.routeTable = routeTable;
   }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
       FilterChain filterChain) throws ServletException, IOException {
-    if (request.getRequestURI().startsWith("/swagger")) {
-      filterChain.doFilter(request, response);
-    }
-
-    try {
-      HandlerExecutionChain handler = requestMappingHandlerMapping.getHandler(request);
-
-      if (handler == null) {
-        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-        response.getWriter().write("Route not found");
-
-        return;
-      }
-    } catch (Exception e) {
+    if (routeTable.resolve(request) == RouteTable.Route.UNREGISTERED) {
       response.setStatus(HttpServletResponse.SC_NOT_FOUND);
       response.getWriter().write("Route not found");
+
       return;
     }
 
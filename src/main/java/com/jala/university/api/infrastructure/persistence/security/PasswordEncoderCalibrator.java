@@ -0,0 +1,67 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class PasswordEncoderCalibrator {
+
+  public static final String BCRYPT_ID = "bcrypt";
+
+  private static final int SAMPLES = 3;
+
+  /**
+   * Finds the highest BCrypt strength whose hash time stays under the target on this machine.
+   * <p>
+   * The hash time is measured once at the minimum strength and doubled for every extra round, as
+   * each BCrypt strength doubles the work.
+   *
+   * @param target      the expected time of a single hash
+   * @param minStrength lowest strength accepted, even if it's slower than the target
+   * @param maxStrength highest strength accepted
+   * @return the BCrypt strength to use
+   */
+  public static int calibrateBcryptStrength(Duration target, int minStrength, int maxStrength) {
+    long hashNanos = measureBcrypt(minStrength);
+    int strength = minStrength;
+
+    while (strength < maxStrength && hashNanos * 2 <= target.toNanos()) {
+      hashNanos *= 2;
+      strength++;
+    }
+
+    return strength;
+  }
+
+  /**
+   * Builds an encoder that stores hashes with their algorithm, as {@code {bcrypt}$2a$12$...}.
+   * Hashes stored without an algorithm are matched as BCrypt of any strength.
+   *
+   * @param strength the BCrypt strength of new hashes
+   * @return the encoder
+   */
+  public static PasswordEncoder delegatingEncoder(int strength) {
+    DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID,
+        Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength)));
+    encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+    return encoder;
+  }
+
+  private static long measureBcrypt(int strength) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+    long best = Long.MAX_VALUE;
+
+    encoder.encode("calibration");
+
+    for (int i = 0; i < SAMPLES; i++) {
+      long start = System.nanoTime();
+      encoder.encode("calibration");
+      best = Math.min(best, System.nanoTime() - start);
+    }
+
+    return best;
+  }
+}
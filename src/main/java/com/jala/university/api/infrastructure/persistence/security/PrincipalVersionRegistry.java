@@ -0,0 +1,78 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangeListener;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the latest principal version known for the users changed recently.
+ * <p>
+ * A token built with an older principal version than the one registered here is stale: its claims
+ * can't be trusted and the user must be loaded from the database. Entries are kept as long as a
+ * token can live, after that every token issued before the change has already expired. When changes
+ * may have been missed no token is trusted for as long, every user is loaded again.
+ */
+@Component
+public class PrincipalVersionRegistry implements UserChangeListener {
+
+  private static final long REVOKED = Long.MAX_VALUE;
+
+  private final Cache<String, Long> versions = Caffeine.newBuilder()
+      .expireAfterWrite(Duration.ofSeconds(JwtTokenProvider.JWT_TOKEN_VALIDITY))
+      .build();
+
+  private volatile long distrustedUntil;
+
+  /**
+   * Registers the principal version of a user after it has changed.
+   *
+   * @param userId           the ID of the changed user
+   * @param principalVersion the new principal version of the user
+   */
+  public void recordChange(String userId, long principalVersion) {
+    versions.asMap().merge(userId, principalVersion, Math::max);
+  }
+
+  /**
+   * Marks every token of a user as stale, for example after the user has been deleted.
+   *
+   * @param userId the ID of the user
+   */
+  public void revoke(String userId) {
+    versions.put(userId, REVOKED);
+  }
+
+  /**
+   * Checks if the claims of a token built with the given principal version are still current.
+   *
+   * @param userId           the ID of the user owning the token
+   * @param principalVersion the principal version carried by the token
+   * @return true if no newer version of the user is known, false otherwise
+   */
+  public boolean isCurrent(String userId, long principalVersion) {
+    if (System.currentTimeMillis() < distrustedUntil) {
+      return false;
+    }
+
+    Long latest = versions.getIfPresent(userId);
+    return latest == null || (latest != REVOKED && principalVersion >= latest);
+  }
+
+  @Override
+  public void onChangesMissed() {
+    distrustedUntil = System.currentTimeMillis() + JwtTokenProvider.JWT_TOKEN_VALIDITY * 1000;
+  }
+
+  @Override
+  public void onUserChanged(UserChangedEvent event) {
+    switch (event.type()) {
+      case DELETED -> revoke(event.userId());
+      case UPDATED -> recordChange(event.userId(), event.principalVersion());
+      default -> {
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.jala.university.api.domain.entity.User;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Holds the user resolved while handling the current request.
+ * <p>
+ * The user is loaded once, by the first filter or service that needs it, and stored as a request
+ * attribute so the authorization filter, the controller and the services reuse it instead of reading
+ * the database again. Outside a request nothing is stored.
+ */
+@Component
+public class RequestUserContext {
+
+  public static final String USER_ATTRIBUTE = RequestUserContext.class.getName() + ".USER";
+
+  /**
+   * Searches the user resolved for the current request.
+   *
+   * @param userId the ID of the user
+   * @return the user if it was already resolved on this request, empty otherwise
+   */
+  public Optional<User> find(String userId) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (attributes != null
+        && attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user
+        && user.getId() != null && user.getId().toString().equals(userId)) {
+      return Optional.of(user);
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Stores the user resolved for the current request.
+   *
+   * @param user the resolved user
+   */
+  public void store(User user) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (attributes != null) {
+      attributes.setAttribute(USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+}
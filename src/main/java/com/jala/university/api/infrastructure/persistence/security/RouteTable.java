@@ -0,0 +1,143 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Decides in a single pass if a request goes to a public route, a protected route or a route that
+ * is not registered.
+ * <p>
+ * The patterns of every request mapping and every public route are compiled once at startup. The
+ * decision is stored as a request attribute, so every filter and the security rules reuse it.
+ */
+@Component
+public class RouteTable {
+
+  public static final String ROUTE_ATTRIBUTE = RouteTable.class.getName() + ".ROUTE";
+
+  /**
+   * Kind of route a request goes to.
+   */
+  public enum Route {
+    PUBLIC,
+    PROTECTED,
+    UNREGISTERED
+  }
+
+  private final List<CompiledRoute> registeredRoutes = new ArrayList<>();
+  private final List<PathPattern> publicRoutes = new ArrayList<>();
+
+  /**
+   * Compiles the registered and public routes.
+   *
+   * @param handlerMappings    handler mappings holding the registered routes
+   * @param publicRoutesConfig contains public routes URIs
+   */
+  @Autowired
+  public RouteTable(List<RequestMappingInfoHandlerMapping> handlerMappings, PublicRoutesConfig publicRoutesConfig) {
+    PathPatternParser parser = PathPatternParser.defaultInstance;
+
+    handlerMappings.forEach(handlerMapping -> handlerMapping.getHandlerMethods().keySet()
+        .forEach(info -> getPatterns(info, parser)
+            .forEach(pattern -> registeredRoutes.add(
+                new CompiledRoute(pattern, info.getMethodsCondition().getMethods())))));
+
+    publicRoutesConfig.getPublicRoutesStrings().stream()
+        .map(String::trim)
+        .filter(route -> !route.isEmpty())
+        .map(parser::parse)
+        .forEach(publicRoutes::add);
+  }
+
+  /**
+   * Resolves the route of the request, reusing the decision if it was already made.
+   *
+   * @param request the HTTP request
+   * @return the route of the request
+   */
+  public Route resolve(HttpServletRequest request) {
+    if (request.getAttribute(ROUTE_ATTRIBUTE) instanceof Route route) {
+      return route;
+    }
+
+    Route route = match(request);
+    request.setAttribute(ROUTE_ATTRIBUTE, route);
+
+    return route;
+  }
+
+  /**
+   * Checks if the request goes to a public route.
+   *
+   * @param request the HTTP request
+   * @return true if the route is public, false otherwise
+   */
+  public boolean isPublic(HttpServletRequest request) {
+    return resolve(request) == Route.PUBLIC;
+  }
+
+  private Route match(HttpServletRequest request) {
+    PathContainer path = getPath(request);
+    RequestMethod method = RequestMethod.resolve(request.getMethod());
+    boolean registered = false;
+    boolean pathRegistered = false;
+
+    for (CompiledRoute route : registeredRoutes) {
+      if (route.pattern().matches(path)) {
+        pathRegistered = true;
+
+        if (route.accepts(method)) {
+          registered = true;
+          break;
+        }
+      }
+    }
+
+    boolean isPublic = publicRoutes.stream().anyMatch(pattern -> pattern.matches(path));
+
+    if (registered) {
+      return isPublic ? Route.PUBLIC : Route.PROTECTED;
+    }
+
+    return isPublic && !pathRegistered ? Route.PUBLIC : Route.UNREGISTERED;
+  }
+
+  private PathContainer getPath(HttpServletRequest request) {
+    return RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
+  }
+
+  private static Set<PathPattern> getPatterns(RequestMappingInfo info, PathPatternParser parser) {
+    if (info.getPathPatternsCondition() != null) {
+      return info.getPathPatternsCondition().getPatterns();
+    }
+
+    return info.getPatternValues().stream()
+        .map(parser::parse)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Pattern of a request mapping with the HTTP methods it accepts; no methods means any method.
+   */
+  private record CompiledRoute(PathPattern pattern, Set<RequestMethod> methods) {
+
+    boolean accepts(RequestMethod method) {
+      return methods.isEmpty()
+          || method == RequestMethod.OPTIONS
+          || methods.contains(method)
+          || (method == RequestMethod.HEAD && methods.contains(RequestMethod.GET));
+    }
+  }
+}
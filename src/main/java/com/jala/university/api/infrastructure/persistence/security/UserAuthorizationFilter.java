@@ -1,37 +1,54 @@
 package com.jala.university.api.infrastructure.persistence.security;
 
 import com.jala.university.api.application.dto.UserDto;
+import com.jala.university.api.application.service.UserService;
+import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
 import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
+/**
+ * Only lets the authenticated user reach the routes of their own user, {@code /users/{id}} and below.
+ * Other routes aren't checked.
+ */
 @Component
 public final class UserAuthorizationFilter extends OncePerRequestFilter {
 
-  private final PublicRoutesConfig publicRoutesConfig;
+  private static final PathPattern USER_ROUTE = PathPatternParser.defaultInstance.parse("/users/{id}/**");
+
+  private final RouteTable routeTable;
   private final UserRepository userRepository;
+  private final UserService userService;
 
   @Autowired
-  public UserAuthorizationFilter(PublicRoutesConfig publicRoutesConfig, UserRepository userRepository) {
-    this.publicRoutesConfig = publicRoutesConfig;
+  public UserAuthorizationFilter(RouteTable routeTable, UserRepository userRepository,
+                                 @Lazy UserService userService) {
+    this.routeTable = routeTable;
     this.userRepository = userRepository;
+    this.userService = userService;
   }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
     String userIdOnJwt = getIdFromJwtOnSecurityContext();
-    String userIdOnUri = getUserIdFromUri(request.getRequestURI());
+    String userIdOnUri = getUserIdFromUri(request);
 
-    if (userIdOnJwt == null || !userRepository.existsById(userIdOnUri)) {
+    if (userIdOnJwt == null || !userExists(userIdOnJwt, userIdOnUri)) {
       response.setStatus(HttpServletResponse.SC_NOT_FOUND);
       response.getWriter().write("User not found");
       return;
@@ -43,10 +60,33 @@ public final class UserAuthorizationFilter extends OncePerRequestFilter {
       return;
     }
 
-
     filterChain.doFilter(request, response);
   }
 
+  /**
+   * Checks if the user on the URI exists.
+   * <p>
+   * When the URI points to the authenticated user, the user is resolved through the service so it
+   * stays on the request for the controller; usually it was already loaded by the authentication
+   * filter and no query is made. Otherwise only the existence is checked.
+   *
+   * @param userIdOnJwt ID of the authenticated user
+   * @param userIdOnUri ID of the user on the URI
+   * @return true if the user on the URI exists, false otherwise
+   */
+  private boolean userExists(String userIdOnJwt, String userIdOnUri) {
+    if (!userIdOnJwt.equals(userIdOnUri)) {
+      return Uuids.parse(userIdOnUri).map(userRepository::existsById).orElse(false);
+    }
+
+    try {
+      userService.getUserById(userIdOnUri);
+      return true;
+    } catch (UserNotFoundException e) {
+      return false;
+    }
+  }
+
   private String getIdFromJwtOnSecurityContext() {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -57,12 +97,18 @@ public final class UserAuthorizationFilter extends OncePerRequestFilter {
     return null;
   }
 
-  private String getUserIdFromUri(String uri) {
-    return uri.split("/")[2];
+  private String getUserIdFromUri(HttpServletRequest request) {
+    PathPattern.PathMatchInfo match = USER_ROUTE.matchAndExtract(getPath(request));
+
+    return match != null ? match.getUriVariables().get("id") : null;
+  }
+
+  private static PathContainer getPath(HttpServletRequest request) {
+    return RequestPath.parse(request.getRequestURI(), request.getContextPath()).pathWithinApplication();
   }
 
   @Override
   protected boolean shouldNotFilter(HttpServletRequest request) {
-    return publicRoutesConfig.isRequestOnPublicRoute(request);
+    return routeTable.isPublic(request) || !USER_ROUTE.matches(getPath(request));
   }
 }
@@ -0,0 +1,25 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable result of a successful JWT signature check.
+ *
+ * @param subject    the subject of the token (the user ID)
+ * @param issuedAt   when the token was issued, or null if the claim is absent
+ * @param expiration when the token expires, or null if the claim is absent
+ * @param claims     read-only view of every claim carried by the token
+ */
+public record VerifiedJwt(String subject, Instant issuedAt, Instant expiration, Map<String, Object> claims) {
+
+  /**
+   * Checks if the token is expired at the given instant.
+   *
+   * @param now the instant to compare against
+   * @return true if the token has an expiration and it is not after now, false otherwise
+   */
+  public boolean isExpiredAt(Instant now) {
+    return expiration != null && !expiration.isAfter(now);
+  }
+}
@@ -0,0 +1,56 @@
+package com.jala.university.api.infrastructure.persistence.utils;
+
+import com.jala.university.api.infrastructure.persistence.codec.IdentityValidationTokenCodec;
+import com.jala.university.api.infrastructure.persistence.codec.UserCodec;
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Configures how the entities are written to and read from MongoDB.
+ */
+@Configuration
+public class MongoConfig {
+
+  /**
+   * Builds the converter between the entities and the stored documents, as Spring Boot does, but
+   * without the {@code _class} field: no collection stores more than one type, so the field would
+   * only repeat the class name in every document.
+   *
+   * @param factory     the database factory
+   * @param context     the mapping context of the entities
+   * @param conversions the custom conversions
+   * @return the converter
+   */
+  @Bean
+  public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory factory, MongoMappingContext context,
+      MongoCustomConversions conversions) {
+    MappingMongoConverter converter = new MappingMongoConverter(new DefaultDbRefResolver(factory), context);
+    converter.setCustomConversions(conversions);
+    converter.setCodecRegistryProvider(factory);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+
+    return converter;
+  }
+
+  /**
+   * Registers the codecs of the entities with the driver, so the data-access objects of the hot paths
+   * decode the documents straight into entities.
+   *
+   * @return the customizer of the client settings
+   */
+  @Bean
+  public MongoClientSettingsBuilderCustomizer entityCodecs() {
+    return settings -> settings.codecRegistry(CodecRegistries.fromRegistries(
+        CodecRegistries.fromCodecs(new UserCodec(), new IdentityValidationTokenCodec()),
+        MongoClientSettings.getDefaultCodecRegistry()));
+  }
+}
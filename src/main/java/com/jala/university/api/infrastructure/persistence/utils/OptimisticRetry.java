@@ -0,0 +1,110 @@
+package com.jala.university.api.infrastructure.persistence.utils;
+
+import com.jala.university.api.domain.exceptions.ConcurrentUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retries a conditional write that lost against a concurrent write on the same document.
+ * <p>
+ * Each attempt reads what it needs, computes the change and applies it only if the document still
+ * has the version it read, answering empty when it didn't. Failed attempts are retried after an
+ * exponential backoff with full jitter, so writers colliding on the same document spread out; after
+ * the last attempt a {@link ConcurrentUpdateException} is thrown, answered with a 409.
+ */
+@Component
+public class OptimisticRetry {
+
+  /**
+   * Attempt of a conditional write.
+   *
+   * @param <T> type of the written value
+   * @param <E> type of the exception thrown by the attempt
+   */
+  @FunctionalInterface
+  public interface Attempt<T, E extends Exception> {
+
+    /**
+     * Applies the write.
+     *
+     * @param attempt number of the attempt, starting at 0
+     * @return the written value, empty if the document changed since it was read
+     * @throws E if the write must not be retried
+     */
+    Optional<T> apply(int attempt) throws E;
+  }
+
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final Counter conflicts;
+  private final Counter exhausted;
+
+  /**
+   * Builds the retry policy.
+   *
+   * @param maxAttempts          attempts made before giving up
+   * @param initialBackoffMillis maximum wait before the first retry
+   * @param maxBackoffMillis     maximum wait before any retry
+   * @param registry             registry where the metrics are published
+   */
+  @Autowired
+  public OptimisticRetry(@Value("${users.optimistic-retry.max-attempts:5}") int maxAttempts,
+      @Value("${users.optimistic-retry.initial-backoff-millis:5}") long initialBackoffMillis,
+      @Value("${users.optimistic-retry.max-backoff-millis:100}") long maxBackoffMillis,
+      MeterRegistry registry) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.conflicts = Counter.builder("users.write.conflicts")
+        .description("Conditional writes retried because the document changed since it was read")
+        .register(registry);
+    this.exhausted = Counter.builder("users.write.conflicts.exhausted")
+        .description("Conditional writes abandoned after every retry conflicted")
+        .register(registry);
+  }
+
+  /**
+   * Runs a conditional write until it applies.
+   *
+   * @param attempt the write
+   * @param <T>     type of the written value
+   * @param <E>     type of the exception thrown by the write
+   * @return the written value
+   * @throws E                         if an attempt throws it
+   * @throws ConcurrentUpdateException if every attempt conflicted
+   */
+  public <T, E extends Exception> T run(Attempt<T, E> attempt) throws E {
+    for (int i = 0; i < maxAttempts; i++) {
+      if (i > 0) {
+        conflicts.increment();
+        backoff(i);
+      }
+
+      Optional<T> written = attempt.apply(i);
+
+      if (written.isPresent()) {
+        return written.get();
+      }
+    }
+
+    exhausted.increment();
+    throw new ConcurrentUpdateException("The user was changed concurrently, try again");
+  }
+
+  private void backoff(int retry) {
+    long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(retry - 1, 20));
+
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConcurrentUpdateException("Interrupted while waiting to retry a concurrent update");
+    }
+  }
+}
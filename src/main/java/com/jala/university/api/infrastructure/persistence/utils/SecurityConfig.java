@@ -1,27 +1,42 @@
 package com.jala.university.api.infrastructure.persistence.utils;
 
+import com.jala.university.api.infrastructure.persistence.security.BoundedPasswordEncoder;
 import com.jala.university.api.infrastructure.persistence.security.JwtAuthenticationFilter;
 import com.jala.university.api.infrastructure.persistence.security.NotRegisteredRoutesFilter;
-import com.jala.university.api.infrastructure.persistence.security.PublicRoutesConfig;
+import com.jala.university.api.infrastructure.persistence.security.PasswordEncoderCalibrator;
+import com.jala.university.api.infrastructure.persistence.security.RouteTable;
 import com.jala.university.api.infrastructure.persistence.security.UserAuthorizationFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.filter.OrderedRequestContextFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.filter.RequestContextFilter;
 
 /**
  * SecurityConfig is a configuration class for Spring Security. It sets up the security filter
  * chain, password encoder, and authentication manager.
  * <p>
+ * The actuator endpoints have a chain of their own, without the JWT and route filters: they are
+ * served on the management port, which is only reachable from the monitoring network.
+ * <p>
  * This class can be extended if additional security configurations are needed.
  */
 @Configuration
@@ -31,7 +46,7 @@ public class SecurityConfig {
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
   private final UserAuthorizationFilter userAuthorizationFilter;
   private final NotRegisteredRoutesFilter notRegisteredRoutesFilter;
-  private final PublicRoutesConfig publicRoutesConfig;
+  private final RouteTable routeTable;
 
   /**
    * Constructs a SecurityConfig instance with the specified JWT authentication filter and JWT
@@ -39,20 +54,41 @@ public class SecurityConfig {
    *
    * @param jwtAuthenticationFilter JWT authentication filter
    * @param userAuthorizationFilter user authorization filter
-   * @param publicRoutesConfig      contains public routes URIs
+   * @param routeTable              decides which routes are public
    * @param notRegisteredRoutesFilter not registered routes filter
    */
   @Autowired
   public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
       UserAuthorizationFilter userAuthorizationFilter,
-      PublicRoutesConfig publicRoutesConfig,
+      RouteTable routeTable,
       NotRegisteredRoutesFilter notRegisteredRoutesFilter) {
     this.jwtAuthenticationFilter = jwtAuthenticationFilter;
     this.userAuthorizationFilter = userAuthorizationFilter;
-    this.publicRoutesConfig = publicRoutesConfig;
+    this.routeTable = routeTable;
     this.notRegisteredRoutesFilter = notRegisteredRoutesFilter;
   }
 
+  /**
+   * Configures the security filter chain of the actuator endpoints, checked before the chain of the
+   * application routes. Access is left to the management port binding.
+   *
+   * @param http the HttpSecurity object for configuring HTTP security
+   * @return the configured SecurityFilterChain
+   * @throws Exception if an error occurs during configuration
+   */
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public SecurityFilterChain managementSecurityFilterChain(HttpSecurity http) throws Exception {
+    http
+        .securityMatcher(EndpointRequest.toAnyEndpoint())
+        .csrf(AbstractHttpConfigurer::disable)
+        .sessionManagement(
+            session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .authorizeHttpRequests(authorize -> authorize.anyRequest().permitAll());
+
+    return http.build();
+  }
+
   /**
    * Configures the security filter chain for HTTP requests. This includes disabling CSRF, setting
    * up exception handling, configuring session management, and defining access rules.
@@ -68,8 +104,7 @@ public class SecurityConfig {
         .sessionManagement(
             session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(authorize -> {
-          publicRoutesConfig.getPublicRoutesMatchers()
-              .forEach(route -> authorize.requestMatchers(route).permitAll());
+          authorize.requestMatchers(routeTable::isPublic).permitAll();
 
           authorize.anyRequest().authenticated();
         })
@@ -81,13 +116,83 @@ public class SecurityConfig {
   }
 
   /**
-   * Provides a PasswordEncoder bean for encoding passwords.
+   * Keeps Spring Boot from registering the JWT authentication filter as a servlet filter, so it only
+   * runs within the security filter chain of the application routes.
    *
+   * @return the disabled registration
+   */
+  @Bean
+  public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+    return disabledRegistration(jwtAuthenticationFilter);
+  }
+
+  /**
+   * Keeps Spring Boot from registering the user authorization filter as a servlet filter.
+   *
+   * @return the disabled registration
+   */
+  @Bean
+  public FilterRegistrationBean<UserAuthorizationFilter> userAuthorizationFilterRegistration() {
+    return disabledRegistration(userAuthorizationFilter);
+  }
+
+  /**
+   * Keeps Spring Boot from registering the not registered routes filter as a servlet filter.
+   *
+   * @return the disabled registration
+   */
+  @Bean
+  public FilterRegistrationBean<NotRegisteredRoutesFilter> notRegisteredRoutesFilterRegistration() {
+    return disabledRegistration(notRegisteredRoutesFilter);
+  }
+
+  private static <T extends Filter> FilterRegistrationBean<T> disabledRegistration(T filter) {
+    FilterRegistrationBean<T> registration = new FilterRegistrationBean<>(filter);
+    registration.setEnabled(false);
+
+    return registration;
+  }
+
+  /**
+   * Exposes the current request to the security filters, so the user resolved while authenticating
+   * is kept on the request. Spring Boot only registers this filter when it configures Spring MVC,
+   * which doesn't happen here because of {@code @EnableWebMvc}.
+   *
+   * @return the RequestContextFilter instance, ordered before the security filter chain
+   */
+  @Bean
+  public RequestContextFilter requestContextFilter() {
+    return new OrderedRequestContextFilter();
+  }
+
+  /**
+   * Provides a PasswordEncoder bean for encoding passwords. The BCrypt strength is calibrated at
+   * startup against the hash time target, and hashing runs on a bounded pool, so credential requests
+   * can't take every request thread.
+   *
+   * @param hashTargetMillis expected time of a single hash on this node
+   * @param minStrength      lowest BCrypt strength accepted
+   * @param maxStrength      highest BCrypt strength accepted
+   * @param threads          number of hashes run at once, the number of processors if not positive
+   * @param queueCapacity    number of hashes allowed to wait before rejecting with a 503
+   * @param registry         registry where the hashing metrics are published
    * @return the PasswordEncoder instance
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(@Value("${security.password.hash-target-millis:75}") long hashTargetMillis,
+      @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+      @Value("${security.password.bcrypt.max-strength:16}") int maxStrength,
+      @Value("${security.password.hashing.threads:0}") int threads,
+      @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+      MeterRegistry registry) {
+    int strength = PasswordEncoderCalibrator.calibrateBcryptStrength(
+        Duration.ofMillis(hashTargetMillis), minStrength, maxStrength);
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+    Gauge.builder("password.hashing.bcrypt.strength", () -> strength).register(registry);
+
+    return new BoundedPasswordEncoder(PasswordEncoderCalibrator.delegatingEncoder(strength),
+        poolSize, queueCapacity, registry);
   }
 
   /**
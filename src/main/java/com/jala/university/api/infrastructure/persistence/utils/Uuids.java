@@ -0,0 +1,62 @@
+package com.jala.university.api.infrastructure.persistence.utils;
+
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Generates and parses the UUIDs used as document IDs.
+ * <p>
+ * Generated UUIDs follow the version 7 layout: the first 48 bits are the Unix time in milliseconds
+ * and the rest is random. Stored as BSON binary subtype 4 their bytes compare in creation order, so
+ * new documents are appended at the end of the indexes on their ID instead of at random pages.
+ */
+public final class Uuids {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final int STRING_LENGTH = 36;
+
+  private Uuids() {
+  }
+
+  /**
+   * Generates a UUID ordered by its creation time.
+   *
+   * @return a version 7 UUID for the current time
+   */
+  public static UUID timeOrdered() {
+    return timeOrdered(System.currentTimeMillis());
+  }
+
+  /**
+   * Generates a UUID ordered by the given time.
+   *
+   * @param epochMillis the Unix time in milliseconds
+   * @return a version 7 UUID for the given time
+   */
+  public static UUID timeOrdered(long epochMillis) {
+    long random = RANDOM.nextLong();
+    long mostSignificantBits = epochMillis << 16 | 0x7000L | random >>> 52;
+    long leastSignificantBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Parses the string form of a UUID, the form IDs have outside the database.
+   *
+   * @param value the string form
+   * @return the UUID, empty if the value isn't one
+   */
+  public static Optional<UUID> parse(String value) {
+    if (value == null || value.length() != STRING_LENGTH) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(UUID.fromString(value));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.jala.university.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the application on random ports and reads the actuator endpoints the way a monitoring
+ * system would, without a token. Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "management.server.port=0",
+    "spring.mail.host=localhost",
+    "spring.mail.port=2525",
+    "spring.mail.username=users-api",
+    "spring.mail.password=secret",
+    "security.jwt.secret-key=NcA1xBfJrjGyryOOA8axupfFY7Mn6jhFMESDkl9BCaTJAak0MwCUJ5Lp8wzz4/ISzDvgSGhr6ANxS0velah4AA=="
+})
+class ManagementEndpointsTest {
+
+  @Container
+  private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @LocalServerPort
+  private int port;
+
+  @LocalManagementPort
+  private int managementPort;
+
+  @DynamicPropertySource
+  static void mongoProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.data.mongodb.uri", () -> MONGO.getReplicaSetUrl("users"));
+  }
+
+  @Test
+  void testMetersAreReadOnTheManagementPort() throws Exception {
+    HttpResponse<String> response = get(managementPort, "/actuator/metrics/emails.outbox.queue.depth");
+
+    assertEquals(200, response.statusCode());
+    assertTrue(response.body().contains("\"name\":\"emails.outbox.queue.depth\""));
+  }
+
+  @Test
+  void testHealthIsReadOnTheManagementPort() throws Exception {
+    assertEquals(200, get(managementPort, "/actuator/health").statusCode());
+  }
+
+  @Test
+  void testActuatorIsNotServedOnTheApplicationPort() throws Exception {
+    assertEquals(404, get(port, "/actuator/metrics").statusCode());
+  }
+
+  private HttpResponse<String> get(int port, String path) throws Exception {
+    return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
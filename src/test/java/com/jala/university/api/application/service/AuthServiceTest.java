@@ -7,16 +7,26 @@ import com.jala.university.api.application.service.impl.AuthServiceImpl;
 import com.jala.university.api.domain.entity.User;
 import com.jala.university.api.domain.exceptions.authentication.InvalidAuthenticationCredentialsException;
 import com.jala.university.api.domain.exceptions.authentication.UserNotValidatedException;
+import com.jala.university.api.domain.repository.UserDao;
 import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.infrastructure.persistence.cache.RegisteredLoginFilter;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -27,12 +37,21 @@ public class AuthServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private UserDao userDao;
+
   @Mock
   private PasswordEncoder passwordEncoder;
 
   @Mock
   private UserMapper userMapper;
 
+  @Mock
+  private UserInvalidationBus invalidationBus;
+
+  @Spy
+  private RegisteredLoginFilter registeredLogins = new RegisteredLoginFilter(1000, 0.01);
+
   @InjectMocks
   private AuthServiceImpl authService;
 
@@ -41,7 +60,7 @@ public class AuthServiceTest {
   @BeforeEach
   public void setUp() {
     MockitoAnnotations.openMocks(this);
-    user = User.builder().id(UUID.randomUUID().toString())
+    user = User.builder().id(UUID.randomUUID())
         .name("test").login("test@test.com").password("password").build();
   }
 
@@ -52,7 +71,7 @@ public class AuthServiceTest {
         .password("password")
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(null);
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.empty());
     assertThrows(InvalidAuthenticationCredentialsException.class, () -> authService.login(credentials));
   }
 
@@ -64,12 +83,11 @@ public class AuthServiceTest {
         .password(user.getPassword())
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(user);
-    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
     user.setValidated(true);
     when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
     when(userMapper.mapTo(user))
-        .thenReturn(UserDto.builder().id(user.getId())
+        .thenReturn(UserDto.builder().id(user.getId().toString())
             .name(user.getName()).email(user.getLogin())
             .password(user.getPassword()).build());
 
@@ -85,12 +103,11 @@ public class AuthServiceTest {
         .password(user.getPassword())
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(user);
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
     user.setValidated(true);
     when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
-    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
     when(userMapper.mapTo(user))
-        .thenReturn(UserDto.builder().id(user.getId())
+        .thenReturn(UserDto.builder().id(user.getId().toString())
             .name(user.getName()).email(user.getLogin())
             .password(user.getPassword()).build());
 
@@ -105,7 +122,7 @@ public class AuthServiceTest {
         .password("badPassword")
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(user);
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
     when(passwordEncoder.matches(user.getPassword(), credentials.getPassword())).thenReturn(false);
 
     assertThrows(InvalidAuthenticationCredentialsException.class, () -> authService.login(credentials));
@@ -118,9 +135,8 @@ public class AuthServiceTest {
         .password(user.getPassword())
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(user);
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
     when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
-    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
     assertThrows(UserNotValidatedException.class, () -> authService.login(credentials));
   }
@@ -132,15 +148,13 @@ public class AuthServiceTest {
         .password(user.getPassword())
         .build();
 
-    when(userRepository.findByLogin(user.getLogin())).thenReturn(user);
-    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
     when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
     user.setValidated(true);
-    when(userRepository.findById(String.valueOf(user))).thenReturn(Optional.ofNullable(user));
 
     when(userMapper.mapTo(user))
             .thenReturn(UserDto.builder()
-                    .id(user.getId())
+                    .id(user.getId().toString())
                     .name(user.getName())
                     .email(user.getLogin())
                     .password(user.getPassword()).build());
@@ -151,4 +165,86 @@ public class AuthServiceTest {
     assertEquals(user.getLogin(), userDto.getEmail());
   }
 
-}
\ No newline at end of file
+  @Test
+  void testPlainTextPasswordIsRejected() {
+    UserCredentials credentials = UserCredentials.builder()
+        .login(user.getLogin())
+        .password(user.getPassword())
+        .build();
+
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
+    when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(false);
+
+    assertThrows(InvalidAuthenticationCredentialsException.class, () -> authService.login(credentials));
+  }
+
+  @Test
+  void testOutdatedPasswordIsUpgraded() throws InvalidAuthenticationCredentialsException, UserNotValidatedException {
+    UserCredentials credentials = UserCredentials.builder()
+        .login(user.getLogin())
+        .password("password")
+        .build();
+    user.setPassword("$2a$10$outdated");
+    user.setValidated(true);
+
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
+    when(passwordEncoder.matches("password", "$2a$10$outdated")).thenReturn(true);
+    when(passwordEncoder.upgradeEncoding("$2a$10$outdated")).thenReturn(true);
+    when(passwordEncoder.encode("password")).thenReturn("{bcrypt}$2a$12$upgraded");
+    when(userRepository.updatePassword(user.getId(), "$2a$10$outdated", "{bcrypt}$2a$12$upgraded"))
+        .thenReturn(true);
+
+    authService.login(credentials);
+
+    verify(userRepository).updatePassword(user.getId(), "$2a$10$outdated", "{bcrypt}$2a$12$upgraded");
+    verify(invalidationBus).publish(UserChangedEvent.updated(user.getId().toString(), user.getPrincipalVersion()));
+  }
+
+  @Test
+  void testCurrentPasswordIsNotUpgraded() throws InvalidAuthenticationCredentialsException, UserNotValidatedException {
+    UserCredentials credentials = UserCredentials.builder()
+        .login(user.getLogin())
+        .password(user.getPassword())
+        .build();
+    user.setValidated(true);
+
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
+    when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
+
+    authService.login(credentials);
+
+    verify(userRepository, never()).updatePassword(any(), anyString(), anyString());
+  }
+
+  @Test
+  void testLoginReadsCredentialsOnce() throws InvalidAuthenticationCredentialsException, UserNotValidatedException {
+    UserCredentials credentials = UserCredentials.builder()
+        .login(user.getLogin())
+        .password(user.getPassword())
+        .build();
+    user.setValidated(true);
+
+    when(userDao.findCredentialsByLogin(user.getLogin())).thenReturn(Optional.of(user));
+    when(passwordEncoder.matches(user.getPassword(), user.getPassword())).thenReturn(true);
+
+    authService.login(credentials);
+
+    verify(userDao).findCredentialsByLogin(user.getLogin());
+    verify(userRepository, never()).findById(any());
+    verify(userDao, never()).findAccountByLogin(anyString());
+  }
+
+  @Test
+  void testUnregisteredLoginIsRejectedWithoutRead() {
+    UserCredentials credentials = UserCredentials.builder()
+        .login("nobody@test.com")
+        .password(user.getPassword())
+        .build();
+    registeredLogins.rebuild(Stream.of(user.getLogin()));
+
+    assertThrows(InvalidAuthenticationCredentialsException.class, () -> authService.login(credentials));
+
+    verify(userDao, never()).findCredentialsByLogin(anyString());
+    verify(passwordEncoder, never()).matches(any(), any());
+  }
+}
@@ -9,7 +9,9 @@ import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatExcept
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
 import com.jala.university.api.domain.repository.UserRepository;
-import jakarta.mail.MessagingException;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -17,11 +19,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -39,11 +44,14 @@ public class PasswordResetServiceTest {
   private ValidationService validationService;
 
   @Mock
-  private EmailService emailService;
+  private EmailOutbox emailOutbox;
 
   @Mock
   private UserMapper userMapper;
 
+  @Mock
+  private UserInvalidationBus invalidationBus;
+
   @InjectMocks
   private ResetPasswordServiceImpl resetPasswordServicesImpl;
 
@@ -53,47 +61,46 @@ public class PasswordResetServiceTest {
   }
 
   @Test
-  public void testSendPasswordResetEmail_InvalidEmail() throws MessagingException{
+  public void testSendPasswordResetEmail_InvalidEmail() throws UserNotFoundException {
     String invalidEmail = "invalid-email";
 
     when(validationService.isValidEmail(invalidEmail)).thenReturn(false);
 
     assertThrows(InvalidEmailFormatException.class, () -> resetPasswordServicesImpl.sendPasswordResetEmail(invalidEmail));
     verify(validationService).isValidEmail(invalidEmail);
-    verify(userRepository, never()).findByLogin(anyString());
+    verify(tokenService, never()).createToken(any(), any(), any());
   }
 
   @Test
   public void testSendPasswordResetEmail_UserNotFound()
-      throws MessagingException, InvalidEmailFormatException, UserNotFoundException {
+      throws InvalidEmailFormatException, UserNotFoundException {
     String validEmail = "user@example.com";
 
     when(validationService.isValidEmail(validEmail)).thenReturn(true);
-    when(userRepository.findByLogin(validEmail)).thenReturn(null);
-    when(tokenService.createToken(any(), any())).thenThrow(new UserNotFoundException());
+    when(tokenService.createToken(any(), any(), any())).thenThrow(new UserNotFoundException());
 
     boolean result = resetPasswordServicesImpl.sendPasswordResetEmail(validEmail);
 
     assertFalse(result);
-    verify(tokenService).createToken(any(), any());
+    verify(tokenService).createToken(any(), any(), any());
   }
 
   @Test
   public void testSendPasswordResetEmail_Success()
-      throws MessagingException, InvalidEmailFormatException, UserNotFoundException {
+      throws InvalidEmailFormatException, UserNotFoundException {
     String validEmail = "user@example.com";
     var user = mock(User.class); // Mock del UserDto
     var token = mock(IdentityValidationTokenDto.class); // Mock del token
 
     when(validationService.isValidEmail(validEmail)).thenReturn(true);
-    when(userRepository.findByLogin(validEmail)).thenReturn(user);
-    when(tokenService.createToken(any(LocalDateTime.class), any(UserDto.class))).thenReturn(token);
+    when(tokenService.createToken(any(LocalDateTime.class), any(UserDto.class),
+        eq(IdentityTokenSigner.Purpose.PASSWORD_RESET))).thenReturn(token);
     when(token.getToken()).thenReturn(String.valueOf(UUID.randomUUID()));
 
     boolean result = resetPasswordServicesImpl.sendPasswordResetEmail(validEmail);
 
     assertTrue(result);
-    verify(emailService).sendEmail(eq(validEmail), eq("Reset password"), anyString());
+    verify(emailOutbox).enqueue(eq(validEmail), eq("Reset password"), anyString());
   }
 
   @Test
@@ -101,13 +108,14 @@ public class PasswordResetServiceTest {
     UUID invalidToken = UUID.randomUUID();
     String newPassword = "n3w_Password";
 
-    when(tokenService.verifyToken(invalidToken)).thenReturn(false);
+    when(tokenService.consumeToken(invalidToken)).thenReturn(Optional.empty());
     when(validationService.isValidPassword(newPassword)).thenReturn(true);
-    boolean result = resetPasswordServicesImpl.resetPassword(invalidToken, newPassword);
+    boolean result = resetPasswordServicesImpl.resetPassword(invalidToken.toString(), newPassword);
 
     assertFalse(result);
-    verify(tokenService).verifyToken(invalidToken);
+    verify(tokenService).consumeToken(invalidToken);
     verify(userRepository, never()).save(any());
+    verify(userRepository, never()).resetPassword(any(), anyString());
   }
 
   @Test
@@ -116,24 +124,52 @@ public class PasswordResetServiceTest {
     String newPassword = "new_Password";
 
     when(validationService.isValidPassword(newPassword)).thenReturn(false);
-    assertThrows(InvalidPasswordFormatException.class, () -> resetPasswordServicesImpl.resetPassword(validToken, newPassword));
+    assertThrows(InvalidPasswordFormatException.class, () -> resetPasswordServicesImpl.resetPassword(validToken.toString(), newPassword));
   }
 
   @Test
   public void testResetPassword_Success() throws InvalidPasswordFormatException {
     UUID validToken = UUID.randomUUID();
     String newPassword = "n3w_Password";
-    var user = mock(UserDto.class);
+    UUID userId = UUID.randomUUID();
 
-    when(tokenService.verifyToken(validToken)).thenReturn(true);
-    when(tokenService.getUserWithToken(validToken)).thenReturn(Optional.of(user));
+    when(tokenService.consumeToken(validToken)).thenReturn(Optional.of(userId));
     when(validationService.isValidPassword(newPassword)).thenReturn(true);
     when(passwordEncoder.encode(newPassword)).thenReturn("encryptedPassword");
+    when(userRepository.resetPassword(userId, "encryptedPassword")).thenReturn(OptionalLong.of(3));
 
-    boolean result = resetPasswordServicesImpl.resetPassword(validToken, newPassword);
+    boolean result = resetPasswordServicesImpl.resetPassword(validToken.toString(), newPassword);
 
     assertTrue(result);
-    verify(user).setPassword("encryptedPassword");
+    verify(userRepository, never()).save(any());
+    verify(invalidationBus).publish(UserChangedEvent.updated(userId.toString(), 3));
   }
 
+  @Test
+  public void testResetPasswordWithSignedToken() throws InvalidPasswordFormatException {
+    UUID userId = UUID.randomUUID();
+    IdentityTokenSigner.Claims claims = new IdentityTokenSigner.Claims(userId.toString(),
+        IdentityTokenSigner.Purpose.PASSWORD_RESET, Instant.now().plusSeconds(3600), 4);
+
+    when(validationService.isValidPassword("n3w_Password")).thenReturn(true);
+    when(tokenService.readSignedToken("signed", IdentityTokenSigner.Purpose.PASSWORD_RESET))
+        .thenReturn(Optional.of(claims));
+    when(passwordEncoder.encode("n3w_Password")).thenReturn("encryptedPassword");
+    when(userRepository.resetPassword(userId, 4, "encryptedPassword")).thenReturn(OptionalLong.of(5));
+
+    assertTrue(resetPasswordServicesImpl.resetPassword("signed", "n3w_Password"));
+    verify(userRepository, never()).save(any());
+    verify(tokenService, never()).verifyToken(any());
+  }
+
+  @Test
+  public void testResetPasswordWithInvalidSignedToken() throws InvalidPasswordFormatException {
+    when(validationService.isValidPassword("n3w_Password")).thenReturn(true);
+    when(tokenService.readSignedToken("tampered", IdentityTokenSigner.Purpose.PASSWORD_RESET))
+        .thenReturn(Optional.empty());
+
+    assertFalse(resetPasswordServicesImpl.resetPassword("tampered", "n3w_Password"));
+    verify(passwordEncoder, never()).encode(any());
+    verify(userRepository, never()).resetPassword(any(), anyLong(), any());
+  }
 }
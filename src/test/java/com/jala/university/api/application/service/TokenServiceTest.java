@@ -7,6 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.jala.university.api.application.dto.IdentityValidationTokenDto;
@@ -17,42 +21,64 @@ import com.jala.university.api.application.mapper.impl.UserMapper;
 import com.jala.university.api.application.service.impl.TokenServiceImpl;
 import com.jala.university.api.domain.entity.IdentityValidationToken;
 import com.jala.university.api.domain.entity.User;
-import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
+import com.jala.university.api.domain.repository.IdentityValidationTokenDao;
+import com.jala.university.api.domain.repository.IdentityValidationTokenRepository;
+import com.jala.university.api.domain.repository.UserDao;
+import com.jala.university.api.infrastructure.persistence.cache.RegisteredLoginFilter;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.cache.ValidationTokenRegistry;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner.Purpose;
+import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 public class TokenServiceTest {
-  @Mock
-  static private UserRepository userRepository;
+  private static final IdentityTokenSigner TOKEN_SIGNER =
+      new IdentityTokenSigner(Base64.getEncoder().encodeToString(new byte[32]));
+  private static final UUID OWNER = UUID.randomUUID();
+
   @Mock
   static private IdentityTokenFactory identityTokenFactory;
+  @Mock
+  static private IdentityValidationTokenRepository tokenRepository;
+  @Mock
+  static private UserDao userDao;
+  @Mock
+  static private IdentityValidationTokenDao tokenDao;
 
+  static private ValidationTokenRegistry tokenRegistry;
   static private TokenService tokenService;
   static private User testUser;
 
   @BeforeEach
   void setUp() {
     try (var openMocks = MockitoAnnotations.openMocks(this)) {
+      tokenRegistry = new ValidationTokenRegistry(true, 1000, Clock.systemDefaultZone());
       tokenService = new TokenServiceImpl(
           new IdentityValidationTokenMapper(), new UserMapper(),
-          userRepository, identityTokenFactory);
+          tokenRepository, userDao, tokenDao, identityTokenFactory, new UserCache(100, 300),
+          new RegisteredLoginFilter(1000, 0.01), tokenRegistry, TOKEN_SIGNER, false);
     } catch (Exception ignored) {}
   }
 
   @Test
   void CreateTokenWithInvalidExpirationDateTest() {
     assertThrows(IllegalArgumentException.class, () -> {
-      tokenService.createToken(LocalDateTime.now(), UserDto.builder().build());
+      tokenService.createToken(LocalDateTime.now(), UserDto.builder().build(), Purpose.EMAIL_VALIDATION);
     });
 
     assertThrows(IllegalArgumentException.class, () -> {
-      tokenService.createToken(LocalDateTime.now().minusDays(1), UserDto.builder().build());
+      tokenService.createToken(LocalDateTime.now().minusDays(1), UserDto.builder().build(),
+          Purpose.EMAIL_VALIDATION);
     });
   }
 
@@ -60,18 +86,18 @@ public class TokenServiceTest {
   void CreateTokenWithValidExpirationDateTest() {
     UUID tokenId = UUID.randomUUID();
     User user = User.builder()
+        .id(UUID.randomUUID())
         .login("example@example.com")
-        .tokens(new ArrayList<>())
         .build();
 
-    when(userRepository.findByLogin(any())).thenAnswer(invocationOnMock -> user);
-    when(userRepository.save(any())).thenReturn(user);
-    when(identityTokenFactory.create(any()))
+    when(userDao.findAccountByLogin(any())).thenReturn(Optional.of(user));
+    when(identityTokenFactory.create(any(), any()))
         .thenAnswer(invocationOnMock -> {
           LocalDateTime expiration = invocationOnMock.getArgument(0);
 
           return IdentityValidationToken.builder()
               .id(tokenId)
+              .userId(invocationOnMock.getArgument(1))
               .expiration(expiration)
               .build();
         });
@@ -79,107 +105,147 @@ public class TokenServiceTest {
     assertDoesNotThrow(() -> {
       UserDto userDto = UserDto.builder().build();
       LocalDateTime expirationDate = LocalDateTime.now().plusHours(10);
-      IdentityValidationTokenDto token = tokenService.createToken(expirationDate, userDto);
+      IdentityValidationTokenDto token = tokenService.createToken(expirationDate, userDto,
+          Purpose.EMAIL_VALIDATION);
 
       assertNotNull(token);
       assertEquals(tokenId.toString(), token.getToken());
       assertEquals(expirationDate, token.getExpiration());
     });
-  }
-
-  @Test
-  void VerifyExpiredTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenAnswer(invocationOnMock -> {
-      UUID id = invocationOnMock.getArgument(0);
-      var token = IdentityValidationToken.builder()
-          .id(id)
-          .expiration(LocalDateTime.now().minusHours(10))
-          .build();
-      var tokens = new ArrayList<IdentityValidationToken>();
-
-      tokens.add(token);
-
-      return Optional.of(User.builder()
-          .tokens(tokens)
-          .build());
-    });
 
-    assertFalse(tokenService.verifyToken(UUID.randomUUID()));
+    ArgumentCaptor<IdentityValidationToken> inserted = ArgumentCaptor.forClass(IdentityValidationToken.class);
+    verify(tokenRepository).insert(inserted.capture());
+    assertEquals(user.getId(), inserted.getValue().getUserId());
   }
 
   @Test
-  void VerifyNonexistentTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenReturn(Optional.empty());
-
-    assertFalse(tokenService.verifyToken(UUID.randomUUID()));
+  void CreateSignedTokenWithoutWriteTest() throws UserNotFoundException {
+    TokenService signedTokenService = new TokenServiceImpl(
+        new IdentityValidationTokenMapper(), new UserMapper(),
+        tokenRepository, userDao, tokenDao, identityTokenFactory, new UserCache(100, 300),
+        new RegisteredLoginFilter(1000, 0.01), tokenRegistry, TOKEN_SIGNER, true);
+    User user = User.builder()
+        .id(UUID.randomUUID())
+        .login("example@example.com")
+        .principalVersion(3)
+        .build();
+    when(userDao.findAccountByLogin(any())).thenReturn(Optional.of(user));
+
+    IdentityValidationTokenDto token = signedTokenService.createToken(LocalDateTime.now().plusHours(1),
+        UserDto.builder().email(user.getLogin()).build(), Purpose.PASSWORD_RESET);
+
+    verify(tokenRepository, never()).insert(any(IdentityValidationToken.class));
+    Optional<IdentityTokenSigner.Claims> claims =
+        signedTokenService.readSignedToken(token.getToken(), Purpose.PASSWORD_RESET);
+    assertTrue(claims.isPresent());
+    assertEquals(user.getId().toString(), claims.get().userId());
+    assertEquals(3, claims.get().principalVersion());
+    assertTrue(signedTokenService.readSignedToken(token.getToken(), Purpose.EMAIL_VALIDATION).isEmpty());
   }
 
   @Test
-  void VerifyAlreadyUsedTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenAnswer(invocationOnMock -> {
-      UUID id = invocationOnMock.getArgument(0);
-      var token = IdentityValidationToken.builder()
-          .id(id)
-          .verified(true)
-          .build();
-      var tokens = new ArrayList<IdentityValidationToken>();
-
-      tokens.add(token);
-
-      return Optional.of(User.builder()
-          .tokens(tokens)
-          .build());
-    });
+  void VerifyNonexistentExpiredOrUsedTokenTest() {
+    when(tokenDao.consume(any(), any())).thenReturn(Optional.empty());
 
     assertFalse(tokenService.verifyToken(UUID.randomUUID()));
   }
 
   @Test
   void VerifyValidTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenAnswer(invocationOnMock -> {
-      UUID id = invocationOnMock.getArgument(0);
-      var token = IdentityValidationToken.builder()
-          .id(id)
-          .expiration(LocalDateTime.now().plusHours(10))
-          .verified(false)
-          .build();
-      var tokens = new ArrayList<IdentityValidationToken>();
-
-      tokens.add(token);
-
-      return Optional.of(User.builder().tokens(tokens).build());
-    });
+    UUID id = UUID.randomUUID();
+    when(tokenDao.consume(eq(id), any())).thenReturn(Optional.of(
+        IdentityValidationToken.builder()
+            .id(id)
+            .userId(OWNER)
+            .verified(true)
+            .build()));
+
+    assertTrue(tokenService.verifyToken(id));
+    verify(tokenRepository, never()).save(any());
+  }
 
-    assertTrue(tokenService.verifyToken(UUID.randomUUID()));
+  @Test
+  void ConsumeTokenReturnsOwnerTest() {
+    UUID id = UUID.randomUUID();
+    when(tokenDao.consume(eq(id), any())).thenReturn(Optional.of(
+        IdentityValidationToken.builder()
+            .id(id)
+            .userId(OWNER)
+            .verified(true)
+            .build()));
+
+    assertEquals(Optional.of(OWNER), tokenService.consumeToken(id));
+    verify(tokenDao, never()).findById(any());
   }
 
   @Test
   void GetExistingTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenAnswer(invocationOnMock -> {
-      UUID id = invocationOnMock.getArgument(0);
-      var token = IdentityValidationToken.builder()
-          .id(id)
-          .build();
-      var tokens = new ArrayList<IdentityValidationToken>();
-
-      tokens.add(token);
-
-      return Optional.of(User.builder()
-          .tokens(tokens)
-          .build());
-    });
+    UUID userId = UUID.randomUUID();
+    when(tokenDao.findById(any())).thenAnswer(invocationOnMock -> Optional.of(
+        IdentityValidationToken.builder()
+            .id(invocationOnMock.getArgument(0))
+            .userId(userId)
+            .build()));
+    when(userDao.findAccountById(userId)).thenReturn(Optional.of(User.builder().id(userId).build()));
 
     UUID id = UUID.randomUUID();
 
     Optional<UserDto> optionalUser = tokenService.getUserWithToken(id);
 
     assertTrue(optionalUser.isPresent());
+    assertEquals(userId.toString(), optionalUser.get().getId());
   }
 
   @Test
   void GetNonexistentTokenTest() {
-    when(userRepository.findUserWithToken(any())).thenReturn(Optional.empty());
+    when(tokenDao.findById(any())).thenReturn(Optional.empty());
 
     assertTrue(tokenService.getUserWithToken(UUID.randomUUID()).isEmpty());
   }
+
+  @Test
+  void IssuedTokenIsAnsweredFromMemoryTest() throws UserNotFoundException {
+    UUID tokenId = UUID.randomUUID();
+    User user = User.builder()
+        .id(UUID.randomUUID())
+        .login("example@example.com")
+        .build();
+    when(userDao.findAccountByLogin(any())).thenReturn(Optional.of(user));
+    when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
+    when(identityTokenFactory.create(any(), any())).thenAnswer(invocationOnMock -> IdentityValidationToken.builder()
+        .id(tokenId)
+        .userId(invocationOnMock.getArgument(1))
+        .expiration(invocationOnMock.getArgument(0))
+        .build());
+    when(tokenDao.consume(eq(tokenId), any())).thenAnswer(invocationOnMock -> Optional.of(
+        IdentityValidationToken.builder()
+            .id(tokenId)
+            .userId(user.getId())
+            .expiration(LocalDateTime.now().plusHours(1))
+            .verified(true)
+            .build()));
+
+    tokenService.createToken(LocalDateTime.now().plusHours(1), UserDto.builder().email(user.getLogin()).build(),
+        Purpose.PASSWORD_RESET);
+
+    assertTrue(tokenService.verifyToken(tokenId));
+    assertEquals(user.getId().toString(), tokenService.getUserWithToken(tokenId).orElseThrow().getId());
+    assertFalse(tokenService.verifyToken(tokenId));
+    verify(tokenDao, never()).findById(any());
+    verify(tokenDao, times(1)).consume(eq(tokenId), any());
+  }
+
+  @Test
+  void TokenConsumedOnAnotherNodeIsRejectedTest() {
+    UUID tokenId = UUID.randomUUID();
+    tokenRegistry.register(IdentityValidationToken.builder()
+        .id(tokenId)
+        .userId(OWNER)
+        .expiration(LocalDateTime.now().plusHours(1))
+        .build());
+    when(tokenDao.consume(eq(tokenId), any())).thenReturn(Optional.empty());
+
+    assertFalse(tokenService.verifyToken(tokenId));
+    assertTrue(tokenRegistry.find(tokenId).orElseThrow().isVerified());
+  }
 }
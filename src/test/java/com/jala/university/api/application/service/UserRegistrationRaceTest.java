@@ -0,0 +1,148 @@
+package com.jala.university.api.application.service;
+
+import com.jala.university.api.application.dto.IdentityValidationTokenDto;
+import com.jala.university.api.application.dto.UserDto;
+import com.jala.university.api.application.service.impl.UserServiceImpl;
+import com.jala.university.api.application.service.impl.ValidationServiceImpl;
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredException;
+import com.jala.university.api.domain.repository.UserDao;
+import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.domain.repository.UserRepositoryCustomImpl;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.codec.IdentityValidationTokenCodec;
+import com.jala.university.api.infrastructure.persistence.codec.UserCodec;
+import com.jala.university.api.infrastructure.persistence.maintenance.MongoIndexBootstrap;
+import com.jala.university.api.infrastructure.persistence.security.RequestUserContext;
+import com.jala.university.api.infrastructure.persistence.utils.OptimisticRetry;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Races registrations of one email against a real database, where only the unique index created by
+ * {@link MongoIndexBootstrap} can keep a second user from being inserted. Needs Docker; skipped
+ * without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserRegistrationRaceTest {
+
+    private static final int REGISTRATIONS = 16;
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static UserRepository userRepository;
+
+    private UserService userService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        client = MongoClients.create(MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(MONGO.getReplicaSetUrl("users")))
+            .uuidRepresentation(UuidRepresentation.STANDARD)
+            .codecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new UserCodec(), new IdentityValidationTokenCodec()),
+                MongoClientSettings.getDefaultCodecRegistry()))
+            .build());
+        mongoTemplate = new MongoTemplate(client, "users");
+
+        new MongoIndexBootstrap(mongoTemplate, true, MongoIndexBootstrap.DriftAction.FAIL).afterSingletonsInstantiated();
+        userRepository = new MongoRepositoryFactory(mongoTemplate)
+            .getRepository(UserRepository.class, new UserRepositoryCustomImpl(mongoTemplate));
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.deleteAll();
+
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        TokenService tokenService = mock(TokenService.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW");
+        when(tokenService.createToken(any(), any(), any()))
+            .thenReturn(IdentityValidationTokenDto.builder().token(UUID.randomUUID().toString()).build());
+
+        userService = new UserServiceImpl(userRepository, new UserDao(mongoTemplate), passwordEncoder,
+            new ValidationServiceImpl(), tokenService, mock(EmailOutbox.class), mock(UserInvalidationBus.class),
+            mock(RequestUserContext.class), new UserCache(100, 300),
+            new OptimisticRetry(3, 0, 0, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testConcurrentRegistrationsOfOneEmailCreateOneUser() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(REGISTRATIONS);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < REGISTRATIONS; i++) {
+                String email = i % 2 == 0 ? "sparta@gmail.com" : "Sparta@Gmail.com";
+
+                results.add(executor.submit(() -> {
+                    start.await();
+
+                    try {
+                        userService.createUser(UserDto.builder()
+                            .name("Kratos").email(email).password("A7@d4mB2").build());
+                        return true;
+                    } catch (UserAlreadyRegisteredException e) {
+                        return false;
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            int created = 0;
+
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    created++;
+                }
+            }
+
+            assertEquals(1, created);
+            assertEquals(1, mongoTemplate.count(
+                Query.query(Criteria.where(User.LOGIN_KEY_FIELD).is("sparta@gmail.com")), User.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
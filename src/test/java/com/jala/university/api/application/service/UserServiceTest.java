@@ -1,28 +1,44 @@
 package com.jala.university.api.application.service;
 
-import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.application.dto.IdentityValidationTokenDto;
+import com.jala.university.api.application.dto.UserDto;
 import com.jala.university.api.application.service.impl.UserServiceImpl;
 import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.domain.exceptions.ConcurrentUpdateException;
 import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatException;
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
 import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
+import com.jala.university.api.domain.repository.UserChanges;
+import com.jala.university.api.domain.repository.UserDao;
 import com.jala.university.api.domain.repository.UserRepository;
-import jakarta.mail.MessagingException;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.cache.UserChangedEvent;
+import com.jala.university.api.infrastructure.persistence.cache.UserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner;
+import com.jala.university.api.infrastructure.persistence.security.RequestUserContext;
+import com.jala.university.api.infrastructure.persistence.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UserServiceTest {
@@ -30,6 +46,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserDao userDao;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -40,19 +59,33 @@ class UserServiceTest {
     private TokenService tokenService;
 
     @Mock
-    private EmailService emailService;
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private UserInvalidationBus invalidationBus;
+
+    @Mock
+    private RequestUserContext requestUserContext;
+
+    @Spy
+    private UserCache userCache = new UserCache(100, 300);
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, 0, 0, new SimpleMeterRegistry());
 
     @InjectMocks
     private UserServiceImpl userService;
 
     private User user;
+    private String userId;
     private UserDto userDto;
     private IdentityValidationTokenDto tokenDto;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
+        userId = id.toString();
         user = User.builder().id(id).name("Kratos").login("sparta@gmail.com").password("A7@d4mB2").build();
         userDto = UserDto.builder().name("Kratos").email("sparta@gmail.com").password("A7@d4mB2").build();
         tokenDto = IdentityValidationTokenDto.builder().token(String.valueOf(UUID.randomUUID())).build();
@@ -60,108 +93,261 @@ class UserServiceTest {
 
     @Test
     void testCreateUserSuccess() throws InvalidPasswordFormatException, InvalidEmailFormatException,
-        UserAlreadyRegisteredException, MessagingException, UserNotFoundException {
+        UserAlreadyRegisteredException, UserNotFoundException {
         when(passwordEncoder.encode(anyString())).thenReturn("A7@d4mB2");
-        when(userRepository.save(any(User.class))).thenReturn(user);
-        when(tokenService.createToken(any(), any())).thenReturn(tokenDto);
-        doNothing().when(emailService).sendEmail(anyString(), anyString(), anyString());
+        when(userRepository.insert(any(User.class))).thenReturn(user);
+        when(tokenService.createToken(any(), any(), any())).thenReturn(tokenDto);
 
         UserDto result = userService.createUser(userDto);
 
         assertNotNull(result);
-        assertEquals(user.getId(), result.getId());
+        assertEquals(userId, result.getId());
         assertEquals(user.getName(), result.getName());
         assertEquals(user.getLogin(), result.getEmail());
-        verify(userRepository, times(1)).save(any(User.class));
-        verify(emailService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(userRepository, times(1)).insert(any(User.class));
+        verify(userDao, never()).findAccountByLogin(anyString());
+        verify(emailOutbox, times(1)).enqueue(anyString(), anyString(), anyString());
+        verify(invalidationBus).publish(UserChangedEvent.created(userId, user.getLogin()));
+    }
+
+    @Test
+    void testCreateUserStoresLoginKey() throws Exception {
+        when(passwordEncoder.encode(anyString())).thenReturn("A7@d4mB2");
+        when(userRepository.insert(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tokenService.createToken(any(), any(), any())).thenReturn(tokenDto);
+        userDto.setEmail("Sparta@Gmail.com");
+
+        userService.createUser(userDto);
+
+        ArgumentCaptor<User> inserted = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).insert(inserted.capture());
+        assertEquals("Sparta@Gmail.com", inserted.getValue().getLogin());
+        assertEquals("sparta@gmail.com", inserted.getValue().getLoginKey());
+    }
+
+    @Test
+    void testCreateUserDeletedBeforeTheTokenSendsNoEmail() throws Exception {
+        when(passwordEncoder.encode(anyString())).thenReturn("A7@d4mB2");
+        when(userRepository.insert(any(User.class))).thenReturn(user);
+        when(tokenService.createToken(any(), any(), any())).thenThrow(new UserNotFoundException("User not found"));
+
+        UserDto result = userService.createUser(userDto);
+
+        assertEquals(userId, result.getId());
+        verify(emailOutbox, never()).enqueue(anyString(), anyString(), anyString());
     }
 
     @Test
     void userWithSameEmailTest() {
-        when(userRepository.findByLogin(any())).thenReturn(user);
+        when(userRepository.insert(any(User.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
 
         assertThrows(UserAlreadyRegisteredException.class, () -> userService.createUser(userDto));
+        verify(invalidationBus, never()).publish(any());
     }
 
     @Test
     void testGetUserByIdSuccess() throws UserNotFoundException {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
 
-        UserDto result = userService.getUserById(user.getId());
+        UserDto result = userService.getUserById(userId);
 
         assertNotNull(result);
         assertEquals(user.getName(), result.getName());
         assertEquals(user.getLogin(), result.getEmail());
     }
 
+    @Test
+    void testGetUserByIdResolvedOnRequest() throws UserNotFoundException {
+        when(requestUserContext.find(userId)).thenReturn(Optional.of(user));
+
+        UserDto result = userService.getUserById(userId);
+
+        assertEquals(userId, result.getId());
+        verify(userDao, never()).findAccountById(any());
+    }
+
     @Test
     void testGetUserByIdFail() {
-        when(userRepository.findById(any(String.class))).thenReturn(Optional.empty());
+        when(userDao.findAccountById(any(UUID.class))).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.getUserById(UUID.randomUUID().toString()));
     }
 
     @Test
     void testDeleteUserSuccess() throws UserNotFoundException {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
 
-        String result = userService.deleteUser(user.getId());
+        String result = userService.deleteUser(userId);
 
         assertEquals("User deleted", result);
         verify(userRepository, times(1)).deleteById(user.getId());
+        verify(invalidationBus).publish(UserChangedEvent.deleted(userId, user.getLogin()));
     }
 
     @Test
     void testDeleteUserFail() {
-        when(userRepository.findById(any(String.class))).thenReturn(Optional.empty());
+        when(userDao.findAccountById(any(UUID.class))).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.deleteUser(UUID.randomUUID().toString()));
     }
 
     @Test
-    void testUpdateUser() throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException, MessagingException {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    void testUpdateUser() throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException,
+        UserAlreadyRegisteredException {
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
         when(validationService.isValidEmail(anyString())).thenReturn(true);
         when(validationService.isValidPassword(anyString())).thenReturn(true);
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(passwordEncoder.encode(userDto.getPassword())).thenReturn("encoded");
+        when(userRepository.updateAccount(eq(user.getId()), anyLong(), any())).thenReturn(Optional.of(
+            User.builder().id(user.getId()).name(userDto.getName()).login(user.getLogin()).principalVersion(1).build()));
 
-        UserDto result = userService.updateUser(user.getId(), userDto);
+        UserDto result = userService.updateUser(userId, userDto);
 
         assertNotNull(result);
         assertEquals(userDto.getName(), result.getName());
         assertEquals(user.getLogin(), result.getEmail());
-        verify(userRepository, times(1)).save(any(User.class));
+        assertEquals(1, result.getPrincipalVersion());
+        verify(userRepository).updateAccount(user.getId(), 0, new UserChanges("Kratos", null, "encoded", null));
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).findById(any());
+        verify(invalidationBus).publish(UserChangedEvent.updated(userId, 1));
+        verifyNoInteractions(emailOutbox);
+    }
+
+    @Test
+    void testUpdateUserEmailInvalidatesAndSendsToken() throws Exception {
+        User updated = User.builder().id(user.getId()).name("Kratos").login("athens@gmail.com")
+            .validated(false).principalVersion(2).build();
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
+        when(validationService.isValidEmail(anyString())).thenReturn(true);
+        when(userRepository.updateAccount(eq(user.getId()), anyLong(), any())).thenReturn(Optional.of(updated));
+        when(tokenService.createToken(any(), any(), any())).thenReturn(tokenDto);
+        UserDto changes = UserDto.builder().email("athens@gmail.com").build();
+
+        userService.updateUser(userId, changes);
+
+        verify(userRepository).updateAccount(user.getId(), 0, new UserChanges(null, "athens@gmail.com", null, false));
+        verify(userRepository, never()).save(any(User.class));
+        verify(emailOutbox).enqueue(eq("athens@gmail.com"), anyString(), eq(tokenDto.getToken()));
+        verify(invalidationBus).publish(UserChangedEvent.updated(userId, "athens@gmail.com", user.getLogin(), 2));
+    }
+
+    @Test
+    void testUpdateUserToRegisteredEmail() {
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
+        when(validationService.isValidEmail(anyString())).thenReturn(true);
+        when(validationService.isValidPassword(anyString())).thenReturn(true);
+        when(userRepository.updateAccount(eq(user.getId()), anyLong(), any()))
+            .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        userDto.setEmail("athens@gmail.com");
+
+        assertThrows(UserAlreadyRegisteredException.class, () -> userService.updateUser(userId, userDto));
+        verifyNoInteractions(emailOutbox, invalidationBus);
     }
 
     @Test
     void testUpdateUserFail() {
-        when(userRepository.findById(any(String.class))).thenReturn(Optional.empty());
+        when(userDao.findAccountById(any(UUID.class))).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.updateUser(UUID.randomUUID().toString(), userDto));
+        verify(userRepository, never()).updateAccount(any(), anyLong(), any());
+    }
+
+    @Test
+    void testUpdateUserDeletedConcurrently() {
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user), Optional.empty());
+        when(validationService.isValidEmail(anyString())).thenReturn(true);
+        when(validationService.isValidPassword(anyString())).thenReturn(true);
+        when(userRepository.updateAccount(eq(user.getId()), anyLong(), any())).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(userId, userDto));
+    }
+
+    @Test
+    void testUpdateUserRetriesOnConcurrentChange() throws Exception {
+        User changed = User.builder().id(user.getId()).name("Kratos").login("athens@gmail.com")
+            .principalVersion(5).build();
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user), Optional.of(changed));
+        when(validationService.isValidEmail(anyString())).thenReturn(true);
+        when(userRepository.updateAccount(user.getId(), 0, new UserChanges(null, "athens@gmail.com", null, false)))
+            .thenReturn(Optional.empty());
+        when(userRepository.updateAccount(user.getId(), 5, new UserChanges(null, null, null, null)))
+            .thenReturn(Optional.of(User.builder().id(user.getId()).login("athens@gmail.com").principalVersion(6).build()));
+
+        UserDto result = userService.updateUser(userId, UserDto.builder().email("athens@gmail.com").build());
+
+        assertEquals(6, result.getPrincipalVersion());
+        verify(userRepository, times(2)).updateAccount(eq(user.getId()), anyLong(), any());
+        verifyNoInteractions(emailOutbox);
+    }
+
+    @Test
+    void testUpdateUserGivesUpAfterRepeatedConflicts() {
+        when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
+        when(validationService.isValidEmail(anyString())).thenReturn(true);
+        when(validationService.isValidPassword(anyString())).thenReturn(true);
+        when(userRepository.updateAccount(eq(user.getId()), anyLong(), any())).thenReturn(Optional.empty());
+
+        assertThrows(ConcurrentUpdateException.class, () -> userService.updateUser(userId, userDto));
+        verify(userRepository, times(3)).updateAccount(eq(user.getId()), anyLong(), any());
+        verifyNoInteractions(invalidationBus);
     }
 
     @Test
     void testValidateUserEmailSuccess() {
-        when(tokenService.verifyToken(any(UUID.class))).thenReturn(true);
-        userDto.setId(UUID.randomUUID().toString());
-        when(tokenService.getUserWithToken(any(UUID.class))).thenReturn(Optional.of(userDto));
-        user.setId(userDto.getId());
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.of(user));
+        when(tokenService.consumeToken(any(UUID.class))).thenReturn(Optional.of(user.getId()));
+        when(userRepository.markValidated(user.getId())).thenReturn(OptionalLong.of(2));
 
-        boolean result = userService.validateUserEmail(UUID.randomUUID());
+        boolean result = userService.validateUserEmail(UUID.randomUUID().toString());
 
         assertTrue(result);
-        verify(userRepository, times(1)).save(user);
+        verify(userRepository, never()).findById(any());
+        verify(userDao, never()).findAccountById(any());
+        verify(userRepository, never()).save(any());
+        verify(invalidationBus).publish(UserChangedEvent.updated(userId, 2));
     }
 
     @Test
     void testValidateUserEmailFail() {
-        when(tokenService.verifyToken(any(UUID.class))).thenReturn(false);
+        when(tokenService.consumeToken(any(UUID.class))).thenReturn(Optional.empty());
 
-        boolean result = userService.validateUserEmail(UUID.randomUUID());
+        boolean result = userService.validateUserEmail(UUID.randomUUID().toString());
 
         assertFalse(result);
-        verify(userRepository, times(0)).save(user);
+        verify(userRepository, never()).markValidated(any());
     }
-}
 
+    @Test
+    void testValidateUserEmailWithSignedToken() {
+        IdentityTokenSigner.Claims claims = new IdentityTokenSigner.Claims(userId,
+            IdentityTokenSigner.Purpose.EMAIL_VALIDATION, Instant.now().plusSeconds(3600), 0);
+        when(tokenService.readSignedToken("signed", IdentityTokenSigner.Purpose.EMAIL_VALIDATION))
+            .thenReturn(Optional.of(claims));
+        when(userRepository.markValidated(user.getId(), 0)).thenReturn(OptionalLong.of(1));
+
+        assertTrue(userService.validateUserEmail("signed"));
+        verify(tokenService, never()).consumeToken(any());
+        verify(invalidationBus).publish(UserChangedEvent.updated(userId, 1));
+    }
+
+    @Test
+    void testValidateUserEmailWithUsedSignedToken() {
+        IdentityTokenSigner.Claims claims = new IdentityTokenSigner.Claims(userId,
+            IdentityTokenSigner.Purpose.EMAIL_VALIDATION, Instant.now().plusSeconds(3600), 0);
+        when(tokenService.readSignedToken("signed", IdentityTokenSigner.Purpose.EMAIL_VALIDATION))
+            .thenReturn(Optional.of(claims));
+        when(userRepository.markValidated(user.getId(), 0)).thenReturn(OptionalLong.empty());
+
+        assertFalse(userService.validateUserEmail("signed"));
+        verify(invalidationBus, never()).publish(any());
+    }
+
+    @Test
+    void testValidateUserEmailOfDeletedUser() {
+        when(tokenService.consumeToken(any(UUID.class))).thenReturn(Optional.of(user.getId()));
+        when(userRepository.markValidated(user.getId())).thenReturn(OptionalLong.empty());
+
+        assertFalse(userService.validateUserEmail(UUID.randomUUID().toString()));
+        verify(invalidationBus, never()).publish(any());
+    }
+}
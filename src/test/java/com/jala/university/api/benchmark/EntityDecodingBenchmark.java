@@ -0,0 +1,135 @@
+package com.jala.university.api.benchmark;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.codec.IdentityValidationTokenCodec;
+import com.jala.university.api.infrastructure.persistence.codec.UserCodec;
+import com.mongodb.MongoClientSettings;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Compares the cost of decoding a stored user and a stored validation token.
+ * <p>
+ * The {@code converter} benchmarks reproduce the repository path: the driver decodes the BSON into a
+ * Document, then the mapping converter reads the entity from it. The {@code codec} benchmarks decode
+ * the same bytes with the codecs used by the data-access objects of the hot paths.
+ * <p>
+ * Run after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt}, with
+ * the GC profiler to report the allocation per document:
+ * {@code java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main EntityDecodingBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityDecodingBenchmark {
+
+  private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+  private final Codec<Document> documentCodec = new DocumentCodec(CodecRegistries.withUuidRepresentation(
+      MongoClientSettings.getDefaultCodecRegistry(), UuidRepresentation.STANDARD))
+      .withUuidRepresentation(UuidRepresentation.STANDARD);
+  private final UserCodec userCodec = new UserCodec();
+  private final IdentityValidationTokenCodec tokenCodec = new IdentityValidationTokenCodec();
+
+  private MappingMongoConverter converter;
+  private byte[] user;
+  private byte[] token;
+
+  @Setup
+  public void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+
+    user = bytesOf(User.builder()
+        .id(UUID.randomUUID())
+        .name("Kratos of Sparta")
+        .login("kratos.sparta@gmail.com")
+        .password("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW")
+        .validated(true)
+        .principalVersion(4)
+        .build());
+    token = bytesOf(IdentityValidationToken.builder()
+        .id(UUID.randomUUID())
+        .userId(UUID.randomUUID())
+        .expiration(LocalDateTime.now().plusHours(1))
+        .build());
+  }
+
+  @Benchmark
+  public User converterUser() {
+    return converter.read(User.class, documentCodec.decode(readerOf(user), DECODER_CONTEXT));
+  }
+
+  @Benchmark
+  public User codecUser() {
+    return userCodec.decode(readerOf(user), DECODER_CONTEXT);
+  }
+
+  @Benchmark
+  public IdentityValidationToken converterToken() {
+    return converter.read(IdentityValidationToken.class, documentCodec.decode(readerOf(token), DECODER_CONTEXT));
+  }
+
+  @Benchmark
+  public IdentityValidationToken codecToken() {
+    return tokenCodec.decode(readerOf(token), DECODER_CONTEXT);
+  }
+
+  private byte[] bytesOf(Object entity) {
+    Document document = new Document();
+    converter.write(entity, document);
+
+    ByteBuffer buffer = new RawBsonDocument(document, documentCodec).getByteBuffer().asNIO();
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+
+    return bytes;
+  }
+
+  private static BsonBinaryReader readerOf(byte[] bytes) {
+    return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(EntityDecodingBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
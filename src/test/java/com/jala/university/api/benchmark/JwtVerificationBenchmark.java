@@ -0,0 +1,82 @@
+package com.jala.university.api.benchmark;
+
+import com.jala.university.api.infrastructure.persistence.security.JwtTokenProvider;
+import com.jala.university.api.infrastructure.persistence.security.JwtTokenUtil;
+import com.jala.university.api.infrastructure.persistence.security.JwtVerifier;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the JWT checks done by the authentication filter.
+ * <p>
+ * {@code legacyPath} reproduces the former filter: getUserIdFromToken followed by validateToken,
+ * which parses the token three times and rebuilds the key on each pass. {@code singleParse} is the
+ * JwtVerifier without cache and {@code cachedVerify} is the JwtVerifier answering from its cache.
+ * <p>
+ * Run after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt}:
+ * {@code java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main JwtVerificationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+  private static final String SECRET_KEY =
+      "NcA1xBfJrjGyryOOA8axupfFY7Mn6jhFMESDkl9BCaTJAak0MwCUJ5Lp8wzz4/ISzDvgSGhr6ANxS0velah4AA==";
+
+  private JwtTokenProvider jwtTokenProvider;
+  private JwtTokenUtil jwtTokenUtil;
+  private JwtVerifier uncachedVerifier;
+  private JwtVerifier cachedVerifier;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtTokenProvider = new JwtTokenProvider();
+    jwtTokenUtil = new JwtTokenUtil();
+    ReflectionTestUtils.setField(jwtTokenProvider, "secretKey", SECRET_KEY);
+    ReflectionTestUtils.setField(jwtTokenUtil, "secretKey", SECRET_KEY);
+
+    uncachedVerifier = new JwtVerifier(SECRET_KEY, 0);
+    cachedVerifier = new JwtVerifier(SECRET_KEY, 10_000);
+    token = jwtTokenProvider.generateToken("3f0a7c52-51b8-4d4e-9a64-2c1f4b0f9e11");
+  }
+
+  @Benchmark
+  public boolean legacyPath() {
+    String userId = jwtTokenUtil.getUserIdFromToken(token);
+    return jwtTokenProvider.validateToken(token, userId, jwtTokenUtil);
+  }
+
+  @Benchmark
+  public String singleParse() {
+    return uncachedVerifier.verify(token).subject();
+  }
+
+  @Benchmark
+  public String cachedVerify() {
+    return cachedVerifier.verify(token).subject();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(JwtVerificationBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
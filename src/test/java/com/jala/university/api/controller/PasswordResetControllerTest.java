@@ -4,7 +4,6 @@ import com.jala.university.api.application.service.ResetPasswordService;
 import com.jala.university.api.application.service.ValidationService;
 import com.jala.university.api.domain.exceptions.format.InvalidEmailFormatException;
 import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatException;
-import jakarta.mail.MessagingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -35,7 +34,7 @@ class PasswordResetControllerTest {
   }
 
   @Test
-  void testRequestPasswordResetSuccess() throws MessagingException, InvalidEmailFormatException {
+  void testRequestPasswordResetSuccess() throws InvalidEmailFormatException {
     // Arrange
     String email = "test@example.com";
     when(resetPasswordService.sendPasswordResetEmail(email)).thenReturn(true);
@@ -50,7 +49,7 @@ class PasswordResetControllerTest {
   }
 
   @Test
-  void testRequestPasswordResetEmailNotFound() throws MessagingException, InvalidEmailFormatException {
+  void testRequestPasswordResetEmailNotFound() throws InvalidEmailFormatException {
     // Arrange
     String email = "invalid@example.com";
     when(resetPasswordService.sendPasswordResetEmail(email)).thenReturn(false);
@@ -64,25 +63,10 @@ class PasswordResetControllerTest {
     verify(resetPasswordService, times(1)).sendPasswordResetEmail(email);
   }
 
-  @Test
-  void testRequestPasswordResetMessagingException() throws MessagingException, InvalidEmailFormatException {
-    // Arrange
-    String email = "test@example.com";
-    when(resetPasswordService.sendPasswordResetEmail(email)).thenThrow(new MessagingException("Email sending failed"));
-
-    // Act
-    ResponseEntity<String> response = passwordResetController.requestPasswordReset(email);
-
-    // Assert
-    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-    assertEquals("An error occurred while processing your request.", response.getBody());
-    verify(resetPasswordService, times(1)).sendPasswordResetEmail(email);
-  }
-
   @Test
   void testUpdatePasswordSuccess() throws InvalidPasswordFormatException {
     // Arrange
-    UUID token = UUID.randomUUID();
+    String token = UUID.randomUUID().toString();
     String password = "newPassword";
     when(resetPasswordService.resetPassword(eq(token), eq(password))).thenReturn(true);
 
@@ -98,7 +82,7 @@ class PasswordResetControllerTest {
   @Test
   void testUpdatePasswordFailure() throws InvalidPasswordFormatException {
     // Arrange
-    UUID token = UUID.randomUUID();
+    String token = UUID.randomUUID().toString();
     String password = "newPassword";
     when(resetPasswordService.resetPassword(eq(token), eq(password))).thenReturn(false);
 
@@ -113,7 +97,7 @@ class PasswordResetControllerTest {
 
   @Test
   void testUpdatePasswordMessaginException() throws InvalidPasswordFormatException {
-    UUID token = UUID.randomUUID();
+    String token = UUID.randomUUID().toString();
     String password = "newPassword";
     doThrow(new InvalidPasswordFormatException()).when(resetPasswordService).resetPassword(token, password);
     ResponseEntity<String> response = passwordResetController.updatePassword(token, password);
@@ -122,7 +106,7 @@ class PasswordResetControllerTest {
   }
 
   @Test
-  void testInvalidEmailFormatException() throws MessagingException, InvalidEmailFormatException {
+  void testInvalidEmailFormatException() throws InvalidEmailFormatException {
     String email = "invalidexample.com";
     doThrow(new InvalidEmailFormatException()).when(resetPasswordService).sendPasswordResetEmail(email);
     ResponseEntity<String> response = passwordResetController.requestPasswordReset(email);
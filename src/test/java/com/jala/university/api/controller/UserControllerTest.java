@@ -11,14 +11,16 @@ import com.jala.university.api.domain.exceptions.format.InvalidPasswordFormatExc
 import com.jala.university.api.domain.exceptions.user.UserAlreadyRegisteredException;
 import com.jala.university.api.domain.exceptions.user.UserNotFoundException;
 import com.jala.university.api.infrastructure.persistence.security.JwtTokenProvider;
-import jakarta.mail.MessagingException;
+import com.jala.university.api.infrastructure.persistence.security.LoginThrottle;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import java.util.UUID;
 
@@ -33,6 +35,8 @@ class UserControllerTest {
     private UserService userService;
     @Mock
     private JwtTokenProvider jwtTokenProvider;
+    @Mock
+    private LoginThrottle loginThrottle;
     @InjectMocks
     private UserController userController;
 
@@ -72,15 +76,16 @@ class UserControllerTest {
             .password(testUserDto.getPassword())
             .build();
         when(authService.login(any(UserCredentials.class))).thenReturn(testUserDto);
-        when(jwtTokenProvider.generateToken(anyString())).thenReturn(testToken);
+        when(jwtTokenProvider.generateToken(any(UserDto.class))).thenReturn(testToken);
 
-        ResponseEntity<String> response = userController.loginUser(credentials);
+        ResponseEntity<String> response = userController.loginUser(credentials, new MockHttpServletRequest());
 
         assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
         assertTrue(response.getBody().contains(testToken));
 
         verify(authService).login(credentials);
-        verify(jwtTokenProvider).generateToken(testUserDto.getId());
+        verify(jwtTokenProvider).generateToken(testUserDto);
+        verify(loginThrottle).recordSuccess(testUserDto.getEmail());
     }
 
     @Test
@@ -93,13 +98,29 @@ class UserControllerTest {
         when(authService.login(any(UserCredentials.class)))
             .thenThrow(new InvalidAuthenticationCredentialsException("Invalid credentials"));
 
-        ResponseEntity<String> response = userController.loginUser(credentials);
+        ResponseEntity<String> response = userController.loginUser(credentials, new MockHttpServletRequest());
 
         assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatusCodeValue());
         assertEquals("Invalid Credentials: Invalid credentials", response.getBody());
 
         verify(authService).login(credentials);
-        verify(jwtTokenProvider, never()).generateToken(anyString());
+        verify(jwtTokenProvider, never()).generateToken(any(UserDto.class));
+        verify(loginThrottle).recordFailure(eq(testUserDto.getEmail()), anyString());
+    }
+
+    @Test
+    void testLoginUser_Throttled() throws Exception {
+        UserCredentials credentials = UserCredentials.builder()
+            .login(testUserDto.getEmail())
+            .password(testUserDto.getPassword())
+            .build();
+        when(loginThrottle.tryAcquire(eq(testUserDto.getEmail()), anyString())).thenReturn(1500L);
+
+        ResponseEntity<String> response = userController.loginUser(credentials, new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatusCodeValue());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(authService, never()).login(any(UserCredentials.class));
     }
 
     @Test
@@ -128,7 +149,8 @@ class UserControllerTest {
 
     @Test
     void testUpdateUser_InvalidEmailFormat()
-            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException, MessagingException {
+            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException,
+            UserAlreadyRegisteredException {
         when(userService.updateUser(eq(testUserDto.getId()), any(UserDto.class)))
                 .thenThrow(new InvalidEmailFormatException("Invalid email format"));
 
@@ -142,7 +164,8 @@ class UserControllerTest {
 
     @Test
     void testUpdateUser_InvalidPasswordFormat()
-            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException, MessagingException {
+            throws UserNotFoundException, InvalidEmailFormatException, InvalidPasswordFormatException,
+            UserAlreadyRegisteredException {
         when(userService.updateUser(eq(testUserDto.getId()), any(UserDto.class)))
                 .thenThrow(new InvalidPasswordFormatException("Invalid password format"));
 
@@ -180,7 +203,7 @@ class UserControllerTest {
 
     @Test
     void testCreateUser_InvalidEmailFormat()
-            throws InvalidEmailFormatException, InvalidPasswordFormatException, UserAlreadyRegisteredException, MessagingException {
+            throws InvalidEmailFormatException, InvalidPasswordFormatException, UserAlreadyRegisteredException {
         Exception exception = new InvalidEmailFormatException("Invalid email format");
 
         when(userService.createUser(invalidUserDto))
@@ -196,7 +219,7 @@ class UserControllerTest {
 
     @Test
     void testCreateUser_Success()
-            throws InvalidEmailFormatException, InvalidPasswordFormatException, UserAlreadyRegisteredException, MessagingException {
+            throws InvalidEmailFormatException, InvalidPasswordFormatException, UserAlreadyRegisteredException {
         when(userService.createUser(testUserDto)).thenReturn(createdUser);
 
         ResponseEntity<Object> response = userController.createUser(testUserDto);
@@ -209,7 +232,7 @@ class UserControllerTest {
 
     @Test
     void testCreateAlreadyRegisteredUser()
-            throws InvalidPasswordFormatException, UserAlreadyRegisteredException, InvalidEmailFormatException, MessagingException {
+            throws InvalidPasswordFormatException, UserAlreadyRegisteredException, InvalidEmailFormatException {
         Exception exception = new UserAlreadyRegisteredException("User already registered");
 
         when(userService.createUser(any())).thenThrow(exception);
@@ -222,7 +245,8 @@ class UserControllerTest {
 
     @Test
     void testUpdateNotFoundUser()
-            throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException, MessagingException {
+            throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException,
+            UserAlreadyRegisteredException {
         when(userService.updateUser(any(), any())).thenThrow(new UserNotFoundException("User not found"));
 
         ResponseEntity<Object> response = userController.updateUser(testUserDto.getId(), testUserDto);
@@ -231,9 +255,23 @@ class UserControllerTest {
         assertEquals("User not found", response.getBody());
     }
 
+    @Test
+    void testUpdateUserWithRegisteredEmail()
+            throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException,
+            UserAlreadyRegisteredException {
+        when(userService.updateUser(any(), any()))
+                .thenThrow(new UserAlreadyRegisteredException("The email is already registered"));
+
+        ResponseEntity<Object> response = userController.updateUser(testUserDto.getId(), testUserDto);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("The email is already registered", response.getBody());
+    }
+
     @Test
     void testUpdateUserSuccess()
-            throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException, MessagingException {
+            throws UserNotFoundException, InvalidPasswordFormatException, InvalidEmailFormatException,
+            UserAlreadyRegisteredException {
         when(userService.updateUser(testUserDto.getId(), testUserDto)).thenReturn(testUserDto);
 
         ResponseEntity<Object> response = userController.updateUser(testUserDto.getId(), testUserDto);
@@ -244,9 +282,9 @@ class UserControllerTest {
 
     @Test
     void testValidateUserEmail_Success() {
-        when(userService.validateUserEmail(any(UUID.class))).thenReturn(true);
+        when(userService.validateUserEmail(anyString())).thenReturn(true);
 
-        ResponseEntity<String> response = userController.validateEmail(UUID.randomUUID());
+        ResponseEntity<String> response = userController.validateEmail(UUID.randomUUID().toString());
 
         assertEquals(HttpStatus.OK.value(), response.getStatusCodeValue());
         assertEquals("The user was validated", response.getBody());
@@ -254,9 +292,9 @@ class UserControllerTest {
 
     @Test
     void testValidateUserEmail_Fail() {
-        when(userService.validateUserEmail(any(UUID.class))).thenReturn(false);
+        when(userService.validateUserEmail(anyString())).thenReturn(false);
 
-        ResponseEntity<String> response = userController.validateEmail(UUID.randomUUID());
+        ResponseEntity<String> response = userController.validateEmail(UUID.randomUUID().toString());
 
         assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatusCodeValue());
         assertEquals("Invalid or expired token", response.getBody());
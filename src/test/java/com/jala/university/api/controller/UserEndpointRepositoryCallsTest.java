@@ -0,0 +1,221 @@
+package com.jala.university.api.controller;
+
+import com.jala.university.api.application.dto.UserDto;
+import com.jala.university.api.application.service.AuthServices;
+import com.jala.university.api.application.service.EmailOutbox;
+import com.jala.university.api.application.service.TokenService;
+import com.jala.university.api.application.service.impl.UserServiceImpl;
+import com.jala.university.api.application.service.impl.ValidationServiceImpl;
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.domain.repository.UserDao;
+import com.jala.university.api.domain.repository.UserRepository;
+import com.jala.university.api.infrastructure.persistence.cache.LoopbackUserInvalidationBus;
+import com.jala.university.api.infrastructure.persistence.cache.UserCache;
+import com.jala.university.api.infrastructure.persistence.security.JwtAuthenticationFilter;
+import com.jala.university.api.infrastructure.persistence.security.JwtTokenProvider;
+import com.jala.university.api.infrastructure.persistence.security.JwtVerifier;
+import com.jala.university.api.infrastructure.persistence.security.LoginThrottle;
+import com.jala.university.api.infrastructure.persistence.security.PrincipalVersionRegistry;
+import com.jala.university.api.infrastructure.persistence.security.PublicRoutesConfig;
+import com.jala.university.api.infrastructure.persistence.security.RequestUserContext;
+import com.jala.university.api.infrastructure.persistence.security.RouteTable;
+import com.jala.university.api.infrastructure.persistence.security.UserAuthorizationFilter;
+import com.jala.university.api.infrastructure.persistence.utils.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the user scoped endpoints through the authentication and authorization filters and counts
+ * the reads made on the users collection.
+ */
+class UserEndpointRepositoryCallsTest {
+
+  private static final String SECRET_KEY =
+      "NcA1xBfJrjGyryOOA8axupfFY7Mn6jhFMESDkl9BCaTJAak0MwCUJ5Lp8wzz4/ISzDvgSGhr6ANxS0velah4AA==";
+
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private UserDao userDao;
+  @Mock
+  private PasswordEncoder passwordEncoder;
+  @Mock
+  private TokenService tokenService;
+  @Mock
+  private EmailOutbox emailOutbox;
+  @Mock
+  private AuthServices authServices;
+
+  private JwtTokenProvider jwtTokenProvider;
+  private UserAuthorizationFilter authorizationFilter;
+  private MockMvc mockMvc;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+
+    jwtTokenProvider = new JwtTokenProvider();
+    ReflectionTestUtils.setField(jwtTokenProvider, "secretKey", SECRET_KEY);
+
+    PublicRoutesConfig publicRoutesConfig = new PublicRoutesConfig();
+    ReflectionTestUtils.setField(publicRoutesConfig, "publicRoutesStrings", List.of("/users/login", "/users/register"));
+
+    PrincipalVersionRegistry principalVersionRegistry = new PrincipalVersionRegistry();
+    UserCache userCache = new UserCache(100, 300);
+    LoopbackUserInvalidationBus invalidationBus =
+        new LoopbackUserInvalidationBus(List.of(userCache, principalVersionRegistry));
+    UserServiceImpl userService = new UserServiceImpl(userRepository, userDao, passwordEncoder, new ValidationServiceImpl(),
+        tokenService, emailOutbox, invalidationBus, new RequestUserContext(), userCache,
+        new OptimisticRetry(3, 0, 0, new SimpleMeterRegistry()));
+    UserController userController = new UserController(authServices, jwtTokenProvider, userService,
+        mock(LoginThrottle.class));
+    RouteTable routeTable = new RouteTable(List.of(handlerMappingFor(userController)), publicRoutesConfig);
+
+    JwtAuthenticationFilter authenticationFilter = new JwtAuthenticationFilter(new JwtVerifier(SECRET_KEY, 100),
+        jwtTokenProvider, principalVersionRegistry, userService, routeTable);
+    authorizationFilter = new UserAuthorizationFilter(routeTable, userRepository, userService);
+
+    mockMvc = MockMvcBuilders
+        .standaloneSetup(userController)
+        .addFilters(authenticationFilter, authorizationFilter)
+        .build();
+
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .name("Kratos")
+        .login("sparta@gmail.com")
+        .password("encoded")
+        .validated(true)
+        .build();
+
+    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    when(userDao.findAccountById(user.getId())).thenReturn(Optional.of(user));
+    when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void testGetUserReadsOnce() throws Exception {
+    mockMvc.perform(get("/users/" + user.getId()).header("Authorization", bearer()))
+        .andExpect(status().isOk());
+
+    verify(userDao, times(1)).findAccountById(user.getId());
+    verify(userRepository, never()).findById(any());
+    verify(userRepository, never()).existsById(any());
+  }
+
+  @Test
+  void testUpdateUserReadsOnce() throws Exception {
+    when(userRepository.updateAccount(eq(user.getId()), anyLong(), any())).thenReturn(Optional.of(user));
+
+    mockMvc.perform(patch("/users/" + user.getId()).header("Authorization", bearer())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Atreus\"}"))
+        .andExpect(status().isOk());
+
+    verify(userDao, times(1)).findAccountById(user.getId());
+    verify(userRepository, never()).findById(any());
+    verify(userRepository, times(1)).updateAccount(eq(user.getId()), anyLong(), any());
+    verify(userRepository, never()).save(any());
+    verify(userRepository, never()).existsById(any());
+  }
+
+  @Test
+  void testDeleteUserReadsOnce() throws Exception {
+    mockMvc.perform(delete("/users/" + user.getId()).header("Authorization", bearer()))
+        .andExpect(status().isOk());
+
+    verify(userDao, times(1)).findAccountById(user.getId());
+    verify(userRepository, never()).findById(any());
+    verify(userRepository, never()).existsById(any());
+    verify(userRepository).deleteById(user.getId());
+  }
+
+  @Test
+  void testGetUserWithClaimsPrincipalReadsOnce() throws Exception {
+    ReflectionTestUtils.setField(jwtTokenProvider, "claimsPrincipalEnabled", true);
+
+    mockMvc.perform(get("/users/" + user.getId()).header("Authorization", bearer()))
+        .andExpect(status().isOk());
+
+    verify(userDao, times(1)).findAccountById(user.getId());
+    verify(userRepository, never()).existsById(any());
+  }
+
+  @Test
+  void testGetAnotherUserOnlyChecksExistence() throws Exception {
+    UUID anotherUserId = UUID.randomUUID();
+    when(userRepository.existsById(anotherUserId)).thenReturn(true);
+
+    mockMvc.perform(get("/users/" + anotherUserId).header("Authorization", bearer()))
+        .andExpect(status().isForbidden());
+
+    verify(userDao, times(1)).findAccountById(user.getId());
+    verify(userRepository, times(1)).existsById(anotherUserId);
+  }
+
+  @Test
+  void testRoutesOutsideOfUsersAreNotAuthorized() throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+
+    authorizationFilter.doFilter(new MockHttpServletRequest("GET", "/actuator/metrics"),
+        new MockHttpServletResponse(), chain);
+
+    assertNotNull(chain.getRequest());
+    verifyNoInteractions(userRepository, userDao);
+  }
+
+  private static RequestMappingHandlerMapping handlerMappingFor(Object controller) {
+    StaticApplicationContext context = new StaticApplicationContext();
+    context.getBeanFactory().registerSingleton("userController", controller);
+    context.refresh();
+
+    RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.afterPropertiesSet();
+
+    return handlerMapping;
+  }
+
+  private String bearer() {
+    return "Bearer " + jwtTokenProvider.generateToken(UserDto.builder()
+        .id(user.getId().toString())
+        .name(user.getName())
+        .email(user.getLogin())
+        .validated(true)
+        .build());
+  }
+}
@@ -0,0 +1,214 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.jala.university.api.domain.entity.OutboxEmail;
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.codec.IdentityValidationTokenCodec;
+import com.jala.university.api.infrastructure.persistence.codec.UserCodec;
+import com.jala.university.api.infrastructure.persistence.maintenance.MongoIndexBootstrap;
+import com.jala.university.api.infrastructure.persistence.utils.Uuids;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query used by the application against a seeded database and fails if the
+ * plan of any of them scans the whole collection. The indexes are the ones created by
+ * {@link MongoIndexBootstrap}. Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryQueryPlanTest {
+
+  private static final int SEEDED_USERS = 2000;
+  private static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "findAndModify", "count", "aggregate",
+      "update", "delete", "distinct");
+  private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+      "$readPreference");
+
+  @Container
+  private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+  private static final List<BsonDocument> commands = Collections.synchronizedList(new ArrayList<>());
+  private static MongoClient client;
+  private static MongoDatabase database;
+  private static UserRepository userRepository;
+  private static IdentityValidationTokenRepository tokenRepository;
+  private static UserDao userDao;
+  private static IdentityValidationTokenDao tokenDao;
+  private static OutboxEmailRepository outboxRepository;
+
+  private final List<User> users = new ArrayList<>();
+  private final List<IdentityValidationToken> tokens = new ArrayList<>();
+
+  @BeforeAll
+  static void setUpDatabase() {
+    CommandListener listener = new CommandListener() {
+      @Override
+      public void commandStarted(CommandStartedEvent event) {
+        if (EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+          commands.add(event.getCommand().clone());
+        }
+      }
+    };
+
+    client = MongoClients.create(MongoClientSettings.builder()
+        .applyConnectionString(new ConnectionString(MONGO.getReplicaSetUrl("users")))
+        .uuidRepresentation(UuidRepresentation.STANDARD)
+        .codecRegistry(CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(new UserCodec(), new IdentityValidationTokenCodec()),
+            MongoClientSettings.getDefaultCodecRegistry()))
+        .addCommandListener(listener)
+        .build());
+    database = client.getDatabase("users");
+
+    MongoTemplate mongoTemplate = new MongoTemplate(client, "users");
+    MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+
+    new MongoIndexBootstrap(mongoTemplate, true, MongoIndexBootstrap.DriftAction.FAIL).afterSingletonsInstantiated();
+    userRepository = factory.getRepository(UserRepository.class, new UserRepositoryCustomImpl(mongoTemplate));
+    tokenRepository = factory.getRepository(IdentityValidationTokenRepository.class,
+        new IdentityValidationTokenRepositoryCustomImpl(mongoTemplate));
+    outboxRepository = factory.getRepository(OutboxEmailRepository.class,
+        new OutboxEmailRepositoryCustomImpl(mongoTemplate));
+    userDao = new UserDao(mongoTemplate);
+    tokenDao = new IdentityValidationTokenDao(mongoTemplate);
+  }
+
+  @AfterAll
+  static void tearDownDatabase() {
+    client.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    userRepository.deleteAll();
+    tokenRepository.deleteAll();
+
+    IntStream.range(0, SEEDED_USERS).forEach(i -> users.add(User.builder()
+        .id(Uuids.timeOrdered())
+        .name("User " + i)
+        .login("user" + i + "@gmail.com")
+        .loginKey("user" + i + "@gmail.com")
+        .password("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW")
+        .validated(i % 2 == 0)
+        .build()));
+    userRepository.insert(users);
+
+    users.forEach(user -> tokens.add(IdentityValidationToken.builder()
+        .id(UUID.randomUUID())
+        .userId(user.getId())
+        .expiration(LocalDateTime.now().plusHours(1))
+        .verified(tokens.size() % 10 == 0)
+        .build()));
+    tokenRepository.insert(tokens);
+
+    outboxRepository.deleteAll();
+    outboxRepository.insert(IntStream.range(0, SEEDED_USERS).mapToObj(i -> OutboxEmail.builder()
+        .id(Uuids.timeOrdered())
+        .to("user" + i + "@gmail.com")
+        .subject("Verify your identity")
+        .body("token")
+        .status(i % 10 == 0 ? OutboxEmail.Status.PENDING : OutboxEmail.Status.DEAD)
+        .attempts(1)
+        .nextAttemptAt(i % 10 == 0 ? LocalDateTime.now().plusMinutes(i % 20 - 10) : null)
+        .build()).toList());
+
+    commands.clear();
+  }
+
+  @Test
+  void testUserQueriesUseIndexes() {
+    User user = users.get(SEEDED_USERS / 2);
+
+    assertIndexed(repository -> repository.findById(user.getId()));
+    assertIndexed(repository -> repository.existsById(user.getId()));
+    assertIndexed(repository -> repository.updatePassword(user.getId(), user.getPassword(), "hash"));
+    assertIndexed(repository -> repository.markValidated(user.getId()));
+    assertIndexed(repository -> repository.markValidated(user.getId(), 1));
+    assertIndexed(repository -> repository.resetPassword(user.getId(), 2, "hash"));
+    assertIndexed(repository -> repository.resetPassword(user.getId(), "hash"));
+    assertIndexed(repository -> repository.updateAccount(user.getId(), 4,
+        new UserChanges("Renamed", null, null, null)));
+    assertIndexed(repository -> repository.deleteById(user.getId()));
+    assertIndexed(repository -> userDao.findAccountByLogin(user.getLogin()));
+    assertIndexed(repository -> userDao.findCredentialsByLogin(user.getLogin()));
+    assertIndexed(repository -> userDao.findAccountById(user.getId()));
+  }
+
+  @Test
+  void testTokenQueriesUseIndexes() {
+    IdentityValidationToken token = tokens.get(1);
+
+    commands.clear();
+    tokenDao.findById(token.getId());
+    tokenDao.consume(token.getId(), LocalDateTime.now());
+    tokenRepository.deleteVerified(100);
+
+    assertNoCollectionScan();
+  }
+
+  @Test
+  void testOutboxQueriesUseIndexes() {
+    LocalDateTime now = LocalDateTime.now();
+    OutboxEmail email = outboxRepository.claimNext(now, now.plusMinutes(2)).orElseThrow();
+    UUID id = email.getId();
+
+    commands.clear();
+    outboxRepository.claimNext(now, now.plusMinutes(2));
+    outboxRepository.renewLease(id, email.getAttempts(), now.plusMinutes(2));
+    outboxRepository.reschedule(id, email.getAttempts(), now, "error");
+    outboxRepository.release(id, email.getAttempts(), now);
+    outboxRepository.markDead(id, email.getAttempts() - 1, "error", now.plusDays(7));
+    outboxRepository.deleteClaimed(id, email.getAttempts() - 1);
+
+    assertNoCollectionScan();
+  }
+
+  private void assertIndexed(Consumer<UserRepository> query) {
+    commands.clear();
+    query.accept(userRepository);
+    assertNoCollectionScan();
+  }
+
+  private void assertNoCollectionScan() {
+    List<BsonDocument> issued = List.copyOf(commands);
+    assertFalse(issued.isEmpty(), "No query was issued");
+
+    for (BsonDocument command : issued) {
+      BsonDocument explained = command.clone();
+      SESSION_FIELDS.forEach(explained::remove);
+
+      String plan = database.runCommand(new BsonDocument("explain", explained)
+          .append("verbosity", new BsonString("queryPlanner")), BsonDocument.class).toJson();
+
+      assertFalse(plan.contains("COLLSCAN"), () -> "Collection scan for " + explained.toJson() + ": " + plan);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.jala.university.api.domain.repository;
+
+import com.jala.university.api.domain.entity.User;
+import com.mongodb.MongoClientSettings;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the size of a stored user with the size of the projections read by the endpoints.
+ */
+class UserProjectionSizeTest {
+
+  private static final DocumentCodec CODEC = new DocumentCodec(CodecRegistries.withUuidRepresentation(
+      MongoClientSettings.getDefaultCodecRegistry(), UuidRepresentation.STANDARD));
+
+  private MongoPersistentEntity<?> entity;
+  private Document stored;
+
+  @BeforeEach
+  void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+    entity = mappingContext.getRequiredPersistentEntity(User.class);
+
+    User user = User.builder()
+        .id(UUID.randomUUID())
+        .name("Kratos of Sparta")
+        .login("kratos.sparta@gmail.com")
+        .password("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW")
+        .validated(true)
+        .principalVersion(4)
+        .build();
+
+    stored = new Document();
+    converter.write(user, stored);
+  }
+
+  @Test
+  void testAccountProjectionLeavesOutPassword() {
+    Document account = project(stored, UserDao.ACCOUNT_FIELDS.toBsonDocument().toJson());
+
+    assertFalse(account.containsKey(User.PASSWORD_FIELD));
+    assertFalse(stored.containsKey("_class"));
+    assertEquals(stored.get("_id"), account.get("_id"));
+    assertEquals(stored.get(User.PRINCIPAL_VERSION_FIELD), account.get(User.PRINCIPAL_VERSION_FIELD));
+    assertTrue(sizeOf(account) + stored.getString(User.PASSWORD_FIELD).length() < sizeOf(stored));
+  }
+
+  @Test
+  void testCredentialsProjectionKeepsOnlyWhatLoginNeeds() {
+    Document credentials = project(stored, UserDao.CREDENTIALS_FIELDS.toBsonDocument().toJson());
+
+    assertEquals(stored.get(User.PASSWORD_FIELD), credentials.get(User.PASSWORD_FIELD));
+    assertEquals(stored.keySet(), credentials.keySet());
+  }
+
+  @Test
+  void testLegacyTokensAreNotRead() {
+    Document legacy = new Document(stored).append("tokens", List.of(
+        new Document("_id", UUID.randomUUID().toString()).append("verified", true),
+        new Document("_id", UUID.randomUUID().toString()).append("verified", false)));
+
+    assertEquals(sizeOf(project(stored, UserDao.ACCOUNT_FIELDS.toBsonDocument().toJson())),
+        sizeOf(project(legacy, UserDao.ACCOUNT_FIELDS.toBsonDocument().toJson())));
+  }
+
+  private Document project(Document document, String fields) {
+    Document projection = Document.parse(fields);
+    Document projected = new Document("_id", document.get("_id"));
+
+    projection.keySet().stream()
+        .map(property -> entity.getPersistentProperty(property) != null
+            ? entity.getRequiredPersistentProperty(property).getFieldName() : property)
+        .filter(document::containsKey)
+        .forEach(field -> projected.append(field, document.get(field)));
+
+    return projected;
+  }
+
+  private static int sizeOf(Document document) {
+    return new RawBsonDocument(document, CODEC).getByteBuffer().remaining();
+  }
+}
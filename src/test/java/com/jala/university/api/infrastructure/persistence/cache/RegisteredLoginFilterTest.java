@@ -0,0 +1,158 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisteredLoginFilterTest {
+
+  private RegisteredLoginFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    filter = new RegisteredLoginFilter(10_000, 0.01);
+  }
+
+  @Test
+  void testEverythingMayExistUntilRebuilt() {
+    assertTrue(filter.mightContain("nobody@gmail.com"));
+
+    filter.rebuild(Stream.of("sparta@gmail.com"));
+
+    assertTrue(filter.mightContain("sparta@gmail.com"));
+    assertFalse(filter.mightContain("nobody@gmail.com"));
+  }
+
+  @Test
+  void testAddedLoginsAreNeverMissed() {
+    filter.rebuild(IntStream.range(0, 10_000).mapToObj(i -> "user" + i + "@gmail.com"));
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("user" + i + "@gmail.com"));
+    }
+  }
+
+  @Test
+  void testLoginsAreFoundWhateverTheirCase() {
+    filter.rebuild(Stream.of("Sparta@Gmail.com"));
+
+    assertTrue(filter.mightContain("sparta@gmail.com"));
+    assertTrue(filter.mightContain(" SPARTA@gmail.com "));
+  }
+
+  @Test
+  void testFalsePositiveRateStaysNearTarget() {
+    filter.rebuild(IntStream.range(0, 10_000).mapToObj(i -> "user" + i + "@gmail.com"));
+
+    long falsePositives = IntStream.range(0, 100_000)
+        .filter(i -> filter.mightContain(UUID.randomUUID() + "@gmail.com"))
+        .count();
+
+    assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+  }
+
+  @Test
+  void testEventsAddAndRemoveLogins() {
+    filter.rebuild(Stream.empty());
+
+    filter.onUserChanged(UserChangedEvent.created("1", "sparta@gmail.com"));
+    filter.onUserChanged(UserChangedEvent.updated("2", "athens@gmail.com", 1));
+    assertTrue(filter.mightContain("sparta@gmail.com"));
+    assertTrue(filter.mightContain("athens@gmail.com"));
+
+    filter.onUserChanged(UserChangedEvent.deleted("1", "sparta@gmail.com"));
+    assertFalse(filter.mightContain("sparta@gmail.com"));
+  }
+
+  @Test
+  void testUpdateToFalsePositiveThenDeleteKeepsOtherLogins() {
+    RegisteredLoginFilter small = new RegisteredLoginFilter(100, 0.1);
+    List<String> registered = IntStream.range(0, 100).mapToObj(i -> "user" + i + "@gmail.com").toList();
+    small.rebuild(registered.stream());
+    List<String> falsePositives = IntStream.range(0, 1_000_000)
+        .mapToObj(i -> "other" + i + "@gmail.com")
+        .filter(small::mightContain)
+        .limit(20)
+        .toList();
+
+    for (String login : falsePositives) {
+      small.onUserChanged(UserChangedEvent.updated(login, login, 1));
+      small.onUserChanged(UserChangedEvent.deleted(login, login));
+    }
+
+    assertTrue(registered.stream().allMatch(small::mightContain));
+  }
+
+  @Test
+  void testUpdateMovesTheLogin() {
+    filter.rebuild(Stream.of("sparta@gmail.com"));
+
+    filter.onUserChanged(UserChangedEvent.updated("1", "athens@gmail.com", "sparta@gmail.com", 1));
+
+    assertTrue(filter.mightContain("athens@gmail.com"));
+    assertFalse(filter.mightContain("sparta@gmail.com"));
+  }
+
+  @Test
+  void testResetForgetsLoginsUntilRebuilt() {
+    filter.rebuild(Stream.of("sparta@gmail.com"));
+
+    filter.reset();
+
+    assertFalse(filter.isReady());
+    assertTrue(filter.mightContain("nobody@gmail.com"));
+
+    filter.rebuild(Stream.of("athens@gmail.com"));
+
+    assertTrue(filter.mightContain("athens@gmail.com"));
+    assertFalse(filter.mightContain("sparta@gmail.com"));
+  }
+
+  @Test
+  void testResetDuringRebuildLeavesTheFilterNotReady() {
+    filter.rebuild(Stream.of("sparta@gmail.com").peek(login -> filter.reset()));
+
+    assertFalse(filter.isReady());
+  }
+
+  @Test
+  void testLookupShortCircuitsAndCountsFalsePositives() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    filter.bindTo(registry);
+    filter.rebuild(Stream.of("sparta@gmail.com"));
+    AtomicInteger queries = new AtomicInteger();
+
+    Optional<String> absent = filter.lookup("nobody@gmail.com", login -> {
+      queries.incrementAndGet();
+      return Optional.of(login);
+    });
+    filter.lookup("sparta@gmail.com", login -> {
+      queries.incrementAndGet();
+      return Optional.empty();
+    });
+
+    assertTrue(absent.isEmpty());
+    assertEquals(1, queries.get());
+    assertEquals(0.5, filter.observedFalsePositiveRate());
+    assertEquals(1, registry.get("users.login-filter.lookups").tag("result", "absent").counter().count());
+    assertEquals(filter.memoryBytes(), registry.get("users.login-filter.memory").gauge().value());
+  }
+
+  @Test
+  void testConcurrentAddsAreAllKept() {
+    filter.rebuild(Stream.empty());
+
+    IntStream.range(0, 10_000).parallel().forEach(i -> filter.add("user" + i + "@gmail.com"));
+
+    assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user" + i + "@gmail.com")));
+  }
+}
@@ -0,0 +1,73 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+  @Test
+  void testValuesExpireAtTheirDeadlineAcrossLevels() {
+    List<Long> expired = new ArrayList<>();
+    long[] now = {0};
+    TimingWheel<Long> wheel = new TimingWheel<>(1000, 0, deadline -> {
+      assertTrue(deadline <= now[0], "expired before its deadline");
+      assertTrue(now[0] - deadline < 1000, "expired more than a tick late");
+      expired.add(deadline);
+    });
+
+    Random random = new Random(7);
+    List<Long> deadlines = new ArrayList<>();
+
+    for (int i = 0; i < 5_000; i++) {
+      long deadline = 1000L * (1 + random.nextInt(2 * 3600));
+      deadlines.add(deadline);
+      wheel.schedule(deadline, deadline);
+    }
+
+    for (now[0] = 0; now[0] <= 2 * 3600 * 1000L; now[0] += 1000) {
+      wheel.advance(now[0]);
+    }
+
+    assertEquals(deadlines.size(), expired.size());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void testCancelledValueNeverExpires() {
+    List<String> expired = new ArrayList<>();
+    TimingWheel<String> wheel = new TimingWheel<>(1000, 0, expired::add);
+
+    TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 90_000);
+    wheel.schedule("kept", 90_000);
+    wheel.cancel(cancelled);
+    wheel.advance(100_000);
+
+    assertEquals(List.of("kept"), expired);
+  }
+
+  @Test
+  void testPastDeadlineIsNotScheduled() {
+    TimingWheel<String> wheel = new TimingWheel<>(1000, 10_000, value -> fail());
+
+    assertNull(wheel.schedule("late", 9_000));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void testDeadlineBeyondTheWheelSpanExpires() {
+    List<String> expired = new ArrayList<>();
+    long span = 1L << 24;
+    TimingWheel<String> wheel = new TimingWheel<>(1, 5, expired::add);
+
+    wheel.schedule("far", span + 100);
+    wheel.advance(span + 99);
+    assertTrue(expired.isEmpty());
+
+    wheel.advance(span + 100);
+    assertEquals(List.of("far"), expired);
+  }
+}
@@ -0,0 +1,143 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+  private UserCache userCache;
+  private User user;
+  private String userId;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    userCache = new UserCache(100, 300);
+    loads = new AtomicInteger();
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .name("Kratos")
+        .login("sparta@gmail.com")
+        .password("encoded")
+        .validated(true)
+        .build();
+    userId = user.getId().toString();
+  }
+
+  @Test
+  void testFindByIdLoadsOnce() {
+    userCache.findById(userId, this::loadById);
+    Optional<User> cached = userCache.findById(userId, this::loadById);
+
+    assertEquals(1, loads.get());
+    assertTrue(cached.isPresent());
+    assertEquals(user.getLogin(), cached.get().getLogin());
+  }
+
+  @Test
+  void testFindByLoginSharesEntryWithId() {
+    userCache.findByLogin(user.getLogin(), this::loadByLogin);
+    Optional<User> cached = userCache.findById(userId, this::loadById);
+
+    assertEquals(1, loads.get());
+    assertEquals(user.getId(), cached.get().getId());
+  }
+
+  @Test
+  void testLoginMatchesWhateverItsCase() {
+    userCache.findByLogin(user.getLogin(), this::loadByLogin);
+
+    Optional<User> cached = userCache.peekByLogin(" Sparta@GMAIL.com");
+
+    assertTrue(cached.isPresent());
+    assertEquals(user.getId(), cached.get().getId());
+  }
+
+  @Test
+  void testCachedUserIsCopied() {
+    userCache.findById(userId, this::loadById);
+    userCache.findById(userId, this::loadById).get().setName("Atreus");
+
+    assertEquals("Kratos", userCache.findById(userId, this::loadById).get().getName());
+  }
+
+  @Test
+  void testMissingUserIsNotCached() {
+    userCache.findById("missing", id -> {
+      loads.incrementAndGet();
+      return Optional.empty();
+    });
+    userCache.findByLogin("missing@gmail.com", login -> {
+      loads.incrementAndGet();
+      return null;
+    });
+
+    assertTrue(userCache.findById("missing", id -> Optional.empty()).isEmpty());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testInvalidateRemovesBothKeys() {
+    userCache.findByLogin(user.getLogin(), this::loadByLogin);
+    userCache.invalidate(userId);
+    userCache.findByLogin(user.getLogin(), this::loadByLogin);
+    userCache.findById(userId, this::loadById);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testStaleLoginKeyIsAMiss() {
+    userCache.findByLogin(user.getLogin(), this::loadByLogin);
+    User changed = User.builder().id(user.getId()).login("athens@gmail.com").build();
+    userCache.invalidate(userId);
+    userCache.findById(userId, id -> Optional.of(changed));
+
+    Optional<User> found = userCache.findByLogin(user.getLogin(), login -> null);
+
+    assertTrue(found.isEmpty());
+  }
+
+  @Test
+  void testLoadOverlappingInvalidationIsNotCached() {
+    userCache.findById(userId, id -> {
+      loads.incrementAndGet();
+      userCache.invalidate(id);
+      return Optional.of(user);
+    });
+    userCache.findById(userId, this::loadById);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testStatsAreRecorded() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    userCache.bindTo(registry);
+
+    userCache.findById(userId, this::loadById);
+    userCache.findById(userId, this::loadById);
+
+    assertEquals(1.0, registry.get("cache.gets").tag("cache", "users.by-id").tag("result", "hit")
+        .functionCounter().count());
+    assertEquals(1.0, registry.get("cache.gets").tag("cache", "users.by-id").tag("result", "miss")
+        .functionCounter().count());
+  }
+
+  private Optional<User> loadById(String id) {
+    loads.incrementAndGet();
+    return Optional.of(user);
+  }
+
+  private User loadByLogin(String login) {
+    loads.incrementAndGet();
+    return user;
+  }
+}
@@ -0,0 +1,197 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.User;
+import com.jala.university.api.infrastructure.persistence.security.PrincipalVersionRegistry;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserInvalidationBusTest {
+
+  private UserCache userCache;
+  private PrincipalVersionRegistry principalVersionRegistry;
+  private UserInvalidationBus invalidationBus;
+  private User user;
+  private String userId;
+
+  @BeforeEach
+  void setUp() {
+    userCache = new UserCache(100, 300);
+    principalVersionRegistry = new PrincipalVersionRegistry();
+    invalidationBus = new LoopbackUserInvalidationBus(List.of(userCache, principalVersionRegistry));
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .login("sparta@gmail.com")
+        .build();
+    userId = user.getId().toString();
+  }
+
+  @Test
+  void testUpdatedEventEvictsUserAndRecordsVersion() {
+    AtomicInteger loads = new AtomicInteger();
+    userCache.findById(userId, id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+
+    invalidationBus.publish(UserChangedEvent.updated(userId, 2));
+    userCache.findById(userId, id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+
+    assertEquals(2, loads.get());
+    assertFalse(principalVersionRegistry.isCurrent(userId, 1));
+    assertTrue(principalVersionRegistry.isCurrent(userId, 2));
+  }
+
+  @Test
+  void testDeletedEventRevokesUser() {
+    invalidationBus.publish(UserChangedEvent.deleted(userId, user.getLogin()));
+
+    assertFalse(principalVersionRegistry.isCurrent(userId, Long.MAX_VALUE - 1));
+  }
+
+  @Test
+  void testMissedChangesEvictEveryUserAndDistrustEveryToken() {
+    AtomicInteger loads = new AtomicInteger();
+    userCache.findById(userId, id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+
+    userCache.onChangesMissed();
+    principalVersionRegistry.onChangesMissed();
+    userCache.findById(userId, id -> {
+      loads.incrementAndGet();
+      return Optional.of(user);
+    });
+
+    assertEquals(2, loads.get());
+    assertFalse(principalVersionRegistry.isCurrent(userId, 1));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testChangeStreamRestartsFromNowWhenItCantBeResumed() {
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    MongoCollection<Document> collection = mock(MongoCollection.class);
+    ChangeStreamIterable<Document> stream = mock(ChangeStreamIterable.class);
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> dropped = mock(MongoChangeStreamCursor.class);
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> expired = mock(MongoChangeStreamCursor.class);
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> restarted = mock(MongoChangeStreamCursor.class);
+    UserChangeListener listener = mock(UserChangeListener.class);
+    BsonDocument token = new BsonDocument("_data", new BsonString("token"));
+    when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+    when(mongoTemplate.getCollection("users")).thenReturn(collection);
+    when(collection.watch(anyList())).thenReturn(stream);
+    when(stream.fullDocument(any())).thenReturn(stream);
+    when(stream.resumeAfter(any())).thenReturn(stream);
+    when(stream.cursor()).thenReturn(dropped, expired, restarted);
+    when(dropped.getResumeToken()).thenReturn(token);
+    when(dropped.next()).thenThrow(new MongoSocketReadException("Connection reset", new ServerAddress()));
+    when(expired.next()).thenThrow(new MongoCommandException(
+        new BsonDocument("ok", new BsonInt32(0)).append("code", new BsonInt32(286)), new ServerAddress()));
+    when(restarted.next()).thenAnswer(invocation -> {
+      Thread.sleep(Long.MAX_VALUE);
+      return null;
+    });
+    ChangeStreamUserInvalidationBus bus = new ChangeStreamUserInvalidationBus(mongoTemplate, List.of(listener), 1);
+
+    bus.start();
+
+    try {
+      verify(restarted, timeout(5000)).next();
+      verify(listener).onChangesMissed();
+      verify(stream, times(1)).resumeAfter(token);
+    } finally {
+      bus.stop();
+    }
+  }
+
+  @Test
+  void testChangeStreamUpdateIsTranslated() {
+    Document fullDocument = new Document("_id", user.getId()).append(User.PRINCIPAL_VERSION_FIELD, 3L);
+    ChangeStreamDocument<Document> change = change(OperationType.UPDATE, new BsonBinary(user.getId()), fullDocument);
+
+    Optional<UserChangedEvent> event = ChangeStreamUserInvalidationBus.toEvent(change);
+
+    assertEquals(Optional.of(UserChangedEvent.updated(userId, 3)), event);
+  }
+
+  @Test
+  void testChangeStreamUpdateOnlyCarriesAChangedLogin() {
+    Document fullDocument = new Document("_id", user.getId()).append(User.LOGIN_FIELD, user.getLogin())
+        .append(User.PRINCIPAL_VERSION_FIELD, 4L);
+    UpdateDescription passwordChange = new UpdateDescription(null,
+        new BsonDocument(User.PASSWORD_FIELD, new BsonString("hash")));
+    UpdateDescription loginChange = new UpdateDescription(null,
+        new BsonDocument(User.LOGIN_FIELD, new BsonString(user.getLogin())));
+
+    assertEquals(Optional.of(UserChangedEvent.updated(userId, 4)), ChangeStreamUserInvalidationBus.toEvent(
+        change(OperationType.UPDATE, new BsonBinary(user.getId()), fullDocument, passwordChange)));
+    assertEquals(Optional.of(UserChangedEvent.updated(userId, user.getLogin(), 4)),
+        ChangeStreamUserInvalidationBus.toEvent(
+            change(OperationType.UPDATE, new BsonBinary(user.getId()), fullDocument, loginChange)));
+  }
+
+  @Test
+  void testChangeStreamOnLegacyStringIdIsTranslated() {
+    ChangeStreamDocument<Document> change = change(OperationType.UPDATE, new BsonString(userId), null);
+
+    Optional<UserChangedEvent> event = ChangeStreamUserInvalidationBus.toEvent(change);
+
+    assertEquals(Optional.of(UserChangedEvent.updated(userId, null, 0)), event);
+  }
+
+  @Test
+  void testChangeStreamDeleteIsTranslated() {
+    ChangeStreamDocument<Document> change = change(OperationType.DELETE, new BsonBinary(user.getId()), null);
+
+    Optional<UserChangedEvent> event = ChangeStreamUserInvalidationBus.toEvent(change);
+
+    assertEquals(Optional.of(UserChangedEvent.deleted(userId, null)), event);
+  }
+
+  @Test
+  void testChangeStreamWithForeignKeyIsIgnored() {
+    ChangeStreamDocument<Document> change = change(OperationType.UPDATE, new BsonInt32(1), null);
+
+    assertTrue(ChangeStreamUserInvalidationBus.toEvent(change).isEmpty());
+  }
+
+  private static ChangeStreamDocument<Document> change(OperationType type, BsonValue id,
+      Document fullDocument) {
+    return change(type, id, fullDocument, null);
+  }
+
+  private static ChangeStreamDocument<Document> change(OperationType type, BsonValue id,
+      Document fullDocument, UpdateDescription updateDescription) {
+    return new ChangeStreamDocument<>(type.getValue(), new BsonDocument("_data", new BsonString("token")), null,
+        null, fullDocument, null, new BsonDocument("_id", id), null, updateDescription, null, null, null, null, null);
+  }
+}
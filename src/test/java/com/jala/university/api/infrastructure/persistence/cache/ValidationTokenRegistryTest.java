@@ -0,0 +1,115 @@
+package com.jala.university.api.infrastructure.persistence.cache;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationTokenRegistryTest {
+
+  private static final UUID OWNER = UUID.randomUUID();
+
+  private MutableClock clock;
+  private ValidationTokenRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2024-09-01T10:00:00Z"));
+    registry = new ValidationTokenRegistry(true, 3, clock);
+  }
+
+  @Test
+  void testRegisteredTokenExpires() {
+    IdentityValidationToken token = token(Duration.ofHours(1));
+    registry.register(token);
+
+    clock.advance(Duration.ofMinutes(59));
+    assertEquals(OWNER, registry.find(token.getId()).orElseThrow().getUserId());
+
+    clock.advance(Duration.ofMinutes(1));
+    assertTrue(registry.find(token.getId()).isEmpty());
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  void testVerifiedTokenKeepsItsExpiration() {
+    IdentityValidationToken token = token(Duration.ofMinutes(10));
+    registry.register(token);
+
+    registry.markVerified(IdentityValidationToken.builder().id(token.getId()).build());
+
+    IdentityValidationToken found = registry.find(token.getId()).orElseThrow();
+    assertTrue(found.isVerified());
+    assertEquals(OWNER, found.getUserId());
+
+    clock.advance(Duration.ofMinutes(10));
+    assertTrue(registry.find(token.getId()).isEmpty());
+  }
+
+  @Test
+  void testFullRegistryKeepsItsTokens() {
+    for (int i = 0; i < 3; i++) {
+      registry.register(token(Duration.ofHours(1)));
+    }
+
+    IdentityValidationToken extra = token(Duration.ofHours(1));
+    registry.register(extra);
+
+    assertEquals(3, registry.size());
+    assertTrue(registry.find(extra.getId()).isEmpty());
+  }
+
+  @Test
+  void testDisabledRegistryKeepsNothing() {
+    ValidationTokenRegistry disabled = new ValidationTokenRegistry(false, 3, clock);
+    IdentityValidationToken token = token(Duration.ofHours(1));
+
+    disabled.register(token);
+
+    assertTrue(disabled.find(token.getId()).isEmpty());
+  }
+
+  private IdentityValidationToken token(Duration timeToLive) {
+    return IdentityValidationToken.builder()
+        .id(UUID.randomUUID())
+        .userId(OWNER)
+        .expiration(LocalDateTime.now(clock).plus(timeToLive))
+        .build();
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.jala.university.api.infrastructure.persistence.codec;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.mongodb.MongoClientSettings;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityValidationTokenCodecTest {
+
+  private static final Codec<Document> DOCUMENT_CODEC = new DocumentCodec(CodecRegistries.withUuidRepresentation(
+      MongoClientSettings.getDefaultCodecRegistry(), UuidRepresentation.STANDARD))
+      .withUuidRepresentation(UuidRepresentation.STANDARD);
+
+  private final IdentityValidationTokenCodec codec = new IdentityValidationTokenCodec();
+  private MappingMongoConverter converter;
+  private IdentityValidationToken token;
+
+  @BeforeEach
+  void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+
+    token = IdentityValidationToken.builder()
+        .id(UUID.randomUUID())
+        .userId(UUID.randomUUID())
+        .expiration(LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.MILLIS))
+        .verified(true)
+        .build();
+  }
+
+  @Test
+  void testDecodesWhatTheConverterWrites() {
+    Document written = new Document();
+    converter.write(token, written);
+
+    assertSameToken(token, new RawBsonDocument(written, DOCUMENT_CODEC).decode(codec));
+  }
+
+  @Test
+  void testConverterReadsWhatTheCodecEncodes() {
+    BsonDocument encoded = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(encoded), token, EncoderContext.builder().build());
+
+    Document document = DOCUMENT_CODEC.decode(new BsonDocumentReader(encoded), DecoderContext.builder().build());
+
+    assertSameToken(token, converter.read(IdentityValidationToken.class, document));
+  }
+
+  private static void assertSameToken(IdentityValidationToken expected, IdentityValidationToken actual) {
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(expected.getUserId(), actual.getUserId());
+    assertEquals(expected.getExpiration(), actual.getExpiration());
+    assertEquals(expected.isVerified(), actual.isVerified());
+  }
+}
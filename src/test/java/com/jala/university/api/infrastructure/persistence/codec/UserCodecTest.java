@@ -0,0 +1,117 @@
+package com.jala.university.api.infrastructure.persistence.codec;
+
+import com.jala.university.api.domain.entity.User;
+import com.mongodb.MongoClientSettings;
+import java.util.List;
+import java.util.UUID;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCodecTest {
+
+  private static final Codec<Document> DOCUMENT_CODEC = new DocumentCodec(CodecRegistries.withUuidRepresentation(
+      MongoClientSettings.getDefaultCodecRegistry(), UuidRepresentation.STANDARD))
+      .withUuidRepresentation(UuidRepresentation.STANDARD);
+
+  private final UserCodec codec = new UserCodec();
+  private MappingMongoConverter converter;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .name("Kratos")
+        .login("Sparta@gmail.com")
+        .loginKey("sparta@gmail.com")
+        .password("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW")
+        .validated(true)
+        .principalVersion(4)
+        .build();
+  }
+
+  @Test
+  void testDecodesWhatTheConverterWrites() {
+    Document written = new Document();
+    converter.write(user, written);
+
+    assertSameUser(user, new RawBsonDocument(written, DOCUMENT_CODEC).decode(codec));
+  }
+
+  @Test
+  void testConverterReadsWhatTheCodecEncodes() {
+    BsonDocument encoded = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(encoded), user, EncoderContext.builder().build());
+
+    Document document = DOCUMENT_CODEC.decode(new BsonDocumentReader(encoded), DecoderContext.builder().build());
+
+    assertSameUser(user, converter.read(User.class, document));
+  }
+
+  @Test
+  void testSkipsFieldsThatAreNotPartOfTheUser() {
+    Document written = new Document();
+    converter.write(user, written);
+    written.append("_class", User.class.getName()).append("tokens", List.of(
+        new Document("_id", UUID.randomUUID().toString()).append("verified", true)));
+
+    assertSameUser(user, new RawBsonDocument(written, DOCUMENT_CODEC).decode(codec));
+  }
+
+  @Test
+  void testProjectedOutFieldsKeepTheirDefault() {
+    Document projected = new Document("_id", user.getId()).append(User.LOGIN_FIELD, user.getLogin());
+
+    User decoded = new RawBsonDocument(projected, DOCUMENT_CODEC).decode(codec);
+
+    assertEquals(user.getId(), decoded.getId());
+    assertEquals(user.getLogin(), decoded.getLogin());
+    assertNull(decoded.getPassword());
+    assertEquals(0, decoded.getPrincipalVersion());
+  }
+
+  @Test
+  void testDecodesLegacyStringIdAndIntVersion() {
+    Document legacy = new Document("_id", user.getId().toString()).append(User.PRINCIPAL_VERSION_FIELD, 4);
+
+    User decoded = new RawBsonDocument(legacy, DOCUMENT_CODEC).decode(codec);
+
+    assertEquals(user.getId(), decoded.getId());
+    assertEquals(4, decoded.getPrincipalVersion());
+  }
+
+  private static void assertSameUser(User expected, User actual) {
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getLogin(), actual.getLogin());
+    assertEquals(expected.getLoginKey(), actual.getLoginKey());
+    assertEquals(expected.getPassword(), actual.getPassword());
+    assertEquals(expected.isValidated(), actual.isValidated());
+    assertEquals(expected.getPrincipalVersion(), actual.getPrincipalVersion());
+  }
+}
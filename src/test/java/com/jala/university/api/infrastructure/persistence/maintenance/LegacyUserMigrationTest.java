@@ -0,0 +1,44 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.entity.User;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacyUserMigrationTest {
+
+  @Test
+  void testConvertsLegacyUser() {
+    UUID id = UUID.randomUUID();
+    Document legacy = new Document("_id", id.toString())
+        .append("name", "Kratos")
+        .append("login", " Sparta@Gmail.com")
+        .append("password", "hash")
+        .append("validated", true)
+        .append("principalVersion", 3L)
+        .append("_class", "com.jala.university.api.domain.entity.User")
+        .append("tokens", List.of(new Document("_id", UUID.randomUUID().toString())));
+
+    Document converted = LegacyUserMigration.convert(legacy, id);
+
+    assertEquals(new Document("_id", id)
+        .append(User.NAME_FIELD, "Kratos")
+        .append(User.LOGIN_FIELD, " Sparta@Gmail.com")
+        .append(User.PASSWORD_FIELD, "hash")
+        .append(User.VALIDATED_FIELD, true)
+        .append(User.PRINCIPAL_VERSION_FIELD, 3L)
+        .append(User.LOGIN_KEY_FIELD, "sparta@gmail.com"), converted);
+  }
+
+  @Test
+  void testKeepsFieldsItDoesNotKnow() {
+    UUID id = UUID.randomUUID();
+
+    Document converted = LegacyUserMigration.convert(new Document("_id", id.toString()).append("extra", 1), id);
+
+    assertEquals(new Document("_id", id).append("extra", 1), converted);
+  }
+}
@@ -0,0 +1,179 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.entity.IdentityValidationToken;
+import com.jala.university.api.domain.entity.OutboxEmail;
+import com.jala.university.api.domain.entity.User;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MongoIndexBootstrapTest {
+
+  private static final Document ID_INDEX = new Document("v", 2).append("key", new Document("_id", 1))
+      .append("name", "_id_");
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private IndexOperations userIndexOps;
+
+  @Mock
+  private IndexOperations tokenIndexOps;
+
+  @Mock
+  private IndexOperations outboxIndexOps;
+
+  private final List<Document> userIndexes = new ArrayList<>();
+  private final List<Document> tokenIndexes = new ArrayList<>();
+  private final List<Document> outboxIndexes = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.afterPropertiesSet();
+
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+    when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+    when(mongoTemplate.getCollectionName(IdentityValidationToken.class)).thenReturn("identity_validation_tokens");
+    when(mongoTemplate.getCollectionName(OutboxEmail.class)).thenReturn("email_outbox");
+    stubIndexes("users", userIndexes);
+    stubIndexes("identity_validation_tokens", tokenIndexes);
+    stubIndexes("email_outbox", outboxIndexes);
+    when(mongoTemplate.indexOps(User.class)).thenReturn(userIndexOps);
+    when(mongoTemplate.indexOps(IdentityValidationToken.class)).thenReturn(tokenIndexOps);
+    when(mongoTemplate.indexOps(OutboxEmail.class)).thenReturn(outboxIndexOps);
+    when(userIndexOps.ensureIndex(any())).thenReturn("created");
+    when(tokenIndexOps.ensureIndex(any())).thenReturn("created");
+    when(outboxIndexOps.ensureIndex(any())).thenReturn("created");
+
+    userIndexes.add(ID_INDEX);
+    tokenIndexes.add(ID_INDEX);
+    outboxIndexes.add(ID_INDEX);
+  }
+
+  @Test
+  void testCreatesMissingIndexes() {
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, true, MongoIndexBootstrap.DriftAction.FAIL);
+
+    assertTrue(bootstrap.bootstrap().isEmpty());
+    verify(userIndexOps).ensureIndex(argThatHasKeys(new Document("lk", 1)));
+    verify(tokenIndexOps, times(3)).ensureIndex(any());
+    verify(outboxIndexOps).ensureIndex(argThatHasKeys(new Document("na", 1)));
+    verify(outboxIndexOps).ensureIndex(argThatHasKeys(new Document("x", 1)));
+  }
+
+  @Test
+  void testSkipsExistingIndexes() {
+    addDeclaredIndexes();
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, true, MongoIndexBootstrap.DriftAction.FAIL);
+
+    assertTrue(bootstrap.bootstrap().isEmpty());
+    bootstrap.afterSingletonsInstantiated();
+    verify(userIndexOps, never()).ensureIndex(any());
+    verify(tokenIndexOps, never()).ensureIndex(any());
+    verify(outboxIndexOps, never()).ensureIndex(any());
+  }
+
+  @Test
+  void testReportsMissingIndexesWhenCreationIsDisabled() {
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, false, MongoIndexBootstrap.DriftAction.WARN);
+
+    List<String> drift = bootstrap.bootstrap();
+
+    assertEquals(6, drift.size());
+    assertTrue(drift.get(0).startsWith("missing index {\"lk\": 1}"));
+    verify(userIndexOps, never()).ensureIndex(any());
+  }
+
+  @Test
+  void testReportsIndexWithOtherOptions() {
+    addDeclaredIndexes();
+    userIndexes.set(1, new Document("key", new Document("lk", 1)).append("name", "lk").append("sparse", true));
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, true, MongoIndexBootstrap.DriftAction.WARN);
+
+    assertEquals(List.of("index lk on users has a different unique"), bootstrap.bootstrap());
+    verify(userIndexOps, never()).ensureIndex(any());
+  }
+
+  @Test
+  void testFailsOnDriftWhenConfigured() {
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, false, MongoIndexBootstrap.DriftAction.FAIL);
+
+    assertThrows(IllegalStateException.class, bootstrap::afterSingletonsInstantiated);
+  }
+
+  @Test
+  void testOnlyWarnsOnDriftByDefault() {
+    MongoIndexBootstrap bootstrap = new MongoIndexBootstrap(mongoTemplate, false, MongoIndexBootstrap.DriftAction.WARN);
+
+    assertDoesNotThrow(bootstrap::afterSingletonsInstantiated);
+  }
+
+  @Test
+  void testUnreachableDatabaseOnlyFailsWhenConfigured() {
+    when(mongoTemplate.getCollection("users")).thenThrow(new IllegalStateException("timeout"));
+
+    assertDoesNotThrow(new MongoIndexBootstrap(mongoTemplate, true,
+        MongoIndexBootstrap.DriftAction.WARN)::afterSingletonsInstantiated);
+    assertThrows(IllegalStateException.class, new MongoIndexBootstrap(mongoTemplate, true,
+        MongoIndexBootstrap.DriftAction.FAIL)::afterSingletonsInstantiated);
+  }
+
+  private void addDeclaredIndexes() {
+    userIndexes.add(new Document("key", new Document("lk", 1.0)).append("name", "lk").append("unique", true)
+        .append("sparse", true));
+    tokenIndexes.add(new Document("key", new Document("vf", 1)).append("name", "verified_tokens")
+        .append("partialFilterExpression", new Document("vf", true)));
+    tokenIndexes.add(new Document("key", new Document("u", 1)).append("name", "u"));
+    tokenIndexes.add(new Document("key", new Document("exp", 1)).append("name", "exp")
+        .append("expireAfterSeconds", 0));
+    outboxIndexes.add(new Document("key", new Document("na", 1)).append("name", "pending_emails")
+        .append("partialFilterExpression", new Document("st", "PENDING")));
+    outboxIndexes.add(new Document("key", new Document("x", 1)).append("name", "x")
+        .append("expireAfterSeconds", 0));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void stubIndexes(String collection, List<Document> indexes) {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    ListIndexesIterable<Document> iterable = mock(ListIndexesIterable.class);
+
+    when(mongoTemplate.getCollection(collection)).thenReturn(mongoCollection);
+    when(mongoCollection.listIndexes()).thenReturn(iterable);
+    when(iterable.into(any())).thenAnswer(invocation -> {
+      List<Document> target = invocation.getArgument(0);
+      target.addAll(indexes);
+      return target;
+    });
+  }
+
+  private static IndexDefinition argThatHasKeys(Document keys) {
+    return argThat(index -> index.getIndexKeys().equals(keys));
+  }
+}
@@ -0,0 +1,91 @@
+package com.jala.university.api.infrastructure.persistence.maintenance;
+
+import com.jala.university.api.domain.repository.IdentityValidationTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ValidationTokenSweeperTest {
+
+  private IdentityValidationTokenRepository tokenRepository;
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    tokenRepository = mock(IdentityValidationTokenRepository.class);
+    registry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testVerifiedTokensAreDeletedUntilNoneLeft() {
+    when(tokenRepository.deleteVerified(2)).thenReturn(2L, 2L, 1L);
+
+    sweeper(2, 10).sweep();
+
+    verify(tokenRepository, times(3)).deleteVerified(2);
+    assertEquals(5, registry.get("tokens.sweeper.tokens.removed").tag("source", "collection").counter().count());
+    assertEquals(5, registry.get("tokens.sweeper.documents.scanned").counter().count());
+    assertEquals(1, registry.get("tokens.sweeper.time").timer().count());
+  }
+
+  @Test
+  void testRunIsBoundedInBatches() {
+    when(tokenRepository.deleteVerified(2)).thenReturn(2L);
+
+    sweeper(2, 3).sweep();
+
+    verify(tokenRepository, times(3)).deleteVerified(2);
+  }
+
+  @Test
+  void testFailureIsRetriedOnNextRun() {
+    when(tokenRepository.deleteVerified(2))
+        .thenThrow(new IllegalStateException("primary stepped down"))
+        .thenReturn(0L);
+
+    ValidationTokenSweeper sweeper = sweeper(2, 10);
+    assertDoesNotThrow(sweeper::sweep);
+    sweeper.sweep();
+
+    verify(tokenRepository, times(2)).deleteVerified(2);
+  }
+
+  @Test
+  void testSweepsRunOnTheirOwnThreadAndStop() {
+    List<String> threads = new CopyOnWriteArrayList<>();
+    when(tokenRepository.deleteVerified(anyInt())).thenAnswer(invocation -> {
+      threads.add(Thread.currentThread().getName());
+      return 0L;
+    });
+    ValidationTokenSweeper sweeper = sweeper(2, 10);
+
+    sweeper.start();
+    verify(tokenRepository, timeout(5000).atLeast(2)).deleteVerified(2);
+    sweeper.stop();
+
+    assertTrue(threads.stream().allMatch("validation-token-sweeper"::equals));
+  }
+
+  @Test
+  void testDisabledSweeperDoesNothing() {
+    ValidationTokenSweeper sweeper = new ValidationTokenSweeper(tokenRepository, false, 2, 10,
+        1_000_000, 0, 1, registry);
+
+    sweeper.start();
+    sweeper.sweep();
+    sweeper.stop();
+
+    verifyNoInteractions(tokenRepository);
+  }
+
+  private ValidationTokenSweeper sweeper(int batchSize, int maxBatchesPerRun) {
+    return new ValidationTokenSweeper(tokenRepository, true, batchSize, maxBatchesPerRun,
+        1_000_000, 0, 1, registry);
+  }
+}
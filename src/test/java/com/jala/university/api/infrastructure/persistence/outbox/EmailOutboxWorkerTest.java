@@ -0,0 +1,212 @@
+package com.jala.university.api.infrastructure.persistence.outbox;
+
+import com.jala.university.api.application.service.EmailService;
+import com.jala.university.api.domain.entity.OutboxEmail;
+import com.jala.university.api.domain.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxWorkerTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private OutboxEmailRepository repository;
+  private EmailService emailService;
+  private SimpleMeterRegistry registry;
+  private EmailOutboxWorker worker;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(OutboxEmailRepository.class);
+    emailService = mock(EmailService.class);
+    registry = new SimpleMeterRegistry();
+    when(repository.renewLease(any(), anyInt(), any())).thenReturn(true);
+    worker = new EmailOutboxWorker(repository, emailService, 1, 1, 3, 1000, 8000, 60000, 5000, 24, registry);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    release.countDown();
+    worker.destroy();
+  }
+
+  @Test
+  void testEnqueueRecordsClaimedEmailAndDeliversIt() throws Exception {
+    LocalDateTime before = LocalDateTime.now();
+
+    worker.enqueue("kratos@gmail.com", "Verify your identity", "token");
+
+    ArgumentCaptor<OutboxEmail> recorded = ArgumentCaptor.forClass(OutboxEmail.class);
+    verify(repository).insert(recorded.capture());
+    OutboxEmail email = recorded.getValue();
+    assertEquals(OutboxEmail.Status.PENDING, email.getStatus());
+    assertEquals(1, email.getAttempts());
+    assertFalse(email.getNextAttemptAt().isBefore(before.plusSeconds(60)));
+
+    verify(repository, timeout(5000)).deleteClaimed(email.getId(), 1);
+    verify(emailService).sendEmail("kratos@gmail.com", "Verify your identity", "token");
+    assertEquals(1, registry.get("emails.outbox.delivered").counter().count());
+  }
+
+  @Test
+  void testFailedAttemptIsRescheduledWithBackoff() throws Exception {
+    doThrow(new MessagingException("Connection refused")).when(emailService).sendEmail(any(), any(), any());
+    LocalDateTime before = LocalDateTime.now();
+
+    worker.enqueue("kratos@gmail.com", "Verify your identity", "token");
+
+    ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(repository, timeout(5000)).reschedule(any(), eq(1), nextAttempt.capture(), eq("Connection refused"));
+    assertFalse(nextAttempt.getValue().isBefore(before));
+    assertFalse(nextAttempt.getValue().isAfter(LocalDateTime.now().plusSeconds(1)));
+    verify(repository, never()).deleteClaimed(any(), anyInt());
+    verify(repository, never()).markDead(any(), anyInt(), any(), any());
+    assertEquals(1, registry.get("emails.outbox.retried").counter().count());
+  }
+
+  @Test
+  void testLastFailedAttemptMovesEmailToDeadLetters() throws Exception {
+    OutboxEmail email = claimed(3);
+    when(repository.claimNext(any(), any())).thenReturn(Optional.of(email), Optional.empty());
+    doThrow(new MessagingException("Mailbox unavailable")).when(emailService).sendEmail(any(), any(), any());
+
+    worker.poll();
+
+    ArgumentCaptor<LocalDateTime> expiration = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(repository, timeout(5000)).markDead(eq(email.getId()), eq(3), eq("Mailbox unavailable"),
+        expiration.capture());
+    assertTrue(expiration.getValue().isAfter(LocalDateTime.now().plusHours(23)));
+    verify(repository, never()).reschedule(any(), anyInt(), any(), any());
+    assertEquals(1, registry.get("emails.outbox.dead").counter().count());
+  }
+
+  @Test
+  void testPollClaimsDueEmails() throws Exception {
+    worker.destroy();
+    worker = new EmailOutboxWorker(repository, emailService, 1, 4, 3, 1000, 8000, 60000, 5000, 24, registry);
+    OutboxEmail first = claimed(2);
+    OutboxEmail second = claimed(2);
+    when(repository.claimNext(any(), any())).thenReturn(Optional.of(first), Optional.of(second), Optional.empty());
+
+    worker.poll();
+
+    verify(repository, timeout(5000)).deleteClaimed(first.getId(), 2);
+    verify(repository, timeout(5000)).deleteClaimed(second.getId(), 2);
+    verify(repository, times(3)).claimNext(any(), any());
+  }
+
+  @Test
+  void testPollOnlyClaimsWhatFitsInTheQueue() throws Exception {
+    CountDownLatch started = blockSending();
+    when(repository.claimNext(any(), any())).thenAnswer(invocation -> Optional.of(claimed(1)));
+
+    worker.enqueue("first@gmail.com", "Subject", "body");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    worker.poll();
+
+    verify(repository, times(1)).claimNext(any(), any());
+    verify(repository, never()).release(any(), anyInt(), any());
+  }
+
+  @Test
+  void testEmailRejectedByFullQueueIsGivenBack() throws Exception {
+    CountDownLatch started = blockSending();
+
+    worker.enqueue("first@gmail.com", "Subject", "body");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    worker.enqueue("second@gmail.com", "Subject", "body");
+    worker.enqueue("third@gmail.com", "Subject", "body");
+
+    verify(repository, times(1)).release(any(), eq(1), any());
+  }
+
+  @Test
+  void testShutdownDrainsQueuedEmails() throws Exception {
+    CountDownLatch started = blockSending();
+
+    worker.enqueue("first@gmail.com", "Subject", "body");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    worker.enqueue("second@gmail.com", "Subject", "body");
+    release.countDown();
+    worker.destroy();
+
+    verify(emailService, times(2)).sendEmail(any(), any(), any());
+    verify(repository, times(2)).deleteClaimed(any(), eq(1));
+    verify(repository, never()).release(any(), anyInt(), any());
+  }
+
+  @Test
+  void testShutdownGivesBackEmailsNotSentInTime() throws Exception {
+    worker.destroy();
+    worker = new EmailOutboxWorker(repository, emailService, 1, 1, 3, 1000, 8000, 60000, 100, 24, registry);
+    CountDownLatch started = blockSending();
+
+    worker.enqueue("first@gmail.com", "Subject", "body");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    worker.enqueue("second@gmail.com", "Subject", "body");
+    worker.destroy();
+
+    verify(repository, times(1)).release(any(), eq(1), any());
+  }
+
+  @Test
+  void testEmailClaimedAgainWhileQueuedIsDropped() throws Exception {
+    OutboxEmail email = claimed(2);
+    when(repository.renewLease(eq(email.getId()), eq(2), any())).thenReturn(false);
+    when(repository.claimNext(any(), any())).thenReturn(Optional.of(email), Optional.empty());
+
+    worker.poll();
+
+    verify(repository, timeout(5000)).renewLease(eq(email.getId()), eq(2), any());
+    verify(emailService, after(200).never()).sendEmail(any(), any(), any());
+    verify(repository, never()).deleteClaimed(any(), anyInt());
+    assertEquals(1, registry.get("emails.outbox.claims.lost").counter().count());
+  }
+
+  @Test
+  void testBackoffDoublesUpToTheMaximum() {
+    for (int i = 0; i < 100; i++) {
+      assertTrue(worker.backoff(1).compareTo(Duration.ofMillis(1000)) <= 0);
+      assertTrue(worker.backoff(3).compareTo(Duration.ofMillis(4000)) <= 0);
+      assertTrue(worker.backoff(30).compareTo(Duration.ofMillis(8000)) <= 0);
+    }
+  }
+
+  private CountDownLatch blockSending() throws MessagingException {
+    CountDownLatch started = new CountDownLatch(1);
+
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return null;
+    }).when(emailService).sendEmail(any(), any(), any());
+
+    return started;
+  }
+
+  private static OutboxEmail claimed(int attempts) {
+    return OutboxEmail.builder()
+        .id(UUID.randomUUID())
+        .to("kratos@gmail.com")
+        .subject("Reset password")
+        .body("token")
+        .status(OutboxEmail.Status.PENDING)
+        .attempts(attempts)
+        .nextAttemptAt(LocalDateTime.now().plusMinutes(1))
+        .build();
+  }
+}
@@ -0,0 +1,96 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.jala.university.api.domain.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private SimpleMeterRegistry registry;
+  private BoundedPasswordEncoder encoder;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1, registry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    encoder.destroy();
+  }
+
+  @Test
+  void testEncodeAndMatchesRunOnPool() {
+    release.countDown();
+
+    assertEquals("encoded:secret", encoder.encode("secret"));
+    assertTrue(encoder.matches("secret", "encoded:secret"));
+    assertEquals(1, registry.get("password.hashing.time").tag("operation", "encode").timer().count());
+    assertEquals(1, registry.get("password.hashing.time").tag("operation", "matches").timer().count());
+    assertEquals(2, registry.get("password.hashing.wait").timer().count());
+  }
+
+  @Test
+  void testRejectsWhenSaturated() throws Exception {
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+
+    while (registry.get("password.hashing.queue.depth").gauge().value() < 1) {
+      Thread.onSpinWait();
+    }
+
+    assertThrows(ServiceOverloadedException.class, () -> encoder.encode("third"));
+    assertEquals(1, registry.get("password.hashing.rejected").counter().count());
+
+    release.countDown();
+
+    assertEquals("encoded:first", running.get(5, TimeUnit.SECONDS));
+    assertEquals("encoded:second", queued.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testDelegateExceptionIsRethrown() {
+    release.countDown();
+
+    assertThrows(IllegalArgumentException.class, () -> encoder.encode(null));
+  }
+
+  private class BlockingEncoder implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      if (rawPassword == null) {
+        throw new IllegalArgumentException("rawPassword cannot be null");
+      }
+
+      started.countDown();
+
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      return "encoded:" + rawPassword;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return encode(rawPassword).equals(encodedPassword);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner.Claims;
+import com.jala.university.api.infrastructure.persistence.security.IdentityTokenSigner.Purpose;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityTokenSignerTest {
+
+  private static final Instant NOW = Instant.ofEpochSecond(1_800_000_000L);
+
+  private final IdentityTokenSigner signer = signer(1);
+  private final Claims claims = new Claims(UUID.randomUUID().toString(), Purpose.PASSWORD_RESET,
+      NOW.plusSeconds(3600), 7);
+
+  @Test
+  void testSignedTokenIsVerified() {
+    String token = signer.sign(claims);
+
+    assertEquals(Optional.of(claims), signer.verify(token, Purpose.PASSWORD_RESET, NOW));
+    assertTrue(token.matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+"));
+  }
+
+  @Test
+  void testTokenOfAnotherPurposeIsRejected() {
+    String token = signer.sign(claims);
+
+    assertTrue(signer.verify(token, Purpose.EMAIL_VALIDATION, NOW).isEmpty());
+  }
+
+  @Test
+  void testExpiredTokenIsRejected() {
+    String token = signer.sign(claims);
+
+    assertTrue(signer.verify(token, Purpose.PASSWORD_RESET, NOW.plusSeconds(3600)).isEmpty());
+  }
+
+  @Test
+  void testTamperedTokenIsRejected() {
+    String token = signer.sign(claims);
+    String forged = signer.sign(new Claims(claims.userId(), claims.purpose(), claims.expiration(), 8));
+    String tampered = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+    assertTrue(signer.verify(tampered, Purpose.PASSWORD_RESET, NOW).isEmpty());
+    assertTrue(signer(2).verify(token, Purpose.PASSWORD_RESET, NOW).isEmpty());
+  }
+
+  @Test
+  void testMalformedTokenIsRejected() {
+    assertTrue(signer.verify(null, Purpose.PASSWORD_RESET, NOW).isEmpty());
+    assertTrue(signer.verify("no-separator", Purpose.PASSWORD_RESET, NOW).isEmpty());
+    assertTrue(signer.verify("!!.??", Purpose.PASSWORD_RESET, NOW).isEmpty());
+    assertTrue(signer.verify("AA.AA", Purpose.PASSWORD_RESET, NOW).isEmpty());
+  }
+
+  private static IdentityTokenSigner signer(int seed) {
+    byte[] secret = new byte[32];
+    secret[0] = (byte) seed;
+
+    return new IdentityTokenSigner(Base64.getEncoder().encodeToString(secret));
+  }
+}
@@ -1,5 +1,6 @@
 package com.jala.university.api.infrastructure.persistence.security;
 
+import com.jala.university.api.application.dto.UserDto;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -75,4 +76,31 @@ class JwtTokenProviderTest {
 
     assertTrue(exception.getMessage().contains("JWT expired"));
   }
+
+  @Test
+  void testGenerateTokenWithClaimsPrincipal() {
+    ReflectionTestUtils.setField(jwtTokenProvider, "claimsPrincipalEnabled", true);
+    UserDto user = UserDto.builder()
+        .id(testUserId).name("Kratos").email("sparta@gmail.com").validated(true).principalVersion(3)
+        .build();
+
+    String token = jwtTokenProvider.generateToken(user);
+
+    assertEquals(testUserId, jwtTokenUtil.getUserIdFromToken(token));
+    assertEquals("Kratos", jwtTokenUtil.getClaimFromToken(token, claims -> claims.get(JwtTokenProvider.NAME_CLAIM)));
+    assertEquals("sparta@gmail.com", jwtTokenUtil.getClaimFromToken(token, claims -> claims.get(JwtTokenProvider.EMAIL_CLAIM)));
+    assertEquals(true, jwtTokenUtil.getClaimFromToken(token, claims -> claims.get(JwtTokenProvider.VALIDATED_CLAIM)));
+    assertEquals(3L, jwtTokenUtil.<Number>getClaimFromToken(token,
+        claims -> (Number) claims.get(JwtTokenProvider.PRINCIPAL_VERSION_CLAIM)).longValue());
+  }
+
+  @Test
+  void testGenerateTokenWithoutClaimsPrincipal() {
+    UserDto user = UserDto.builder().id(testUserId).name("Kratos").email("sparta@gmail.com").build();
+
+    String token = jwtTokenProvider.generateToken(user);
+
+    assertEquals(testUserId, jwtTokenUtil.getUserIdFromToken(token));
+    assertNull(jwtTokenUtil.getClaimFromToken(token, claims -> claims.get(JwtTokenProvider.NAME_CLAIM)));
+  }
 }
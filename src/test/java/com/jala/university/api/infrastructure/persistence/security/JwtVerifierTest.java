@@ -0,0 +1,94 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+
+  private final String secretKey = "NcA1xBfJrjGyryOOA8axupfFY7Mn6jhFMESDkl9BCaTJAak0MwCUJ5Lp8wzz4/ISzDvgSGhr6ANxS0velah4AA==";
+  private final String testUserId = "1";
+  private JwtVerifier jwtVerifier;
+  private JwtTokenProvider jwtTokenProvider;
+  private Key key;
+
+  @BeforeEach
+  void setUp() {
+    jwtVerifier = new JwtVerifier(secretKey, 100);
+    jwtTokenProvider = new JwtTokenProvider();
+    ReflectionTestUtils.setField(jwtTokenProvider, "secretKey", secretKey);
+    key = JwtKeyUtil.getKeyFromSecret(secretKey);
+  }
+
+  @Test
+  void testVerifyValidToken() {
+    String token = jwtTokenProvider.generateToken(testUserId);
+
+    VerifiedJwt verified = jwtVerifier.verify(token);
+
+    assertEquals(testUserId, verified.subject());
+    assertNotNull(verified.issuedAt());
+    assertNotNull(verified.expiration());
+    assertEquals(testUserId, verified.claims().get("sub"));
+  }
+
+  @Test
+  void testVerifySameTokenTwiceReturnsCachedResult() {
+    String token = jwtTokenProvider.generateToken(testUserId);
+
+    VerifiedJwt first = jwtVerifier.verify(token);
+    VerifiedJwt second = jwtVerifier.verify(token);
+
+    assertSame(first, second);
+  }
+
+  @Test
+  void testVerifyTamperedToken() {
+    String token = jwtTokenProvider.generateToken(testUserId);
+    jwtVerifier.verify(token);
+    String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+    assertThrows(JwtException.class, () -> jwtVerifier.verify(tampered));
+  }
+
+  @Test
+  void testVerifyExpiredToken() {
+    String expiredToken = Jwts.builder()
+        .setSubject(testUserId)
+        .setIssuedAt(new Date(System.currentTimeMillis() - 10000))
+        .setExpiration(new Date(System.currentTimeMillis() - 5000))
+        .signWith(key, SignatureAlgorithm.HS512)
+        .compact();
+
+    assertThrows(ExpiredJwtException.class, () -> jwtVerifier.verify(expiredToken));
+  }
+
+  @Test
+  void testVerifyTokenExpiringFarInTheFuture() {
+    String token = Jwts.builder()
+        .setSubject(testUserId)
+        .setIssuedAt(new Date())
+        .setExpiration(new Date(Long.MAX_VALUE))
+        .signWith(key, SignatureAlgorithm.HS512)
+        .compact();
+
+    VerifiedJwt first = jwtVerifier.verify(token);
+
+    assertEquals(testUserId, first.subject());
+    assertSame(first, jwtVerifier.verify(token));
+  }
+
+  @Test
+  void testVerifyEmptyToken() {
+    assertThrows(IllegalArgumentException.class, () -> jwtVerifier.verify(""));
+  }
+}
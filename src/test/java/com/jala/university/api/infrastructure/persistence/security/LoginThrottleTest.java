@@ -0,0 +1,154 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+  private static final String LOGIN = "sparta@gmail.com";
+  private static final String IP = "10.0.0.1";
+
+  private AtomicLong now;
+  private SimpleMeterRegistry registry;
+  private LoginThrottle throttle;
+
+  @BeforeEach
+  void setUp() {
+    now = new AtomicLong(1_000_000);
+    registry = new SimpleMeterRegistry();
+    throttle = new LoginThrottle(1024, new LoginThrottle.Limit(3, 60), new LoginThrottle.Limit(5, 60),
+        2, 1000, 8000, 60_000, registry, now::get);
+  }
+
+  @Test
+  void testBurstIsAllowedThenRejected() {
+    assertEquals(0, throttle.tryAcquire(LOGIN, IP));
+    assertEquals(0, throttle.tryAcquire(LOGIN, IP));
+    assertEquals(0, throttle.tryAcquire(LOGIN, IP));
+
+    assertEquals(1000, throttle.tryAcquire(LOGIN, IP));
+  }
+
+  @Test
+  void testTokensRefillOverTime() {
+    for (int i = 0; i < 3; i++) {
+      throttle.tryAcquire(LOGIN, IP);
+    }
+
+    now.addAndGet(1000);
+
+    assertEquals(0, throttle.tryAcquire(LOGIN, IP));
+    assertTrue(throttle.tryAcquire(LOGIN, IP) > 0);
+  }
+
+  @Test
+  void testLoginIsNormalized() {
+    for (int i = 0; i < 3; i++) {
+      throttle.tryAcquire(LOGIN, IP);
+    }
+
+    assertTrue(throttle.tryAcquire(" SPARTA@gmail.com ", "10.0.0.2") > 0);
+  }
+
+  @Test
+  void testClientIpIsLimitedAcrossLogins() {
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, throttle.tryAcquire("user" + i + "@gmail.com", IP));
+    }
+
+    assertTrue(throttle.tryAcquire("user5@gmail.com", IP) > 0);
+    assertEquals(0, throttle.tryAcquire("user5@gmail.com", "10.0.0.2"));
+  }
+
+  @Test
+  void testAttemptsRefusedForTheirIpDontTakeLoginTokens() {
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, throttle.tryAcquire("user" + i + "@gmail.com", IP));
+    }
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(throttle.tryAcquire(LOGIN, IP) > 0);
+    }
+
+    assertEquals(0, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+  }
+
+  @Test
+  void testSprayingKeysDoesntEvictBlockedLogins() {
+    throttle.recordFailure(LOGIN, IP);
+    throttle.recordFailure(LOGIN, IP);
+
+    for (int i = 0; i < 5_000; i++) {
+      throttle.recordFailure("user" + i + "@gmail.com", "10.1.0.1");
+      throttle.recordFailure("user" + i + "@gmail.com", "10.1.0.1");
+    }
+
+    assertTrue(throttle.tryAcquire(LOGIN, "10.0.0.2") > 0);
+  }
+
+  @Test
+  void testNewKeysAreLetThroughWhenTheirWindowIsBlocked() {
+    for (int i = 0; i < 5_000; i++) {
+      throttle.recordFailure("user" + i + "@gmail.com", "10.1.0.1");
+      throttle.recordFailure("user" + i + "@gmail.com", "10.1.0.1");
+    }
+
+    assertEquals(0, throttle.tryAcquire("nobody@gmail.com", "10.0.0.3"));
+    assertEquals(1, registry.get("login.throttle.untracked").tag("key", "login").counter().count());
+  }
+
+  @Test
+  void testBackoffDoublesAfterRepeatedFailures() {
+    throttle.recordFailure(LOGIN, IP);
+    assertEquals(0, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+
+    throttle.recordFailure(LOGIN, IP);
+    assertEquals(1000, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+
+    throttle.recordFailure(LOGIN, IP);
+    assertEquals(2000, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+
+    for (int i = 0; i < 10; i++) {
+      throttle.recordFailure(LOGIN, IP);
+    }
+    assertEquals(8000, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+  }
+
+  @Test
+  void testSuccessClearsLoginFailures() {
+    throttle.recordFailure(LOGIN, IP);
+    throttle.recordFailure(LOGIN, IP);
+
+    throttle.recordSuccess(LOGIN);
+
+    assertEquals(0, throttle.tryAcquire(LOGIN, "10.0.0.2"));
+  }
+
+  @Test
+  void testIdleKeysAreForgotten() {
+    for (int i = 0; i < 3; i++) {
+      throttle.tryAcquire(LOGIN, IP);
+    }
+
+    now.addAndGet(60_001);
+
+    assertEquals(0, throttle.tryAcquire(LOGIN, IP));
+  }
+
+  @Test
+  void testManyDistinctKeysStayWithinCapacity() {
+    for (int i = 0; i < 1_000_000; i++) {
+      throttle.tryAcquire("user" + i + "@gmail.com", "10.0." + (i >> 8 & 255) + "." + (i & 255));
+      now.incrementAndGet();
+    }
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, throttle.tryAcquire(LOGIN, "10.1.0.1"));
+    }
+    assertTrue(throttle.tryAcquire(LOGIN, "10.1.0.1") > 0);
+  }
+}
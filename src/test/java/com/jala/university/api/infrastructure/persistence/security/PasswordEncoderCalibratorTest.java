@@ -0,0 +1,49 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderCalibratorTest {
+
+  @Test
+  void testCalibrationStaysWithinBounds() {
+    assertEquals(4, PasswordEncoderCalibrator.calibrateBcryptStrength(Duration.ZERO, 4, 8));
+    assertEquals(6, PasswordEncoderCalibrator.calibrateBcryptStrength(Duration.ofMinutes(1), 4, 6));
+  }
+
+  @Test
+  void testNewHashesCarryAlgorithmAndStrength() {
+    PasswordEncoder encoder = PasswordEncoderCalibrator.delegatingEncoder(5);
+
+    String hash = encoder.encode("Password1!");
+
+    assertTrue(hash.startsWith("{bcrypt}$2a$05$"));
+    assertTrue(encoder.matches("Password1!", hash));
+    assertFalse(encoder.upgradeEncoding(hash));
+  }
+
+  @Test
+  void testLegacyHashesMatchAndNeedUpgrade() {
+    PasswordEncoder encoder = PasswordEncoderCalibrator.delegatingEncoder(5);
+    String legacyHash = new BCryptPasswordEncoder(4).encode("Password1!");
+
+    assertTrue(encoder.matches("Password1!", legacyHash));
+    assertTrue(encoder.upgradeEncoding(legacyHash));
+  }
+
+  @Test
+  void testWeakerHashesNeedUpgrade() {
+    String weakHash = PasswordEncoderCalibrator.delegatingEncoder(4).encode("Password1!");
+
+    assertTrue(PasswordEncoderCalibrator.delegatingEncoder(5).upgradeEncoding(weakHash));
+  }
+
+  @Test
+  void testPlainTextPasswordDoesNotMatch() {
+    assertFalse(PasswordEncoderCalibrator.delegatingEncoder(4).matches("Password1!", "Password1!"));
+  }
+}
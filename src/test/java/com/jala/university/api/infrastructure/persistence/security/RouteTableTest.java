@@ -0,0 +1,94 @@
+package com.jala.university.api.infrastructure.persistence.security;
+
+import com.jala.university.api.controller.PasswordResetController;
+import com.jala.university.api.controller.UserController;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RouteTableTest {
+
+  private RouteTable routeTable;
+
+  @BeforeEach
+  void setUp() {
+    PublicRoutesConfig publicRoutesConfig = new PublicRoutesConfig();
+    ReflectionTestUtils.setField(publicRoutesConfig, "publicRoutesStrings",
+        List.of("/account/password-reset", "/users/register", "/users/login", "/swagger-ui/**"));
+
+    routeTable = new RouteTable(List.of(handlerMappingFor(
+        mock(UserController.class), mock(PasswordResetController.class))), publicRoutesConfig);
+  }
+
+  @Test
+  void testProtectedRoute() {
+    assertEquals(RouteTable.Route.PROTECTED, routeTable.resolve(new MockHttpServletRequest("GET", "/users/123")));
+    assertEquals(RouteTable.Route.PROTECTED, routeTable.resolve(new MockHttpServletRequest("PATCH", "/users/123")));
+    assertEquals(RouteTable.Route.PROTECTED, routeTable.resolve(new MockHttpServletRequest("DELETE", "/users/123")));
+  }
+
+  @Test
+  void testPublicRoute() {
+    assertEquals(RouteTable.Route.PUBLIC, routeTable.resolve(new MockHttpServletRequest("POST", "/users/login")));
+    assertEquals(RouteTable.Route.PUBLIC, routeTable.resolve(new MockHttpServletRequest("PUT", "/account/password-reset")));
+  }
+
+  @Test
+  void testPublicRouteWithoutHandlerMethod() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/swagger-ui/index.html");
+
+    assertEquals(RouteTable.Route.PUBLIC, routeTable.resolve(request));
+  }
+
+  @Test
+  void testUnregisteredRoute() {
+    assertEquals(RouteTable.Route.UNREGISTERED, routeTable.resolve(new MockHttpServletRequest("GET", "/unknown")));
+    assertEquals(RouteTable.Route.UNREGISTERED, routeTable.resolve(new MockHttpServletRequest("GET", "/users/1/2")));
+  }
+
+  @Test
+  void testRegisteredPathWithWrongMethod() {
+    assertEquals(RouteTable.Route.UNREGISTERED, routeTable.resolve(new MockHttpServletRequest("GET", "/account/password-reset")));
+    assertEquals(RouteTable.Route.UNREGISTERED, routeTable.resolve(new MockHttpServletRequest("POST", "/users/123")));
+  }
+
+  @Test
+  void testDecisionIsStoredOnRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/123");
+
+    routeTable.resolve(request);
+    request.setRequestURI("/users/login");
+
+    assertEquals(RouteTable.Route.PROTECTED, request.getAttribute(RouteTable.ROUTE_ATTRIBUTE));
+    assertFalse(routeTable.isPublic(request));
+  }
+
+  /**
+   * Builds a handler mapping holding the request mappings of the given controllers.
+   *
+   * @param controllers controllers to be registered
+   * @return an initialized handler mapping
+   */
+  static RequestMappingHandlerMapping handlerMappingFor(Object... controllers) {
+    StaticApplicationContext context = new StaticApplicationContext();
+
+    for (Object controller : controllers) {
+      context.getBeanFactory().registerSingleton(controller.getClass().getName(), controller);
+    }
+
+    context.refresh();
+
+    RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+    handlerMapping.setApplicationContext(context);
+    handlerMapping.afterPropertiesSet();
+
+    return handlerMapping;
+  }
+}
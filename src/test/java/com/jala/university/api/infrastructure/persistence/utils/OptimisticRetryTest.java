@@ -0,0 +1,63 @@
+package com.jala.university.api.infrastructure.persistence.utils;
+
+import com.jala.university.api.domain.exceptions.ConcurrentUpdateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+  private SimpleMeterRegistry registry;
+  private OptimisticRetry retry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    retry = new OptimisticRetry(4, 1, 2, registry);
+  }
+
+  @Test
+  void testRetriesUntilTheWriteApplies() {
+    List<Integer> attempts = new ArrayList<>();
+
+    String written = retry.run(attempt -> {
+      attempts.add(attempt);
+      return attempt < 2 ? Optional.empty() : Optional.of("written");
+    });
+
+    assertEquals("written", written);
+    assertEquals(List.of(0, 1, 2), attempts);
+    assertEquals(2, registry.get("users.write.conflicts").counter().count());
+  }
+
+  @Test
+  void testGivesUpAfterTheLastAttempt() {
+    List<Integer> attempts = new ArrayList<>();
+
+    assertThrows(ConcurrentUpdateException.class, () -> retry.run(attempt -> {
+      attempts.add(attempt);
+      return Optional.empty();
+    }));
+
+    assertEquals(4, attempts.size());
+    assertEquals(1, registry.get("users.write.conflicts.exhausted").counter().count());
+  }
+
+  @Test
+  void testExceptionOfTheAttemptIsNotRetried() {
+    List<Integer> attempts = new ArrayList<>();
+
+    assertThrows(IOException.class, () -> retry.run(attempt -> {
+      attempts.add(attempt);
+      throw new IOException("gone");
+    }));
+
+    assertEquals(List.of(0), attempts);
+  }
+}
@@ -0,0 +1,49 @@
+package com.jala.university.api.infrastructure.persistence.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidsTest {
+
+  @Test
+  void testGeneratesVersion7Uuids() {
+    UUID uuid = Uuids.timeOrdered(1_700_000_000_000L);
+
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertEquals(1_700_000_000_000L, uuid.getMostSignificantBits() >>> 16);
+  }
+
+  @Test
+  void testBytesCompareInCreationOrder() {
+    byte[] earlier = bytesOf(Uuids.timeOrdered(1_700_000_000_000L));
+    byte[] later = bytesOf(Uuids.timeOrdered(1_700_000_000_001L));
+
+    assertTrue(Arrays.compareUnsigned(earlier, later) < 0);
+  }
+
+  @Test
+  void testGeneratedUuidsAreUnique() {
+    assertNotEquals(Uuids.timeOrdered(1_700_000_000_000L), Uuids.timeOrdered(1_700_000_000_000L));
+  }
+
+  @Test
+  void testParsesOnlyCanonicalUuids() {
+    UUID uuid = UUID.randomUUID();
+
+    assertEquals(Optional.of(uuid), Uuids.parse(uuid.toString()));
+    assertTrue(Uuids.parse("1-1-1-1-1").isEmpty());
+    assertTrue(Uuids.parse("66c8f1b2a4e5d3f1b2a4e5d3").isEmpty());
+    assertTrue(Uuids.parse(null).isEmpty());
+  }
+
+  private static byte[] bytesOf(UUID uuid) {
+    return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits()).array();
+  }
+}